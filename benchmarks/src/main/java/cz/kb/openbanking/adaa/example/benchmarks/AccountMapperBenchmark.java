@@ -0,0 +1,67 @@
+package cz.kb.openbanking.adaa.example.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import cz.kb.openbanking.adaa.example.web.mapper.AccountMapper;
+import cz.kb.openbanking.adaa.example.web.model.TransactionModel;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of {@link AccountMapper#toTransactionModel(AccountTransaction)} over a whole transaction history,
+ * as the transactions are mapped for the page of the transaction history.
+ *
+ * @since 1.2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountMapperBenchmark {
+
+    /**
+     * Number of the mapped transactions.
+     */
+    @Param({"10000"})
+    public int size;
+
+    private final AccountMapper accountMapper = Mappers.getMapper(AccountMapper.class);
+    private List<AccountTransaction> transactions;
+
+    /**
+     * Generates the transactions.
+     */
+    @Setup
+    public void setUp() {
+        transactions = BenchmarkData.transactions(size);
+    }
+
+    /**
+     * Maps all transactions.
+     *
+     * @return mapped transactions
+     */
+    @Benchmark
+    public List<TransactionModel> toTransactionModels() {
+        List<TransactionModel> models = new ArrayList<>(transactions.size());
+        for (AccountTransaction transaction : transactions) {
+            models.add(accountMapper.toTransactionModel(transaction));
+        }
+        return models;
+    }
+}
@@ -0,0 +1,120 @@
+package cz.kb.openbanking.adaa.example.benchmarks;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import cz.kb.openbanking.adaa.client.model.generated.AccountBalance;
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import cz.kb.openbanking.adaa.client.model.generated.AccountType;
+import cz.kb.openbanking.adaa.client.model.generated.CreditDebitIndicator;
+import cz.kb.openbanking.adaa.client.model.generated.CurrencyAmount;
+import cz.kb.openbanking.adaa.client.model.generated.PageSlice;
+import cz.kb.openbanking.adaa.client.model.generated.TransactionCounterparty;
+import cz.kb.openbanking.adaa.client.model.generated.TransactionReferences;
+import cz.kb.openbanking.adaa.client.model.generated.TransactionType;
+
+/**
+ * Synthetic data of the benchmarks.
+ * <p>
+ * The data are generated from a fixed seed, so every run of the benchmarks measures the same data
+ * and the results of different releases are comparable.
+ *
+ * @since 1.2
+ */
+final class BenchmarkData {
+    private static final long SEED = 20200201L;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+    private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generates transactions of one account.
+     *
+     * @param count number of the transactions
+     * @return transactions, ordered from the oldest one
+     */
+    static List<AccountTransaction> transactions(int count) {
+        Random random = new Random(SEED);
+        List<AccountTransaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            transactions.add(transaction(random, i));
+        }
+        return transactions;
+    }
+
+    /**
+     * Generates one page of the transaction history, as it is returned by the KB ADAA API.
+     *
+     * @param pageSize number of the transactions of the page
+     * @return the first page of the transaction history
+     */
+    static PageSlice page(int pageSize) {
+        return new PageSlice()
+                .content(transactions(pageSize))
+                .pageNumber(0)
+                .pageSize(pageSize)
+                .numberOfElements(pageSize)
+                .totalPages(10)
+                .first(true)
+                .last(false)
+                .empty(false);
+    }
+
+    /**
+     * Generates balance of the account.
+     *
+     * @return balance
+     */
+    static AccountBalance balance() {
+        AccountBalance balance = new AccountBalance();
+        balance.setType(AccountBalance.TypeEnum.CLOSING_AVAILABLE);
+        balance.setCreditDebitIndicator(CreditDebitIndicator.CREDIT);
+        balance.setAmount(amount(123_456.78));
+        balance.setValidAt(OffsetDateTime.of(2020, 2, 1, 8, 0, 0, 0, ZoneOffset.UTC));
+        return balance;
+    }
+
+    private static AccountTransaction transaction(Random random, int index) {
+        LocalDate day = FIRST_DAY.plusDays(index / 20);
+        boolean credit = random.nextBoolean();
+
+        AccountTransaction transaction = new AccountTransaction();
+        transaction.setLastUpdated(day.atTime(10, 0).atOffset(ZoneOffset.UTC));
+        transaction.setAccountType(AccountType.KB);
+        transaction.setEntryReference("ENTRY-" + index);
+        transaction.setIban("CZ6501000000000123456789");
+        transaction.setCreditDebitIndicator(credit ? CreditDebitIndicator.CREDIT : CreditDebitIndicator.DEBIT);
+        transaction.setTransactionType(TRANSACTION_TYPES[random.nextInt(TRANSACTION_TYPES.length)]);
+        transaction.setAmount(amount(random.nextInt(10_000_000) / 100.0));
+        transaction.setBookingDate(day);
+        transaction.setValueDate(day);
+        transaction.setReversalIndicator(false);
+        transaction.setStatus("BOOK");
+        transaction.setAdditionalTransactionInformation("Payment " + index);
+
+        TransactionCounterparty counterparty = new TransactionCounterparty();
+        counterparty.setName("Counterparty " + random.nextInt(100));
+        counterparty.setAccountNo(String.valueOf(100_000_000L + random.nextInt(900_000_000)));
+        counterparty.setBankCode("0100");
+        transaction.setCounterParty(counterparty);
+
+        TransactionReferences references = new TransactionReferences();
+        references.setVariable(String.valueOf(random.nextInt(1_000_000)));
+        references.setConstant("0308");
+        transaction.setReferences(references);
+        return transaction;
+    }
+
+    private static CurrencyAmount amount(double value) {
+        CurrencyAmount amount = new CurrencyAmount();
+        amount.setValue(value);
+        amount.setCurrency("CZK");
+        return amount;
+    }
+}
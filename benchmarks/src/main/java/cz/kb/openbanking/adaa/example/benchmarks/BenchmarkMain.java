@@ -0,0 +1,68 @@
+package cz.kb.openbanking.adaa.example.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks.
+ * <p>
+ * Accepts the JMH command line options. Unless the options say otherwise, the results are written
+ * as JSON to {@code jmh-result-<version>.json}, so the baselines of the releases can be compared
+ * (e.g. by {@code jmh-result-1.2.0.json} vs. {@code jmh-result-1.3.0.json}).
+ *
+ * @since 1.2
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args JMH command line options, e.g. {@code -h} for the help or a regexp of the benchmarks to run
+     * @throws CommandLineOptionException if the options are not valid
+     * @throws IOException                if the benchmarks could not be listed
+     * @throws RunnerException            if the benchmarks failed
+     */
+    public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList() || commandLine.shouldListWithParams() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats())
+        {
+            // listing is handled by the JMH main class
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result("jmh-result-" + getVersion() + ".json");
+        }
+        new Runner(options.build()).run();
+    }
+
+    /**
+     * Gets version of the benchmarked application.
+     *
+     * @return version from the manifest of the benchmarks jar
+     */
+    private static String getVersion() {
+        String version = BenchmarkMain.class.getPackage().getImplementationVersion();
+        return version == null ? "dev" : version;
+    }
+}
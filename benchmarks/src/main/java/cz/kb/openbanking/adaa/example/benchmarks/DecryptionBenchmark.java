@@ -0,0 +1,82 @@
+package cz.kb.openbanking.adaa.example.benchmarks;
+
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import cz.kb.openbanking.adaa.example.core.decryption.Aes256DecryptionService;
+import cz.kb.openbanking.adaa.example.core.decryption.impl.Aes256DecryptionServiceImpl;
+import cz.kb.openbanking.adaa.example.core.encryption.impl.Aes256EncryptionServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link Aes256DecryptionServiceImpl}, i.e. the decryption of the client secret of the registration
+ * and of the larger payloads.
+ *
+ * @since 1.2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecryptionBenchmark {
+    private static final String SALT = "2KwGx76r3hikHRw7";
+    private static final String SECRET_KEY = "Ri1KYU5kUmdVa1hwMnM1djh5L0I/RShIK0tiUGVTaFY=";
+
+    /**
+     * Size of the plain text in bytes.
+     */
+    @Param({"64", "4096", "65536"})
+    public int size;
+
+    private final Aes256DecryptionService decryptionService = new Aes256DecryptionServiceImpl();
+    private final byte[] saltBytes = Base64.getUrlDecoder().decode(SALT);
+    private String cipherText;
+    private byte[] cipherBytes;
+
+    /**
+     * Encrypts the plain text of the given size.
+     */
+    @Setup
+    public void setUp() {
+        char[] plainText = new char[size];
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++) {
+            plainText[i] = (char) ('a' + random.nextInt(26));
+        }
+        cipherText = new Aes256EncryptionServiceImpl().encrypt(new String(plainText), SALT, SECRET_KEY);
+        cipherBytes = Base64.getUrlDecoder().decode(cipherText);
+    }
+
+    /**
+     * Decrypts the Base64Url encoded text, as the client secret is decrypted.
+     *
+     * @return plain text
+     */
+    @Benchmark
+    public String decryptText() {
+        return decryptionService.decrypt(cipherText, SALT, SECRET_KEY);
+    }
+
+    /**
+     * Decrypts the ciphered bytes.
+     *
+     * @return plain bytes
+     */
+    @Benchmark
+    public byte[] decryptBytes() {
+        return decryptionService.decrypt(cipherBytes, saltBytes, SECRET_KEY);
+    }
+}
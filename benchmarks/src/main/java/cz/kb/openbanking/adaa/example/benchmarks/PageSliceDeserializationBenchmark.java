@@ -0,0 +1,67 @@
+package cz.kb.openbanking.adaa.example.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import cz.kb.openbanking.adaa.client.model.generated.PageSlice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of Jackson deserialization of one page of the transaction history ({@link PageSlice} of the account
+ * transactions), as the page is read from the response of the KB ADAA API.
+ *
+ * @since 1.2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageSliceDeserializationBenchmark {
+
+    /**
+     * Number of the transactions of the page, the default page size and a large page.
+     */
+    @Param({"50", "1000"})
+    public int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private byte[] json;
+
+    /**
+     * Serializes the page.
+     *
+     * @throws IOException if the page could not be serialized
+     */
+    @Setup
+    public void setUp() throws IOException {
+        json = objectMapper.writeValueAsBytes(BenchmarkData.page(pageSize));
+    }
+
+    /**
+     * Deserializes the page.
+     *
+     * @return page
+     * @throws IOException if the page could not be deserialized
+     */
+    @Benchmark
+    public PageSlice readPage() throws IOException {
+        return objectMapper.readValue(json, PageSlice.class);
+    }
+}
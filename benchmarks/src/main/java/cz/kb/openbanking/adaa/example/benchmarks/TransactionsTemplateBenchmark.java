@@ -0,0 +1,92 @@
+package cz.kb.openbanking.adaa.example.benchmarks;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import cz.kb.openbanking.adaa.example.web.mapper.AccountMapper;
+import cz.kb.openbanking.adaa.example.web.model.TransactionModel;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of FreeMarker rendering of the {@code transactions.ftl} template of the transaction history.
+ * <p>
+ * FreeMarker is configured with the defaults of the Jersey MVC feature the application uses and the template
+ * is loaded from the classes of the web application.
+ *
+ * @since 1.2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionsTemplateBenchmark {
+    private static final String TEMPLATE_BASE_PATH = "/freemarker";
+    private static final String TEMPLATE = "transactions.ftl";
+
+    /**
+     * Number of the rendered transactions.
+     */
+    @Param({"50", "1000"})
+    public int size;
+
+    private Template template;
+    private Map<String, Object> model;
+
+    /**
+     * Loads the template and prepares its model.
+     *
+     * @throws IOException if the template could not be loaded
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Configuration configuration = new Configuration(Configuration.DEFAULT_INCOMPATIBLE_IMPROVEMENTS);
+        configuration.setClassForTemplateLoading(AccountMapper.class, TEMPLATE_BASE_PATH);
+        template = configuration.getTemplate(TEMPLATE);
+
+        AccountMapper accountMapper = Mappers.getMapper(AccountMapper.class);
+        List<TransactionModel> transactions = new ArrayList<>(size);
+        for (AccountTransaction transaction : BenchmarkData.transactions(size)) {
+            transactions.add(accountMapper.toTransactionModel(transaction));
+        }
+        model = new HashMap<>();
+        model.put("transactions", transactions);
+        model.put("balance", accountMapper.toAccountBalanceModel(BenchmarkData.balance()));
+        model.put("accountId", "benchmark-account");
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @return rendered page
+     * @throws IOException       if the page could not be written
+     * @throws TemplateException if the template could not be rendered
+     */
+    @Benchmark
+    public String render() throws IOException, TemplateException {
+        StringWriter writer = new StringWriter(size * 4096);
+        template.process(model, writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains JMH benchmarks of the hot paths of the application.
+ */
+package cz.kb.openbanking.adaa.example.benchmarks;
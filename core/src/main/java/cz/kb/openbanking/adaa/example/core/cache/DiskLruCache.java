@@ -0,0 +1,255 @@
+package cz.kb.openbanking.adaa.example.core.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Content-addressed cache of immutable files on the disk with a byte budget and least recently used eviction.
+ * <p>
+ * Every key is stored in a file named by the SHA-256 hash of the key. A file is written to a temporary file
+ * first and moved to its name atomically when complete, so readers never see a partial file. The order of use
+ * is kept in memory and persisted as the last modified time of the files, so it is rebuilt from the directory
+ * after a restart. Readers must be ready for a file that was evicted after it was returned.
+ *
+ * @since 1.2
+ */
+public class DiskLruCache {
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // file name -> size of the file, in access order
+    private final LinkedHashMap<String, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * New instance. Files that are already in the directory are taken over, unfinished temporary files are deleted.
+     *
+     * @param directory directory of the cache, it is created if it does not exist
+     * @param maxBytes  maximum total size of the cached files
+     */
+    public DiskLruCache(Path directory, long maxBytes) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null");
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            load();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cache directory " + directory + " could not be loaded.", e);
+        }
+    }
+
+    /**
+     * Gets cached file of the key and marks it as the most recently used.
+     *
+     * @param key key
+     * @return cached file or {@code null} if the key is not cached
+     */
+    @Nullable
+    public Path get(String key) {
+        String fileName = toFileName(key);
+        synchronized (this) {
+            if (files.get(fileName) == null) {
+                return null;
+            }
+        }
+
+        Path file = directory.resolve(fileName);
+        try {
+            // persist the order of use for the next start
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            remove(fileName);
+            return null;
+        } catch (IOException e) {
+            // the order of use is not essential
+        }
+        return file;
+    }
+
+    /**
+     * Checks whether the key is cached, without marking it as used.
+     *
+     * @param key key
+     * @return {@code true} if the key is cached
+     */
+    public boolean contains(String key) {
+        String fileName = toFileName(key);
+        synchronized (this) {
+            return files.containsKey(fileName);
+        }
+    }
+
+    /**
+     * Creates temporary file in the cache directory that can be stored to the cache by {@link #commit(String, Path)}.
+     *
+     * @return new empty temporary file
+     * @throws IOException if the file could not be created
+     */
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile(directory, null, TEMP_FILE_SUFFIX);
+    }
+
+    /**
+     * Stores complete temporary file as the file of the key. The least recently used files are evicted
+     * when the byte budget is exceeded.
+     *
+     * @param key      key
+     * @param tempFile temporary file created by {@link #createTempFile()}
+     * @return cached file of the key
+     * @throws IOException if the file could not be stored
+     */
+    public Path commit(String key, Path tempFile) throws IOException {
+        if (tempFile == null) {
+            throw new IllegalArgumentException("tempFile must not be null");
+        }
+
+        String fileName = toFileName(key);
+        Path file = directory.resolve(fileName);
+        long size = Files.size(tempFile);
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Long previousSize = files.put(fileName, size);
+            totalBytes += size - (previousSize == null ? 0 : previousSize);
+
+            Iterator<Map.Entry<String, Long>> eldest = files.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (!entry.getKey().equals(fileName)) {
+                    totalBytes -= entry.getValue();
+                    evicted.add(entry.getKey());
+                    eldest.remove();
+                }
+            }
+        }
+
+        for (String evictedFileName : evicted) {
+            Files.deleteIfExists(directory.resolve(evictedFileName));
+        }
+        return file;
+    }
+
+    /**
+     * Deletes temporary file that is not going to be committed.
+     *
+     * @param tempFile temporary file created by {@link #createTempFile()}
+     */
+    public void abort(Path tempFile) {
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets total size of the cached files.
+     *
+     * @return total size in bytes
+     */
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    /**
+     * Forgets the file that was deleted outside of the cache.
+     *
+     * @param fileName name of the file
+     */
+    private synchronized void remove(String fileName) {
+        Long size = files.remove(fileName);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    /**
+     * Takes over the files in the cache directory, from the least to the most recently used.
+     *
+     * @throws IOException if the directory could not be read
+     */
+    private void load() throws IOException {
+        List<Path> cachedFiles = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (file.getFileName().toString().endsWith(TEMP_FILE_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (Files.isRegularFile(file)) {
+                    cachedFiles.add(file);
+                }
+            }
+        }
+
+        Map<Path, BasicFileAttributes> attributes = new LinkedHashMap<>();
+        for (Path file : cachedFiles) {
+            attributes.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+        }
+        cachedFiles.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+        for (Path file : cachedFiles) {
+            long size = attributes.get(file).size();
+            files.put(file.getFileName().toString(), size);
+            totalBytes += size;
+        }
+
+        Iterator<Map.Entry<String, Long>> eldest = files.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            totalBytes -= entry.getValue();
+            Files.deleteIfExists(directory.resolve(entry.getKey()));
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Converts the key to the name of its file.
+     *
+     * @param key key
+     * @return hex encoded SHA-256 hash of the key
+     */
+    private static String toFileName(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must not be null");
+        }
+
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported.", e);
+        }
+
+        char[] fileName = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            fileName[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+            fileName[2 * i + 1] = HEX_DIGITS[hash[i] & 0xF];
+        }
+        return new String(fileName);
+    }
+}
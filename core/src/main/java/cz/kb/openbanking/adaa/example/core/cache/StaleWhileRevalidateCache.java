@@ -0,0 +1,190 @@
+package cz.kb.openbanking.adaa.example.core.cache;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Bounded in-memory cache that serves stale values while they are being refreshed.
+ * <p>
+ * A missing value is loaded in the caller's thread. A value older than the time to live is returned immediately
+ * and a single refresh of it is started in the background; if the refresh fails, the stale value is kept
+ * and the refresh is retried by the next read. The least recently used values are evicted when the cache is full.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ * @since 1.2
+ */
+public class StaleWhileRevalidateCache<K, V> {
+    private final Map<K, Entry<V>> entries;
+    private final long timeToLiveNanos;
+    private final Executor refreshExecutor;
+    private final Function<K, V> loader;
+
+    /**
+     * New instance.
+     *
+     * @param maxSize         maximum number of cached values
+     * @param timeToLive      time after which a value is refreshed
+     * @param refreshExecutor executor for the background refreshes
+     * @param loader          loader of the values, it must not return {@code null}
+     */
+    public StaleWhileRevalidateCache(int maxSize, Duration timeToLive, Executor refreshExecutor,
+                                     Function<K, V> loader)
+    {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        if (timeToLive == null || timeToLive.isNegative()) {
+            throw new IllegalArgumentException("timeToLive must not be negative");
+        }
+        if (refreshExecutor == null) {
+            throw new IllegalArgumentException("refreshExecutor must not be null");
+        }
+        if (loader == null) {
+            throw new IllegalArgumentException("loader must not be null");
+        }
+
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        });
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.loader = loader;
+    }
+
+    /**
+     * Gets value of the key. A missing value is loaded, a stale value is returned and refreshed in the background.
+     *
+     * @param key key
+     * @return cached or loaded value
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must not be null");
+        }
+
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            V value = load(key);
+            entries.put(key, new Entry<>(value));
+            return value;
+        }
+
+        if (entry.isStale(timeToLiveNanos) && entry.refreshing.compareAndSet(false, true)) {
+            try {
+                refreshExecutor.execute(() -> refresh(key, entry));
+            } catch (RejectedExecutionException e) {
+                entry.refreshing.set(false);
+            }
+        }
+        return entry.value;
+    }
+
+    /**
+     * Removes value of the key, a running refresh of the value is discarded.
+     *
+     * @param key key
+     */
+    public void invalidate(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must not be null");
+        }
+
+        entries.remove(key);
+    }
+
+    /**
+     * Moves value of the old key to the new key, with the time it was loaded. The value is not moved if the new key
+     * has a value already, a running refresh of the old key is discarded.
+     *
+     * @param oldKey old key
+     * @param newKey new key
+     */
+    public void move(K oldKey, K newKey) {
+        if (oldKey == null) {
+            throw new IllegalArgumentException("oldKey must not be null");
+        }
+        if (newKey == null) {
+            throw new IllegalArgumentException("newKey must not be null");
+        }
+
+        synchronized (entries) {
+            Entry<V> entry = entries.remove(oldKey);
+            if (entry != null) {
+                // a new entry, so the discarded refresh does not block the refreshes of the new key
+                entries.putIfAbsent(newKey, new Entry<>(entry.value, entry.loadedAt));
+            }
+        }
+    }
+
+    /**
+     * Gets number of cached values.
+     *
+     * @return number of cached values
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Loads value of the stale entry and replaces the entry, unless it was invalidated or replaced meanwhile.
+     *
+     * @param key   key
+     * @param entry stale entry
+     */
+    private void refresh(K key, Entry<V> entry) {
+        try {
+            entries.replace(key, entry, new Entry<>(load(key)));
+        } catch (RuntimeException e) {
+            // keep serving the stale value, the next read retries the refresh
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Loads value of the key.
+     *
+     * @param key key
+     * @return loaded value
+     */
+    private V load(K key) {
+        V value = loader.apply(key);
+        if (value == null) {
+            throw new IllegalStateException("Loaded value must not be null.");
+        }
+        return value;
+    }
+
+    /**
+     * Cached value with the time it was loaded.
+     *
+     * @param <V> type of the value
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(V value) {
+            this(value, System.nanoTime());
+        }
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+
+        private boolean isStale(long timeToLiveNanos) {
+            return System.nanoTime() - loadedAt >= timeToLiveNanos;
+        }
+    }
+}
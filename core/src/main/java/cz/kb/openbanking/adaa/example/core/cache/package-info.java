@@ -0,0 +1,4 @@
+/**
+ * Contains in-memory and on-disk caches of data loaded by the KB APIs.
+ */
+package cz.kb.openbanking.adaa.example.core.cache;
\ No newline at end of file
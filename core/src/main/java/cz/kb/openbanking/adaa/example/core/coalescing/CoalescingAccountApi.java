@@ -0,0 +1,248 @@
+package cz.kb.openbanking.adaa.example.core.coalescing;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+import cz.kb.openbanking.adaa.client.api.AccountApi;
+import cz.kb.openbanking.adaa.client.api.model.PageSlice;
+import cz.kb.openbanking.adaa.client.api.search.AccountBalancesSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountStatementsSearch;
+import cz.kb.openbanking.adaa.client.api.search.PdfStatementSearch;
+import cz.kb.openbanking.adaa.client.api.search.TransactionHistorySearch;
+import cz.kb.openbanking.adaa.client.model.generated.Account;
+import cz.kb.openbanking.adaa.client.model.generated.AccountBalance;
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import cz.kb.openbanking.adaa.client.model.generated.Statement;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+/**
+ * Decorator of the {@link AccountApi} that coalesces identical concurrent searches (single-flight).
+ * <p>
+ * The first caller of a search performs the call in its own thread, callers of the same search
+ * (the same endpoint, account, access token, page and period) that arrive while the call is in flight wait
+ * for its {@link CompletableFuture} and get the same result or exception. Results are not cached,
+ * a search that starts after the previous one has finished calls the API again.
+ * Shared results must be treated as read-only by the callers.
+ *
+ * @since 1.2
+ */
+public class CoalescingAccountApi implements AccountApi {
+    private final AccountApi delegate;
+    private final Map<SearchKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * New instance.
+     *
+     * @param delegate decorated KB ADAA API client
+     */
+    public CoalescingAccountApi(AccountApi delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null");
+        }
+
+        this.delegate = delegate;
+    }
+
+    @Override
+    public AccountSearch accounts(String accessToken) {
+        SearchKey key = new SearchKey("accounts", null, accessToken);
+        AccountSearch search = delegate.accounts(accessToken);
+        return () -> this.<List<Account>>coalesce(key, search::find);
+    }
+
+    @Override
+    public TransactionHistorySearch transactions(String accountId, String accessToken) {
+        return new CoalescingTransactionHistorySearch(delegate.transactions(accountId, accessToken),
+                new SearchKey("transactions", accountId, accessToken));
+    }
+
+    @Override
+    public AccountBalancesSearch balances(String accountId, String accessToken) {
+        SearchKey key = new SearchKey("balances", accountId, accessToken);
+        AccountBalancesSearch search = delegate.balances(accountId, accessToken);
+        return () -> this.<List<AccountBalance>>coalesce(key, search::find);
+    }
+
+    @Override
+    public AccountStatementsSearch statements(String accountId, String accessToken, OffsetDateTime dateFrom) {
+        SearchKey key = new SearchKey("statements", accountId, accessToken).withFromDate(dateFrom);
+        AccountStatementsSearch search = delegate.statements(accountId, accessToken, dateFrom);
+        return () -> this.<List<Statement>>coalesce(key, search::find);
+    }
+
+    @Override
+    public PdfStatementSearch statementPdf(String accountId, String accessToken, long statementId) {
+        SearchKey key = new SearchKey("statementPdf", accountId, accessToken).withStatementId(statementId);
+        PdfStatementSearch search = delegate.statementPdf(accountId, accessToken, statementId);
+        return () -> this.<byte[]>coalesce(key, search::find);
+    }
+
+    /**
+     * Performs the search, or waits for the identical search that is already in flight.
+     *
+     * @param key    key of the search
+     * @param search the search itself
+     * @param <T>    type of the result
+     * @return result of the search
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(SearchKey key, Supplier<T> search) {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> runningCall = inFlight.putIfAbsent(key, call);
+        if (runningCall != null) {
+            try {
+                return (T) runningCall.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            T result = search.get();
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * {@link TransactionHistorySearch} that keeps the key of the search in sync with its parameters.
+     */
+    private final class CoalescingTransactionHistorySearch implements TransactionHistorySearch {
+        private final TransactionHistorySearch search;
+        private final SearchKey key;
+
+        private CoalescingTransactionHistorySearch(TransactionHistorySearch search, SearchKey key) {
+            this.search = search;
+            this.key = key;
+        }
+
+        @Override
+        public PageSlice<AccountTransaction> find() {
+            return coalesce(key, search::find);
+        }
+
+        @Override
+        public TransactionHistorySearch page(int page) {
+            return new CoalescingTransactionHistorySearch(search.page(page), key.withPage(page));
+        }
+
+        @Override
+        public TransactionHistorySearch size(Integer size) {
+            return new CoalescingTransactionHistorySearch(search.size(size), key.withSize(size));
+        }
+
+        @Override
+        public TransactionHistorySearch fromDate(OffsetDateTime fromDate) {
+            return new CoalescingTransactionHistorySearch(search.fromDate(fromDate), key.withFromDate(fromDate));
+        }
+
+        @Override
+        public TransactionHistorySearch toDate(OffsetDateTime toDate) {
+            return new CoalescingTransactionHistorySearch(search.toDate(toDate), key.withToDate(toDate));
+        }
+    }
+
+    /**
+     * Immutable key that identifies the search.
+     */
+    private static final class SearchKey {
+        private final String endpoint;
+        private final String accountId;
+        private final String accessToken;
+        private final Integer page;
+        private final Integer size;
+        private final OffsetDateTime fromDate;
+        private final OffsetDateTime toDate;
+        private final Long statementId;
+
+        private SearchKey(String endpoint, @Nullable String accountId, String accessToken) {
+            this(endpoint, accountId, accessToken, null, null, null, null, null);
+        }
+
+        private SearchKey(String endpoint, @Nullable String accountId, String accessToken, @Nullable Integer page,
+                          @Nullable Integer size, @Nullable OffsetDateTime fromDate, @Nullable OffsetDateTime toDate,
+                          @Nullable Long statementId)
+        {
+            this.endpoint = endpoint;
+            this.accountId = accountId;
+            this.accessToken = accessToken;
+            this.page = page;
+            this.size = size;
+            this.fromDate = fromDate;
+            this.toDate = toDate;
+            this.statementId = statementId;
+        }
+
+        private SearchKey withPage(int page) {
+            return new SearchKey(endpoint, accountId, accessToken, page, size, fromDate, toDate, statementId);
+        }
+
+        private SearchKey withSize(Integer size) {
+            return new SearchKey(endpoint, accountId, accessToken, page, size, fromDate, toDate, statementId);
+        }
+
+        private SearchKey withFromDate(OffsetDateTime fromDate) {
+            return new SearchKey(endpoint, accountId, accessToken, page, size, fromDate, toDate, statementId);
+        }
+
+        private SearchKey withToDate(OffsetDateTime toDate) {
+            return new SearchKey(endpoint, accountId, accessToken, page, size, fromDate, toDate, statementId);
+        }
+
+        private SearchKey withStatementId(long statementId) {
+            return new SearchKey(endpoint, accountId, accessToken, page, size, fromDate, toDate, statementId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            SearchKey other = (SearchKey) o;
+            return new EqualsBuilder()
+                    .append(endpoint, other.endpoint)
+                    .append(accountId, other.accountId)
+                    .append(accessToken, other.accessToken)
+                    .append(page, other.page)
+                    .append(size, other.size)
+                    .append(fromDate, other.fromDate)
+                    .append(toDate, other.toDate)
+                    .append(statementId, other.statementId)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder(17, 37)
+                    .append(endpoint)
+                    .append(accountId)
+                    .append(accessToken)
+                    .append(page)
+                    .append(size)
+                    .append(fromDate)
+                    .append(toDate)
+                    .append(statementId)
+                    .toHashCode();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains decorators that coalesce identical concurrent calls of the KB ADAA API.
+ */
+package cz.kb.openbanking.adaa.example.core.coalescing;
\ No newline at end of file
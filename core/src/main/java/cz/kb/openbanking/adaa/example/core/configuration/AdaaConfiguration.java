@@ -0,0 +1,118 @@
+package cz.kb.openbanking.adaa.example.core.configuration;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable snapshot of the application properties.
+ * <p>
+ * Every property is resolved once, when the snapshot is loaded, from the following sources (the later ones win):
+ * <ol>
+ *     <li>the bundled {@code application.properties},</li>
+ *     <li>an optional external properties file,</li>
+ *     <li>an environment variable named by the property in upper case with {@code _} instead of {@code -}
+ *     and prefixed by {@value #ENVIRONMENT_PREFIX} (e.g. {@code ADAA_HTTP_POOL_MAX_TOTAL}),</li>
+ *     <li>a system property prefixed by {@value #SYSTEM_PROPERTY_PREFIX} (e.g. {@code adaa.http-pool-max-total}).</li>
+ * </ol>
+ * The snapshot is never changed, so it can be read by any thread without synchronization.
+ *
+ * @since 1.2
+ */
+public final class AdaaConfiguration {
+
+    /**
+     * Prefix of the environment variables that override the properties.
+     */
+    public static final String ENVIRONMENT_PREFIX = "ADAA_";
+
+    /**
+     * Prefix of the system properties that override the properties.
+     */
+    public static final String SYSTEM_PROPERTY_PREFIX = "adaa.";
+
+    private final Map<String, String> properties;
+
+    private AdaaConfiguration(Map<String, String> properties) {
+        this.properties = Collections.unmodifiableMap(properties);
+    }
+
+    /**
+     * Loads new snapshot.
+     *
+     * @param defaults         bundled properties
+     * @param file             external properties file, it is ignored if it does not exist
+     * @param environment      environment variables
+     * @param systemProperties system properties
+     * @return new snapshot
+     */
+    public static AdaaConfiguration load(Properties defaults, @Nullable Path file, Map<String, String> environment,
+                                         Properties systemProperties)
+    {
+        if (defaults == null) {
+            throw new IllegalArgumentException("defaults must not be null");
+        }
+        if (environment == null) {
+            throw new IllegalArgumentException("environment must not be null");
+        }
+        if (systemProperties == null) {
+            throw new IllegalArgumentException("systemProperties must not be null");
+        }
+
+        Map<String, String> properties = new HashMap<>();
+        defaults.stringPropertyNames().forEach(name -> properties.put(name, defaults.getProperty(name)));
+
+        if (file != null && Files.isRegularFile(file)) {
+            Properties external = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                external.load(reader);
+            } catch (IOException e) {
+                throw new IllegalStateException("Properties file '" + file + "' could not be loaded.", e);
+            }
+            external.stringPropertyNames().forEach(name -> properties.put(name, external.getProperty(name)));
+        }
+
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            String name = property.getKey();
+            String environmentValue = environment.get(toEnvironmentName(name));
+            if (environmentValue != null) {
+                property.setValue(environmentValue);
+            }
+            String systemValue = systemProperties.getProperty(SYSTEM_PROPERTY_PREFIX + name);
+            if (systemValue != null) {
+                property.setValue(systemValue);
+            }
+        }
+
+        return new AdaaConfiguration(properties);
+    }
+
+    /**
+     * Gets property.
+     *
+     * @param name name of the property
+     * @return value of the property or {@code null} if the property does not exist
+     */
+    @Nullable
+    public String get(String name) {
+        return properties.get(name);
+    }
+
+    /**
+     * Converts name of the property to the name of the environment variable that overrides it.
+     *
+     * @param name name of the property
+     * @return name of the environment variable
+     */
+    private static String toEnvironmentName(String name) {
+        return ENVIRONMENT_PREFIX + name.toUpperCase(Locale.ROOT).replace('-', '_');
+    }
+}
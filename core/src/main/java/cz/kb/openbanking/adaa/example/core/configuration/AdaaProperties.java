@@ -1,12 +1,21 @@
 package cz.kb.openbanking.adaa.example.core.configuration;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Properties;
+import javax.annotation.Nullable;
 
 import org.apache.commons.lang3.StringUtils;
 
 /**
  * Singleton implementation of the application properties loader.
+ * <p>
+ * The properties are read from an immutable {@link AdaaConfiguration} snapshot published through a volatile
+ * reference, so reads are lock-free. {@link #reload()} swaps in a new snapshot, e.g. when the external
+ * properties file given by the {@value #CONFIGURATION_FILE_PROPERTY} system property
+ * (or {@code ADAA_CONFIGURATION_FILE} environment variable) changes.
  *
  * @author <a href="mailto:aleh_kuchynski@kb.cz">Aleh Kuchynski</a>
  * @since 1.0
@@ -18,24 +27,45 @@ public class AdaaProperties {
      */
     private static final String PROPERTIES_PATH = "/application.properties";
 
-    private static Properties properties = null;
+    /**
+     * System property with the path to the external properties file.
+     */
+    public static final String CONFIGURATION_FILE_PROPERTY = "adaa.configuration-file";
 
     /**
-     * Gets all application properties.
+     * Bundled application properties.
+     */
+    private static final Properties DEFAULTS = loadDefaults();
+
+    private static volatile AdaaConfiguration configuration = loadConfiguration();
+
+    /**
+     * Gets current snapshot of the application properties.
      *
-     * @return application properties
+     * @return current configuration
      */
-    private static Properties getProperties() {
-        if (properties == null) {
-            properties = new Properties();
-            try {
-                properties.load(AdaaProperties.class.getResourceAsStream(PROPERTIES_PATH));
-            } catch (IOException e) {
-                throw new IllegalStateException("Application properties could not be loaded.", e);
-            }
-        }
+    public static AdaaConfiguration getConfiguration() {
+        return configuration;
+    }
 
-        return properties;
+    /**
+     * Loads the application properties again and swaps in the new snapshot. The current snapshot stays in use
+     * if the properties could not be loaded.
+     */
+    public static void reload() {
+        configuration = loadConfiguration();
+    }
+
+    /**
+     * Gets external properties file that overrides the bundled properties.
+     *
+     * @return path to the external properties file or {@code null} if there is none
+     */
+    @Nullable
+    public static Path getConfigurationFile() {
+        String file = System.getProperty(CONFIGURATION_FILE_PROPERTY,
+                System.getenv(AdaaConfiguration.ENVIRONMENT_PREFIX + "CONFIGURATION_FILE"));
+        return StringUtils.isBlank(file) ? null : Paths.get(file.trim());
     }
 
     /**
@@ -128,6 +158,408 @@ public class AdaaProperties {
         return getProperty("client-cert-password");
     }
 
+    /**
+     * Gets maximum number of pooled HTTP connections to the KB APIs.
+     *
+     * @return maximum number of pooled HTTP connections
+     */
+    public static int getHttpPoolMaxTotal() {
+        return getIntProperty("http-pool-max-total");
+    }
+
+    /**
+     * Gets maximum number of pooled HTTP connections per route (host).
+     *
+     * @return maximum number of pooled HTTP connections per route
+     */
+    public static int getHttpPoolMaxPerRoute() {
+        return getIntProperty("http-pool-max-per-route");
+    }
+
+    /**
+     * Gets period of inactivity (in milliseconds) after which a pooled HTTP connection is re-validated before reuse.
+     *
+     * @return period of inactivity in milliseconds
+     */
+    public static int getHttpPoolValidateAfterInactivity() {
+        return getIntProperty("http-pool-validate-after-inactivity");
+    }
+
+    /**
+     * Gets number of transactions requested per page of the transaction history.
+     *
+     * @return number of transactions per page
+     */
+    public static int getTransactionsPageSize() {
+        return getIntProperty("transactions-page-size");
+    }
+
+    /**
+     * Gets maximum number of pages of one transaction history loaded in parallel.
+     *
+     * @return maximum number of pages loaded in parallel
+     */
+    public static int getTransactionsMaxConcurrentPages() {
+        return getIntProperty("transactions-max-concurrent-pages");
+    }
+
+    /**
+     * Gets number of threads loading pages of transaction histories.
+     *
+     * @return number of threads loading pages of transaction histories
+     */
+    public static int getTransactionsFetchThreads() {
+        return getIntProperty("transactions-fetch-threads");
+    }
+
+    /**
+     * Gets initial size (in days) of the date windows a requested period of the transaction history is split into.
+     *
+     * @return initial size of the date window in days
+     */
+    public static int getTransactionsShardWindowDays() {
+        return getIntProperty("transactions-shard-window-days");
+    }
+
+    /**
+     * Gets minimum size (in hours) of the date window of the transaction history.
+     *
+     * @return minimum size of the date window in hours
+     */
+    public static int getTransactionsShardMinWindowHours() {
+        return getIntProperty("transactions-shard-min-window-hours");
+    }
+
+    /**
+     * Gets maximum number of pages of one date window of the transaction history.
+     *
+     * @return maximum number of pages of one date window
+     */
+    public static int getTransactionsShardMaxPages() {
+        return getIntProperty("transactions-shard-max-pages");
+    }
+
+    /**
+     * Gets maximum number of accounts whose learned size of the date window is remembered.
+     *
+     * @return maximum number of accounts with remembered size of the date window
+     */
+    public static int getTransactionsShardMaxAccounts() {
+        return getIntProperty("transactions-shard-max-accounts");
+    }
+
+    /**
+     * Gets maximum number of date windows of one transaction history loaded in parallel.
+     *
+     * @return maximum number of date windows loaded in parallel
+     */
+    public static int getTransactionsMaxConcurrentShards() {
+        return getIntProperty("transactions-max-concurrent-shards");
+    }
+
+    /**
+     * Gets number of threads loading date windows of transaction histories.
+     *
+     * @return number of threads loading date windows
+     */
+    public static int getTransactionsShardThreads() {
+        return getIntProperty("transactions-shard-threads");
+    }
+
+    /**
+     * Gets directory of the local transaction store.
+     *
+     * @return directory of the local transaction store, a directory in the home directory of the user if not set
+     */
+    public static String getTransactionStoreDir() {
+        String directory = getProperty("transaction-store-dir");
+        if (StringUtils.isBlank(directory)) {
+            // the store holds plaintext transactions, so it is not placed into the shared temporary directory
+            return Paths.get(System.getProperty("user.home"), ".adaa", "transaction-store").toString();
+        }
+        return directory.trim();
+    }
+
+    /**
+     * Gets size of one memory-mapped segment file of the local transaction store.
+     *
+     * @return size of one segment file in bytes
+     */
+    public static int getTransactionStoreSegmentSize() {
+        return getIntProperty("transaction-store-segment-size");
+    }
+
+    /**
+     * Gets maximum number of accounts whose local transaction store is open (memory-mapped) and whose history
+     * snapshot is kept in memory at the same time.
+     *
+     * @return maximum number of open accounts
+     */
+    public static int getTransactionStoreMaxOpenAccounts() {
+        return getIntProperty("transaction-store-max-open-accounts");
+    }
+
+    /**
+     * Gets minimum period between two synchronizations of the local transaction store of one account.
+     *
+     * @return minimum period between synchronizations in seconds
+     */
+    public static int getTransactionStoreSyncIntervalSeconds() {
+        return getIntProperty("transaction-store-sync-interval-seconds");
+    }
+
+    /**
+     * Gets number of days before the latest stored booking date that are requested again by every synchronization
+     * of the local transaction store, so transactions posted or updated after their booking date are not missed.
+     *
+     * @return booking lag in days
+     */
+    public static int getTransactionStoreBookingLagDays() {
+        return getIntProperty("transaction-store-booking-lag-days");
+    }
+
+    /**
+     * Gets number of threads processing asynchronous requests of the web resources.
+     *
+     * @return number of threads processing asynchronous requests
+     */
+    public static int getAsyncResourceThreads() {
+        return getIntProperty("async-resource-threads");
+    }
+
+    /**
+     * Gets maximum number of asynchronous requests waiting for a thread.
+     *
+     * @return maximum number of waiting asynchronous requests
+     */
+    public static int getAsyncResourceQueueSize() {
+        return getIntProperty("async-resource-queue-size");
+    }
+
+    /**
+     * Gets maximum number of cached lists of accounts.
+     *
+     * @return maximum number of cached lists of accounts
+     */
+    public static int getAccountsCacheMaxSize() {
+        return getIntProperty("accounts-cache-max-size");
+    }
+
+    /**
+     * Gets time after which a cached list of accounts is refreshed.
+     *
+     * @return time to live of a cached list of accounts in seconds
+     */
+    public static int getAccountsCacheTtlSeconds() {
+        return getIntProperty("accounts-cache-ttl-seconds");
+    }
+
+    /**
+     * Gets number of threads refreshing cached values in the background.
+     *
+     * @return number of threads refreshing cached values
+     */
+    public static int getCacheRefreshThreads() {
+        return getIntProperty("cache-refresh-threads");
+    }
+
+    /**
+     * Gets directory of the disk cache of the PDF statements.
+     *
+     * @return directory of the statement cache, the system temporary directory is used if the property is empty
+     */
+    public static String getStatementCacheDir() {
+        String directory = getProperty("statement-cache-dir");
+        if (StringUtils.isBlank(directory)) {
+            return Paths.get(System.getProperty("java.io.tmpdir"), "adaa-statement-cache").toString();
+        }
+        return directory.trim();
+    }
+
+    /**
+     * Gets maximum total size of the cached PDF statements.
+     *
+     * @return maximum size of the statement cache in bytes
+     */
+    public static long getStatementCacheMaxBytes() {
+        return getLongProperty("statement-cache-max-bytes");
+    }
+
+    /**
+     * Gets number of threads downloading PDF statements of the archives.
+     *
+     * @return number of threads
+     */
+    public static int getStatementDownloadThreads() {
+        return getIntProperty("statement-download-threads");
+    }
+
+    /**
+     * Gets maximum number of statements of one archive downloaded in parallel.
+     *
+     * @return maximum number of concurrent downloads
+     */
+    public static int getStatementArchiveMaxConcurrentDownloads() {
+        return getIntProperty("statement-archive-max-concurrent-downloads");
+    }
+
+    /**
+     * Checks whether the PDF statements of the rendered statement lists are prefetched.
+     *
+     * @return {@code true} if the prefetching is enabled
+     */
+    public static boolean isStatementPrefetchEnabled() {
+        return Boolean.parseBoolean(getProperty("statement-prefetch-enabled").trim());
+    }
+
+    /**
+     * Gets number of low-priority threads prefetching PDF statements.
+     *
+     * @return number of threads
+     */
+    public static int getStatementPrefetchThreads() {
+        return getIntProperty("statement-prefetch-threads");
+    }
+
+    /**
+     * Gets maximum number of PDF statements prefetched for one access token at once.
+     *
+     * @return maximum number of prefetches per user
+     */
+    public static int getStatementPrefetchMaxPerUser() {
+        return getIntProperty("statement-prefetch-max-per-user");
+    }
+
+    /**
+     * Gets maximum number of PDF statements prefetched at once.
+     *
+     * @return maximum number of prefetches
+     */
+    public static int getStatementPrefetchMaxTotal() {
+        return getIntProperty("statement-prefetch-max-total");
+    }
+
+    /**
+     * Gets maximum number of cached months of the account statements (of all accounts).
+     *
+     * @return maximum number of cached months
+     */
+    public static int getStatementsCacheMaxMonths() {
+        return getIntProperty("statements-cache-max-months");
+    }
+
+    /**
+     * Gets number of threads loading account statements.
+     *
+     * @return number of threads
+     */
+    public static int getStatementsFetchThreads() {
+        return getIntProperty("statements-fetch-threads");
+    }
+
+    /**
+     * Gets maximum number of days before today of the first issue day of the listed account statements.
+     *
+     * @return maximum lookback of the account statements in days
+     */
+    public static int getStatementsMaxLookbackDays() {
+        return getIntProperty("statements-max-lookback-days");
+    }
+
+    /**
+     * Gets time (in seconds) in which a started OAuth2 authorization flow must be finished.
+     *
+     * @return time to live of the authorization flow in seconds
+     */
+    public static long getOAuth2FlowTtlSeconds() {
+        return getLongProperty("oauth2-flow-ttl-seconds");
+    }
+
+    /**
+     * Gets time (in seconds) after which an unused user session is forgotten.
+     *
+     * @return idle timeout of the session in seconds
+     */
+    public static long getOAuth2SessionIdleTimeoutSeconds() {
+        return getLongProperty("oauth2-session-idle-timeout-seconds");
+    }
+
+    /**
+     * Gets number of threads refreshing OAuth2 access tokens.
+     *
+     * @return maximum number of concurrent refreshes
+     */
+    public static int getOAuth2TokenRefreshThreads() {
+        return getIntProperty("oauth2-token-refresh-threads");
+    }
+
+    /**
+     * Gets time (in seconds) before the expiry of an access token when the token is refreshed.
+     *
+     * @return refresh lead time in seconds
+     */
+    public static long getOAuth2TokenRefreshAheadSeconds() {
+        return getLongProperty("oauth2-token-refresh-ahead-seconds");
+    }
+
+    /**
+     * Gets maximum random time (in seconds) by which the refresh of an access token is brought forward.
+     *
+     * @return refresh jitter in seconds
+     */
+    public static long getOAuth2TokenRefreshJitterSeconds() {
+        return getLongProperty("oauth2-token-refresh-jitter-seconds");
+    }
+
+    /**
+     * Checks whether the OAuth2 credentials are persisted to survive restarts of the application.
+     *
+     * @return {@code true} if the credential store is enabled
+     */
+    public static boolean isCredentialStoreEnabled() {
+        return Boolean.parseBoolean(getProperty("credential-store-enabled").trim());
+    }
+
+    /**
+     * Gets file of the encrypted store of the OAuth2 credentials.
+     *
+     * @return path to the credential store file
+     */
+    public static String getCredentialStoreFile() {
+        String file = getProperty("credential-store-file");
+        if (StringUtils.isBlank(file)) {
+            return Paths.get(System.getProperty("java.io.tmpdir"), "adaa-credentials.log").toString();
+        }
+        return file.trim();
+    }
+
+    /**
+     * Gets maximum number of cached client TLS sessions.
+     *
+     * @return size of the TLS session cache
+     */
+    public static int getTlsSessionCacheSize() {
+        return getIntProperty("tls-session-cache-size");
+    }
+
+    /**
+     * Gets time (in seconds) for which a cached client TLS session can be resumed.
+     *
+     * @return timeout of the cached TLS sessions in seconds
+     */
+    public static int getTlsSessionTimeoutSeconds() {
+        return getIntProperty("tls-session-timeout-seconds");
+    }
+
+    /**
+     * Checks whether the keystore is watched and a rotated client certificate is reloaded without a restart.
+     *
+     * @return {@code true} if the keystore is watched
+     */
+    public static boolean isKeystoreWatchEnabled() {
+        return Boolean.parseBoolean(getProperty("keystore-watch-enabled").trim());
+    }
+
     /**
      * Gets application property.
      *
@@ -139,11 +571,65 @@ public class AdaaProperties {
             throw new IllegalArgumentException("propertyName must not be empty");
         }
 
-        String property = getProperties().getProperty(propertyName);
+        String property = configuration.get(propertyName);
         if (property == null) {
             throw new IllegalArgumentException("Property '" + propertyName + "' does not exist.");
         }
 
         return property;
     }
+
+    /**
+     * Gets application property as an integer.
+     *
+     * @param propertyName name of the desired property
+     * @return application property as an integer
+     */
+    private static int getIntProperty(String propertyName) {
+        String property = getProperty(propertyName);
+        try {
+            return Integer.parseInt(property.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Property '" + propertyName + "' is not a valid integer: " + property, e);
+        }
+    }
+
+    /**
+     * Gets application property as a long.
+     *
+     * @param propertyName name of the desired property
+     * @return application property as a long
+     */
+    private static long getLongProperty(String propertyName) {
+        String property = getProperty(propertyName);
+        try {
+            return Long.parseLong(property.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Property '" + propertyName + "' is not a valid long: " + property, e);
+        }
+    }
+
+    /**
+     * Loads the bundled application properties.
+     *
+     * @return bundled application properties
+     */
+    private static Properties loadDefaults() {
+        Properties defaults = new Properties();
+        try (InputStream stream = AdaaProperties.class.getResourceAsStream(PROPERTIES_PATH)) {
+            defaults.load(stream);
+        } catch (IOException e) {
+            throw new IllegalStateException("Application properties could not be loaded.", e);
+        }
+        return defaults;
+    }
+
+    /**
+     * Loads snapshot of the bundled properties with the overrides.
+     *
+     * @return new configuration
+     */
+    private static AdaaConfiguration loadConfiguration() {
+        return AdaaConfiguration.load(DEFAULTS, getConfigurationFile(), System.getenv(), System.getProperties());
+    }
 }
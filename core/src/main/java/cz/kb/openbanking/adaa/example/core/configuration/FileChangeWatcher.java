@@ -0,0 +1,117 @@
+package cz.kb.openbanking.adaa.example.core.configuration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches a file by a {@link WatchService} of its directory and runs the listener on a daemon thread
+ * when the file is created or modified. Changes that come shortly after each other (e.g. a file written
+ * in more steps or replaced by a move) are reported once, after the file has settled.
+ *
+ * @since 1.2
+ */
+public class FileChangeWatcher implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(FileChangeWatcher.class.getName());
+
+    /**
+     * Time for which the file must not change before the listener is run.
+     */
+    private static final long SETTLE_MILLIS = 500;
+
+    private final Path file;
+    private final Runnable listener;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * New instance, the watching starts immediately.
+     *
+     * @param file     watched file
+     * @param listener listener of the changes of the file
+     * @param name     name of the watching thread
+     */
+    public FileChangeWatcher(Path file, Runnable listener, String name) {
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+
+        this.file = file.toAbsolutePath();
+        this.listener = listener;
+        try {
+            this.watchService = this.file.getFileSystem().newWatchService();
+            this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Directory of '" + file + "' could not be watched.", e);
+        }
+
+        this.thread = new Thread(this::watch, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Waits for the changes of the file until the watcher is closed.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                if (!isFileChanged(watchService.take())) {
+                    continue;
+                }
+
+                // wait until the file settles, later changes are covered by this run of the listener
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    isFileChanged(key);
+                }
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Change of '" + file + "' could not be processed.", e);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // the watcher was closed
+        }
+    }
+
+    /**
+     * Checks whether the events of the key concern the watched file and resets the key.
+     *
+     * @param key signalled key
+     * @return {@code true} if the watched file was changed
+     */
+    private boolean isFileChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -1,7 +1,13 @@
 package cz.kb.openbanking.adaa.example.core.decryption;
 
+import java.nio.ByteBuffer;
+
 /**
  * Decryption service for the AES-256 algorithm with GCM mode.
+ * <p>
+ * A GCM payload has a single authentication tag at its end, so its plain bytes can be trusted only after
+ * the whole payload was read. There are therefore no streaming variants, the ciphered payload must be buffered,
+ * in the heap or in a (direct) {@link ByteBuffer}, and decrypted by one call.
  *
  * @author <a href="mailto:aleh_kuchynski@kb.cz">Aleh Kuchynski</a>
  * @since 1.0
@@ -17,4 +23,29 @@ public interface Aes256DecryptionService {
      * @return decrypted plain text
      */
     String decrypt(String cipherText, String salt, String secret);
+
+    /**
+     * Decrypts ciphered bytes with AES-256 algorithm and GCM mode.
+     *
+     * @param cipherText ciphered bytes with the authentication tag
+     * @param salt       encryption's salt (initialization vector)
+     * @param secret     base64 encoded 256-bit encryption key
+     * @return decrypted plain bytes
+     * @since 1.2
+     */
+    byte[] decrypt(byte[] cipherText, byte[] salt, String secret);
+
+    /**
+     * Decrypts remaining ciphered bytes of the buffer with AES-256 algorithm and GCM mode into the output buffer,
+     * without intermediate copies when the buffers are direct.
+     *
+     * @param cipherText buffer with the ciphered bytes with the authentication tag, it is consumed
+     * @param salt       encryption's salt (initialization vector)
+     * @param secret     base64 encoded 256-bit encryption key
+     * @param plainText  output buffer for the plain bytes, it must have at least as many remaining bytes
+     *                   as the ciphered bytes without the tag
+     * @return number of the plain bytes written to the output buffer
+     * @since 1.2
+     */
+    int decrypt(ByteBuffer cipherText, byte[] salt, String secret, ByteBuffer plainText);
 }
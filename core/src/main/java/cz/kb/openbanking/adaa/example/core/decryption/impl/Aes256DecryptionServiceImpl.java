@@ -4,14 +4,23 @@ import cz.kb.openbanking.adaa.example.core.decryption.Aes256DecryptionService;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 
 /**
  * Implementation of the {@link Aes256DecryptionService}.
+ * <p>
+ * The secret key is decoded once and cached for the last used secret, as the application uses a single one.
+ * {@link Cipher} instances are looked up once per thread and re-initialized for every decryption.
+ * Every payload is decrypted by one {@link Cipher#doFinal} call, which returns the plain bytes only after
+ * the authentication tag is verified.
  *
  * @author <a href="mailto:aleh_kuchynski@kb.cz">Aleh Kuchynski</a>
  * @see Aes256DecryptionService
@@ -19,10 +28,24 @@ import java.util.Base64;
  */
 public class Aes256DecryptionServiceImpl implements Aes256DecryptionService {
     private static final String AES_ALGORITHM_NAME = "AES";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
     private static final int KEY_BYTE_SIZE = 32;
     private static final int KEY_OFFSET = 0;
     private static final int AUTHENTICATION_TAG_BIT_SIZE = 128;
 
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException(TRANSFORMATION + " is not supported.", e);
+        }
+    });
+
+    /**
+     * The last used secret with its decoded key.
+     */
+    private volatile CachedKey cachedKey;
+
     @Override
     public String decrypt(String cipherText, String salt, String secret) {
         if (StringUtils.isBlank(cipherText)) {
@@ -37,11 +60,7 @@ public class Aes256DecryptionServiceImpl implements Aes256DecryptionService {
 
         byte[] decrypted;
         try {
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(AUTHENTICATION_TAG_BIT_SIZE, base64Decode(salt));
-            cipher.init(Cipher.DECRYPT_MODE, decodeSecretKey(secret), parameterSpec);
-
-            decrypted = cipher.doFinal(base64Decode(cipherText));
+            decrypted = initCipher(base64Decode(salt), secret).doFinal(base64Decode(cipherText));
         } catch (Exception e) {
             throw new IllegalStateException("Ciphered text '" + cipherText + "' could not be decrypted.", e);
         }
@@ -49,6 +68,76 @@ public class Aes256DecryptionServiceImpl implements Aes256DecryptionService {
         return new String(decrypted, StandardCharsets.UTF_8);
     }
 
+    @Override
+    public byte[] decrypt(byte[] cipherText, byte[] salt, String secret) {
+        if (cipherText == null || cipherText.length == 0) {
+            throw new IllegalArgumentException("cipherText must not be empty");
+        }
+        if (salt == null || salt.length == 0) {
+            throw new IllegalArgumentException("salt must not be empty");
+        }
+        if (StringUtils.isBlank(secret)) {
+            throw new IllegalArgumentException("secret must not be empty");
+        }
+
+        try {
+            return initCipher(salt, secret).doFinal(cipherText);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Ciphered bytes could not be decrypted.", e);
+        }
+    }
+
+    @Override
+    public int decrypt(ByteBuffer cipherText, byte[] salt, String secret, ByteBuffer plainText) {
+        if (cipherText == null || !cipherText.hasRemaining()) {
+            throw new IllegalArgumentException("cipherText must not be empty");
+        }
+        if (salt == null || salt.length == 0) {
+            throw new IllegalArgumentException("salt must not be empty");
+        }
+        if (StringUtils.isBlank(secret)) {
+            throw new IllegalArgumentException("secret must not be empty");
+        }
+        if (plainText == null) {
+            throw new IllegalArgumentException("plainText must not be null");
+        }
+
+        try {
+            return initCipher(salt, secret).doFinal(cipherText, plainText);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Ciphered bytes could not be decrypted.", e);
+        }
+    }
+
+    /**
+     * Initializes the cipher of the current thread for decryption.
+     *
+     * @param salt   encryption's salt
+     * @param secret base64 encoded encryption key
+     * @return initialized cipher
+     * @throws GeneralSecurityException if the cipher could not be initialized
+     */
+    private Cipher initCipher(byte[] salt, String secret) throws GeneralSecurityException {
+        Cipher cipher = CIPHERS.get();
+        cipher.init(Cipher.DECRYPT_MODE, getSecretKey(secret), new GCMParameterSpec(AUTHENTICATION_TAG_BIT_SIZE, salt));
+        return cipher;
+    }
+
+    /**
+     * Gets decoded secret key, from the cache if the secret was used last time.
+     *
+     * @param secret BASE64 encoded encryption key
+     * @return decoded encryption key
+     */
+    private SecretKey getSecretKey(String secret) {
+        CachedKey key = cachedKey;
+        if (key == null || !key.secret.equals(secret)) {
+            key = new CachedKey(secret, decodeSecretKey(secret));
+            cachedKey = key;
+        }
+        return key.key;
+    }
+
     /**
      * Decodes Base64Url encoded text.
      *
@@ -60,7 +149,7 @@ public class Aes256DecryptionServiceImpl implements Aes256DecryptionService {
             throw new IllegalArgumentException("base64UrlText must not be empty");
         }
 
-        return Base64.getUrlDecoder().decode(base64UrlText.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlDecoder().decode(base64UrlText);
     }
 
     /**
@@ -81,4 +170,17 @@ public class Aes256DecryptionServiceImpl implements Aes256DecryptionService {
             throw new IllegalStateException("Cannot get/decode encryption key.", e);
         }
     }
+
+    /**
+     * Immutable pair of the secret and its decoded key.
+     */
+    private static final class CachedKey {
+        private final String secret;
+        private final SecretKey key;
+
+        private CachedKey(String secret, SecretKey key) {
+            this.secret = secret;
+            this.key = key;
+        }
+    }
 }
@@ -0,0 +1,29 @@
+package cz.kb.openbanking.adaa.example.core.encryption;
+
+import cz.kb.openbanking.adaa.example.core.decryption.Aes256DecryptionService;
+
+/**
+ * Encryption service for the AES-256 algorithm with GCM mode, the counterpart of {@link Aes256DecryptionService}.
+ *
+ * @since 1.2
+ */
+public interface Aes256EncryptionService {
+
+    /**
+     * Encrypts a plain text with AES-256 algorithm and GCM mode.
+     *
+     * @param plainText plain text
+     * @param salt      Base64Url encoded encryption's salt (initialization vector), it must never be reused
+     *                  with the same key
+     * @param secret    base64 encoded 256-bit encryption key
+     * @return Base64Url encoded ciphered text with the authentication tag
+     */
+    String encrypt(String plainText, String salt, String secret);
+
+    /**
+     * Generates new random salt suitable for {@link #encrypt(String, String, String)}.
+     *
+     * @return Base64Url encoded random salt
+     */
+    String generateSalt();
+}
@@ -0,0 +1,77 @@
+package cz.kb.openbanking.adaa.example.core.encryption.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import cz.kb.openbanking.adaa.example.core.encryption.Aes256EncryptionService;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Implementation of the {@link Aes256EncryptionService}.
+ *
+ * @see Aes256EncryptionService
+ * @since 1.2
+ */
+public class Aes256EncryptionServiceImpl implements Aes256EncryptionService {
+    private static final String AES_ALGORITHM_NAME = "AES";
+    private static final int KEY_BYTE_SIZE = 32;
+    private static final int KEY_OFFSET = 0;
+    private static final int AUTHENTICATION_TAG_BIT_SIZE = 128;
+    private static final int SALT_BYTE_SIZE = 12;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Override
+    public String encrypt(String plainText, String salt, String secret) {
+        if (plainText == null) {
+            throw new IllegalArgumentException("plainText must not be null");
+        }
+        if (StringUtils.isBlank(salt)) {
+            throw new IllegalArgumentException("salt must not be empty");
+        }
+        if (StringUtils.isBlank(secret)) {
+            throw new IllegalArgumentException("secret must not be empty");
+        }
+
+        byte[] encrypted;
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            GCMParameterSpec parameterSpec = new GCMParameterSpec(AUTHENTICATION_TAG_BIT_SIZE,
+                    Base64.getUrlDecoder().decode(salt.getBytes(StandardCharsets.UTF_8)));
+            cipher.init(Cipher.ENCRYPT_MODE, decodeSecretKey(secret), parameterSpec);
+
+            encrypted = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException("Plain text could not be encrypted.", e);
+        }
+
+        return Base64.getUrlEncoder().encodeToString(encrypted);
+    }
+
+    @Override
+    public String generateSalt() {
+        byte[] salt = new byte[SALT_BYTE_SIZE];
+        random.nextBytes(salt);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(salt);
+    }
+
+    /**
+     * Decodes Base64 secret key.
+     *
+     * @param key BASE64 encoded encryption key
+     * @return plain text decoded encryption key
+     */
+    private SecretKey decodeSecretKey(String key) {
+        try {
+            return new SecretKeySpec(Base64.getDecoder().decode(key.getBytes(StandardCharsets.UTF_8)),
+                    KEY_OFFSET, KEY_BYTE_SIZE, AES_ALGORITHM_NAME);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalStateException("Cannot get/decode encryption key.", e);
+        }
+    }
+}
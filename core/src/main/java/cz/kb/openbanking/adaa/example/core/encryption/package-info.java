@@ -0,0 +1,4 @@
+/**
+ * Contains AES-256 encryption service interface and its default implementation.
+ */
+package cz.kb.openbanking.adaa.example.core.encryption;
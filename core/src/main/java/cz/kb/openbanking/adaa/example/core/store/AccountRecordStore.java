@@ -0,0 +1,137 @@
+package cz.kb.openbanking.adaa.example.core.store;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Local persistent store of records of bank accounts, every account has its own {@link MappedRecordLog}
+ * in a separate directory. Logs are opened lazily on the first access, at most {@code maxOpenLogs} logs
+ * are open at the same time and the least recently used one is closed when another log is opened.
+ * Segments of a closed log are unmapped once they are garbage collected, a reader that is still visiting
+ * the records of the closed log is not affected.
+ *
+ * @see MappedRecordLog
+ * @since 1.2
+ */
+public class AccountRecordStore implements Closeable {
+    private final Path directory;
+    private final int segmentSize;
+
+    /**
+     * Open logs in the access order, guarded by itself.
+     */
+    private final Map<String, MappedRecordLog> logs;
+
+    /**
+     * New instance.
+     *
+     * @param directory   root directory of the store, it is created accessible by the owner only
+     * @param segmentSize size of one segment file in bytes
+     * @param maxOpenLogs maximum number of logs open at the same time
+     */
+    public AccountRecordStore(Path directory, int segmentSize, int maxOpenLogs) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null");
+        }
+        if (maxOpenLogs < 1) {
+            throw new IllegalArgumentException("maxOpenLogs must be positive");
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.logs = new LinkedHashMap<String, MappedRecordLog>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MappedRecordLog> eldest) {
+                if (size() > maxOpenLogs) {
+                    eldest.getValue().close();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Appends a record of the account.
+     *
+     * @param accountId ID of the account
+     * @param watermark watermark of the record
+     * @param payload   payload of the record
+     * @see MappedRecordLog#append(long, byte[])
+     */
+    public void append(String accountId, long watermark, byte[] payload) {
+        while (true) {
+            MappedRecordLog log = getLog(accountId);
+            synchronized (log) {
+                // the log could be closed by the eviction meanwhile, the next attempt reopens it
+                if (!log.isClosed()) {
+                    log.append(watermark, payload);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits all records of the account in the order they were appended.
+     *
+     * @param accountId ID of the account
+     * @param visitor   visitor of the records
+     * @see MappedRecordLog#forEach(MappedRecordLog.RecordVisitor)
+     */
+    public void forEach(String accountId, MappedRecordLog.RecordVisitor visitor) {
+        getLog(accountId).forEach(visitor);
+    }
+
+    /**
+     * Gets the highest watermark of all records of the account.
+     *
+     * @param accountId ID of the account
+     * @return the highest watermark or {@link Long#MIN_VALUE} if there are no records of the account
+     */
+    public long getWatermark(String accountId) {
+        return getLog(accountId).getWatermark();
+    }
+
+    @Override
+    public void close() {
+        synchronized (logs) {
+            logs.values().forEach(MappedRecordLog::close);
+            logs.clear();
+        }
+    }
+
+    /**
+     * Gets log of the account, the log is opened if it is not opened yet.
+     *
+     * @param accountId ID of the account
+     * @return log of the account
+     */
+    private MappedRecordLog getLog(String accountId) {
+        if (StringUtils.isBlank(accountId)) {
+            throw new IllegalArgumentException("accountId must not be empty");
+        }
+
+        synchronized (logs) {
+            // the evicted log is closed before its directory can be opened again
+            return logs.computeIfAbsent(accountId, id -> new MappedRecordLog(directory.resolve(directoryName(id)),
+                    segmentSize));
+        }
+    }
+
+    /**
+     * Gets name of the directory of the account that is safe for any file system.
+     *
+     * @param accountId ID of the account
+     * @return name of the directory of the account
+     */
+    private static String directoryName(String accountId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(accountId.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,275 @@
+package cz.kb.openbanking.adaa.example.core.store;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+import cz.kb.openbanking.adaa.example.core.decryption.Aes256DecryptionService;
+import cz.kb.openbanking.adaa.example.core.encryption.Aes256EncryptionService;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Append-only file of text records encrypted by AES-256 in GCM mode.
+ * <p>
+ * Every record is one line with its own random salt and the Base64Url encoded ciphered text, so records are
+ * appended incrementally and the whole file is read by one sequential pass. A line that cannot be decrypted
+ * (e.g. the last line torn by a crash or a line encrypted by another key) fails the authentication and is skipped.
+ * Superseded records are dropped by {@link #rewrite(Collection)}, which replaces the file atomically.
+ * The file is readable by its owner only, where the file system supports it.
+ *
+ * @since 1.2
+ */
+public class EncryptedRecordFile implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(EncryptedRecordFile.class.getName());
+
+    private static final char SALT_SEPARATOR = '.';
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+
+    private final Path file;
+    private final Aes256EncryptionService encryptionService;
+    private final Aes256DecryptionService decryptionService;
+    private final String secret;
+
+    private Writer writer;
+    private int recordCount;
+
+    /**
+     * New instance, the file is created if it does not exist.
+     *
+     * @param file              file with the records
+     * @param encryptionService encryption service of the appended records
+     * @param decryptionService decryption service of the read records
+     * @param secret            base64 encoded 256-bit encryption key
+     */
+    public EncryptedRecordFile(Path file, Aes256EncryptionService encryptionService,
+                               Aes256DecryptionService decryptionService, String secret)
+    {
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        if (encryptionService == null) {
+            throw new IllegalArgumentException("encryptionService must not be null");
+        }
+        if (decryptionService == null) {
+            throw new IllegalArgumentException("decryptionService must not be null");
+        }
+        if (StringUtils.isBlank(secret)) {
+            throw new IllegalArgumentException("secret must not be empty");
+        }
+
+        this.file = file;
+        this.encryptionService = encryptionService;
+        this.decryptionService = decryptionService;
+        this.secret = secret;
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            if (Files.notExists(file)) {
+                Files.createFile(file);
+                restrictPermissions(file);
+            }
+            terminateLastLine();
+            this.writer = openWriter();
+        } catch (IOException e) {
+            throw new IllegalStateException("Record file '" + file + "' could not be opened.", e);
+        }
+    }
+
+    /**
+     * Reads all records in the order they were appended.
+     *
+     * @return decrypted records
+     */
+    public synchronized List<String> readAll() {
+        List<String> records = new ArrayList<>();
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String record = decrypt(line);
+                if (record == null) {
+                    skipped++;
+                } else {
+                    records.add(record);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (skipped > 0) {
+            LOGGER.log(Level.WARNING, "{0} record(s) of ''{1}'' could not be decrypted and were skipped.",
+                    new Object[] {skipped, file});
+        }
+        recordCount = records.size() + skipped;
+        return records;
+    }
+
+    /**
+     * Appends the record to the end of the file.
+     *
+     * @param record record
+     */
+    public synchronized void append(String record) {
+        if (record == null) {
+            throw new IllegalArgumentException("record must not be null");
+        }
+
+        try {
+            writer.write(encrypt(record));
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        recordCount++;
+    }
+
+    /**
+     * Replaces all records of the file with the given records. The new file is written aside and moved
+     * over the current one atomically, so either all old or all new records survive a crash.
+     *
+     * @param records new records
+     */
+    public synchronized void rewrite(Collection<String> records) {
+        if (records == null) {
+            throw new IllegalArgumentException("records must not be null");
+        }
+
+        Path tempFile = file.resolveSibling(file.getFileName() + TEMP_FILE_SUFFIX);
+        try {
+            Files.deleteIfExists(tempFile);
+            Files.createFile(tempFile);
+            restrictPermissions(tempFile);
+            try (BufferedWriter tempWriter = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.WRITE)) {
+                for (String record : records) {
+                    tempWriter.write(encrypt(record));
+                }
+            }
+
+            writer.close();
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                writer = openWriter();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        recordCount = records.size();
+    }
+
+    /**
+     * Gets number of the records in the file, including the superseded ones.
+     *
+     * @return number of the records
+     */
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encrypts the record to a line of the file.
+     *
+     * @param record record
+     * @return line with the salt and the ciphered record
+     */
+    private String encrypt(String record) {
+        String salt = encryptionService.generateSalt();
+        return salt + SALT_SEPARATOR + encryptionService.encrypt(record, salt, secret) + '\n';
+    }
+
+    /**
+     * Decrypts the line of the file.
+     *
+     * @param line line with the salt and the ciphered record
+     * @return record or {@code null} if the line is not a valid record
+     */
+    @Nullable
+    private String decrypt(String line) {
+        int separator = line.indexOf(SALT_SEPARATOR);
+        if (separator <= 0 || separator == line.length() - 1) {
+            return null;
+        }
+
+        try {
+            return decryptionService.decrypt(line.substring(separator + 1), line.substring(0, separator), secret);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Terminates the last line torn by a crash, so the next record is not appended to it.
+     *
+     * @throws IOException if the file could not be read or written
+     */
+    private void terminateLastLine() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size == 0) {
+                return;
+            }
+
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.read(lastByte, size - 1);
+            if (lastByte.get(0) != '\n') {
+                channel.write(ByteBuffer.wrap(new byte[] {'\n'}), size);
+            }
+        }
+    }
+
+    /**
+     * Opens writer appending to the file.
+     *
+     * @return new writer
+     * @throws IOException if the file could not be opened
+     */
+    private Writer openWriter() throws IOException {
+        return Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Makes the file readable and writable by its owner only, if the file system supports it.
+     *
+     * @param path file
+     * @throws IOException if the permissions could not be changed
+     */
+    private static void restrictPermissions(Path path) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, OWNER_ONLY);
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system
+        }
+    }
+}
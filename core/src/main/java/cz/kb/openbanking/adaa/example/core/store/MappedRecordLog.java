@@ -0,0 +1,330 @@
+package cz.kb.openbanking.adaa.example.core.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Append-only log of binary records stored in memory-mapped segment files of a fixed size.
+ * <p>
+ * Every record consists of its payload length, a watermark (e.g. last update time in epoch millis)
+ * and the payload itself. The length is written as the last one, so a record that was not written completely
+ * is never visible to readers nor after restart. Appending is serialized, reading is lock-free and sees
+ * all records appended before the read started. The directory and the segment files are accessible
+ * by the owner only.
+ *
+ * @since 1.2
+ */
+public class MappedRecordLog implements Closeable {
+    private static final String SEGMENT_FILE_PATTERN = "segment-%06d.log";
+    private static final String SEGMENT_FILE_GLOB = "segment-*.log";
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+
+    /**
+     * Index of the last segment (high 32 bits) and write position in it (low 32 bits),
+     * published to readers after the record is completely written.
+     */
+    private volatile long tail;
+
+    /**
+     * The highest watermark of all records.
+     */
+    private volatile long watermark = Long.MIN_VALUE;
+
+    private boolean closed;
+
+    /**
+     * Opens the log in the given directory, existing segments are mapped and scanned for the last record.
+     *
+     * @param directory   directory with segment files, it is created with its parents if it does not exist
+     * @param segmentSize size of one segment file in bytes
+     */
+    public MappedRecordLog(Path directory, int segmentSize) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null");
+        }
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize must be greater than " + HEADER_SIZE);
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        try {
+            Files.createDirectories(directory, ownerOnly(OWNER_ONLY_DIRECTORY));
+            restrictPermissions(directory, OWNER_ONLY_DIRECTORY);
+            List<Path> segmentFiles = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_FILE_GLOB)) {
+                stream.forEach(segmentFiles::add);
+            }
+            segmentFiles.sort(null);
+
+            for (Path segmentFile : segmentFiles) {
+                segments.add(map(segmentFile));
+            }
+            if (segments.isEmpty()) {
+                segments.add(map(segmentFile(0)));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Record log in '" + directory + "' could not be opened.", e);
+        }
+
+        int lastSegment = segments.size() - 1;
+        int end = 0;
+        for (MappedByteBuffer segment : segments) {
+            end = scan(segment);
+        }
+        tail = tail(lastSegment, end);
+    }
+
+    /**
+     * Appends a record to the end of the log. A new segment is created if the record does not fit
+     * into the last one.
+     *
+     * @param recordWatermark watermark of the record
+     * @param payload         payload of the record
+     */
+    public synchronized void append(long recordWatermark, byte[] payload) {
+        if (closed) {
+            throw new IllegalStateException("Record log in '" + directory + "' is closed.");
+        }
+        if (payload == null || payload.length == 0) {
+            throw new IllegalArgumentException("payload must not be empty");
+        }
+        if (HEADER_SIZE + payload.length > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit into a segment.");
+        }
+
+        int position = position(tail);
+        if (position + HEADER_SIZE + payload.length > segmentSize) {
+            try {
+                segments.add(map(segmentFile(segments.size())));
+            } catch (IOException e) {
+                throw new IllegalStateException("New segment of the record log in '" + directory
+                        + "' could not be created.", e);
+            }
+            position = 0;
+        }
+
+        ByteBuffer segment = segments.get(segments.size() - 1).duplicate();
+        segment.putLong(position + Integer.BYTES, recordWatermark);
+        segment.position(position + HEADER_SIZE);
+        segment.put(payload);
+        segment.putInt(position, payload.length);
+
+        if (recordWatermark > watermark) {
+            watermark = recordWatermark;
+        }
+        tail = tail(segments.size() - 1, position + HEADER_SIZE + payload.length);
+    }
+
+    /**
+     * Visits all records of the log in the order they were appended.
+     *
+     * @param visitor visitor of the records
+     */
+    public void forEach(RecordVisitor visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException("visitor must not be null");
+        }
+
+        // records up to the tail are completely written and visible, later ones are ignored
+        long currentTail = tail;
+        int lastSegment = segmentIndex(currentTail);
+        for (int i = 0; i <= lastSegment; i++) {
+            ByteBuffer segment = segments.get(i).asReadOnlyBuffer();
+            int end = i == lastSegment ? position(currentTail) : segmentSize;
+            int position = 0;
+            while (position + HEADER_SIZE <= end) {
+                int length = segment.getInt(position);
+                if (length <= 0 || position + HEADER_SIZE + length > end) {
+                    break;
+                }
+
+                long recordWatermark = segment.getLong(position + Integer.BYTES);
+                segment.limit(position + HEADER_SIZE + length).position(position + HEADER_SIZE);
+                visitor.visit(recordWatermark, segment.slice());
+                segment.clear();
+                position += HEADER_SIZE + length;
+            }
+        }
+    }
+
+    /**
+     * Gets the highest watermark of all records.
+     *
+     * @return the highest watermark or {@link Long#MIN_VALUE} if the log is empty
+     */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Flushes appended records to the disk.
+     */
+    public void flush() {
+        segments.get(segments.size() - 1).force();
+    }
+
+    /**
+     * Checks whether the log is closed. Records of a closed log can still be read.
+     *
+     * @return {@code true} if the log is closed, otherwise - {@code false}
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Flushes appended records and rejects further appends.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            flush();
+            closed = true;
+        }
+    }
+
+    /**
+     * Encodes the tail of the log.
+     *
+     * @param segmentIndex index of the last segment
+     * @param position     write position in the last segment
+     * @return encoded tail
+     */
+    private static long tail(int segmentIndex, int position) {
+        return ((long) segmentIndex << Integer.SIZE) | position;
+    }
+
+    /**
+     * Decodes index of the last segment from the tail.
+     *
+     * @param tail encoded tail
+     * @return index of the last segment
+     */
+    private static int segmentIndex(long tail) {
+        return (int) (tail >>> Integer.SIZE);
+    }
+
+    /**
+     * Decodes write position in the last segment from the tail.
+     *
+     * @param tail encoded tail
+     * @return write position in the last segment
+     */
+    private static int position(long tail) {
+        return (int) tail;
+    }
+
+    /**
+     * Finds the end of the written records in the segment and updates the watermark.
+     *
+     * @param segment mapped segment
+     * @return position after the last complete record
+     */
+    private int scan(MappedByteBuffer segment) {
+        int position = 0;
+        while (position + HEADER_SIZE <= segmentSize) {
+            int length = segment.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > segmentSize) {
+                break;
+            }
+
+            long recordWatermark = segment.getLong(position + Integer.BYTES);
+            if (recordWatermark > watermark) {
+                watermark = recordWatermark;
+            }
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    /**
+     * Maps segment file into the memory, the file is created and pre-allocated if it does not exist.
+     *
+     * @param segmentFile segment file
+     * @return mapped segment
+     * @throws IOException if the file could not be mapped
+     */
+    private MappedByteBuffer map(Path segmentFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile, EnumSet.of(StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE), ownerOnly(OWNER_ONLY_FILE))) {
+            restrictPermissions(segmentFile, OWNER_ONLY_FILE);
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    /**
+     * Gets attributes of a new file or directory accessible by the owner only.
+     *
+     * @param permissions owner-only permissions
+     * @return attributes, empty if the file system does not support POSIX permissions
+     */
+    private FileAttribute<?>[] ownerOnly(Set<PosixFilePermission> permissions) {
+        if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return new FileAttribute<?>[0];
+        }
+        return new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(permissions)};
+    }
+
+    /**
+     * Restricts permissions of the file or directory that could be created by an older version.
+     *
+     * @param path        file or directory
+     * @param permissions owner-only permissions
+     * @throws IOException if the permissions could not be changed
+     */
+    private static void restrictPermissions(Path path, Set<PosixFilePermission> permissions) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, permissions);
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system
+        }
+    }
+
+    /**
+     * Gets path of the segment file.
+     *
+     * @param index index of the segment
+     * @return path of the segment file
+     */
+    private Path segmentFile(int index) {
+        return directory.resolve(String.format(SEGMENT_FILE_PATTERN, index));
+    }
+
+    /**
+     * Visitor of the records of the {@link MappedRecordLog}.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+
+        /**
+         * Visits one record.
+         *
+         * @param watermark watermark of the record
+         * @param payload   read-only view of the payload, valid only during this call
+         */
+        void visit(long watermark, ByteBuffer payload);
+    }
+}
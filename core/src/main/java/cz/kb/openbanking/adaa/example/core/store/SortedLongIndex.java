@@ -0,0 +1,225 @@
+package cz.kb.openbanking.adaa.example.core.store;
+
+import java.util.Arrays;
+
+/**
+ * Immutable secondary index that maps primitive {@code long} keys (e.g. epoch days, amounts in cents or hashes)
+ * to row numbers. Keys and rows are kept in two parallel primitive arrays sorted by the key,
+ * so lookups and range scans are binary searches followed by a copy of the matching rows, without any boxing.
+ *
+ * @since 1.2
+ */
+public final class SortedLongIndex {
+    private static final int RADIX_BITS = 16;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int[] EMPTY_ROWS = new int[0];
+
+    private final long[] keys;
+    private final int[] rows;
+
+    private SortedLongIndex(long[] keys, int[] rows) {
+        this.keys = keys;
+        this.rows = rows;
+    }
+
+    /**
+     * Creates builder of a new index.
+     *
+     * @param expectedSize expected number of rows
+     * @return new builder
+     */
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    /**
+     * Gets number of indexed rows.
+     *
+     * @return number of indexed rows
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Finds rows with the given key.
+     *
+     * @param key key
+     * @return rows with the key in ascending order
+     */
+    public int[] lookup(long key) {
+        return range(key, key);
+    }
+
+    /**
+     * Finds rows with keys in the given range.
+     *
+     * @param fromKey the lowest key (inclusive)
+     * @param toKey   the highest key (inclusive)
+     * @return rows with keys in the range in ascending order
+     */
+    public int[] range(long fromKey, long toKey) {
+        if (fromKey > toKey) {
+            return EMPTY_ROWS;
+        }
+
+        int from = lowerBound(fromKey);
+        int to = toKey == Long.MAX_VALUE ? keys.length : lowerBound(toKey + 1);
+        int[] result = Arrays.copyOfRange(rows, from, to);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Intersects two sets of rows.
+     *
+     * @param first  rows in ascending order
+     * @param second rows in ascending order
+     * @return rows contained in both sets in ascending order
+     */
+    public static int[] intersect(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Finds position of the first key that is not lower than the given one.
+     *
+     * @param key key
+     * @return position of the first key that is not lower than the given one, size of the index if there is no such key
+     */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Builder of the {@link SortedLongIndex}.
+     */
+    public static final class Builder {
+        private long[] keys;
+        private int[] rows;
+        private int size;
+
+        private Builder(int expectedSize) {
+            if (expectedSize < 0) {
+                throw new IllegalArgumentException("expectedSize must not be negative");
+            }
+
+            this.keys = new long[expectedSize];
+            this.rows = new int[expectedSize];
+        }
+
+        /**
+         * Adds the row with the key to the index.
+         *
+         * @param key key of the row
+         * @param row row number
+         * @return this builder
+         */
+        public Builder add(long key, int row) {
+            if (size == keys.length) {
+                int capacity = Math.max(16, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                rows = Arrays.copyOf(rows, capacity);
+            }
+            keys[size] = key;
+            rows[size] = row;
+            size++;
+            return this;
+        }
+
+        /**
+         * Builds the index.
+         *
+         * @return new index
+         */
+        public SortedLongIndex build() {
+            long[] sortedKeys = Arrays.copyOf(keys, size);
+            int[] sortedRows = Arrays.copyOf(rows, size);
+            sort(sortedKeys, sortedRows);
+            return new SortedLongIndex(sortedKeys, sortedRows);
+        }
+
+        /**
+         * Sorts keys together with their rows by a stable LSD radix sort. Digits that are the same for all keys
+         * (e.g. the high bits of epoch days) are skipped.
+         *
+         * @param keys keys to be sorted
+         * @param rows rows of the keys
+         */
+        private static void sort(long[] keys, int[] rows) {
+            long[] keyBuffer = new long[keys.length];
+            int[] rowBuffer = new int[rows.length];
+            long[] sourceKeys = keys;
+            int[] sourceRows = rows;
+            int[] counts = new int[RADIX];
+
+            for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+                Arrays.fill(counts, 0);
+                for (long key : sourceKeys) {
+                    counts[digit(key, shift)]++;
+                }
+                if (sourceKeys.length == 0 || counts[digit(sourceKeys[0], shift)] == sourceKeys.length) {
+                    continue;
+                }
+
+                int position = 0;
+                for (int i = 0; i < RADIX; i++) {
+                    int count = counts[i];
+                    counts[i] = position;
+                    position += count;
+                }
+
+                long[] targetKeys = sourceKeys == keys ? keyBuffer : keys;
+                int[] targetRows = sourceRows == rows ? rowBuffer : rows;
+                for (int i = 0; i < sourceKeys.length; i++) {
+                    int target = counts[digit(sourceKeys[i], shift)]++;
+                    targetKeys[target] = sourceKeys[i];
+                    targetRows[target] = sourceRows[i];
+                }
+                sourceKeys = targetKeys;
+                sourceRows = targetRows;
+            }
+
+            if (sourceKeys != keys) {
+                System.arraycopy(sourceKeys, 0, keys, 0, keys.length);
+                System.arraycopy(sourceRows, 0, rows, 0, rows.length);
+            }
+        }
+
+        /**
+         * Gets digit of the key, the sign bit is flipped so negative keys are sorted before positive ones.
+         *
+         * @param key   key
+         * @param shift position of the digit
+         * @return digit of the key
+         */
+        private static int digit(long key, int shift) {
+            return (int) (((key ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1));
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains local persistent stores.
+ */
+package cz.kb.openbanking.adaa.example.core.store;
\ No newline at end of file
@@ -0,0 +1,27 @@
+package cz.kb.openbanking.adaa.example.core.transaction;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+
+/**
+ * Fetcher of the whole transaction history (all pages) of the account.
+ *
+ * @since 1.2
+ */
+public interface TransactionHistoryFetcher {
+
+    /**
+     * Fetches all transactions of the account in the given period.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @param fromDate    start of the period, {@code null} for no lower bound
+     * @param toDate      end of the period, {@code null} for no upper bound
+     * @return transactions from all pages in the order returned by the KB ADAA API
+     */
+    List<AccountTransaction> fetch(String accountId, String accessToken,
+                                   @Nullable OffsetDateTime fromDate, @Nullable OffsetDateTime toDate);
+}
@@ -0,0 +1,197 @@
+package cz.kb.openbanking.adaa.example.core.transaction.impl;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+import cz.kb.openbanking.adaa.client.api.AccountApi;
+import cz.kb.openbanking.adaa.client.api.model.PageSlice;
+import cz.kb.openbanking.adaa.client.api.search.TransactionHistorySearch;
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import cz.kb.openbanking.adaa.example.core.transaction.TransactionHistoryFetcher;
+
+/**
+ * Implementation of the {@link TransactionHistoryFetcher} that reads the number of pages from the first page
+ * and then loads the remaining pages in parallel. At most {@code maxConcurrentPages} pages
+ * of one history are requested at the same time, so a single long history cannot exhaust the executor.
+ *
+ * @see TransactionHistoryFetcher
+ * @since 1.2
+ */
+public class ConcurrentTransactionHistoryFetcher implements TransactionHistoryFetcher {
+    private final AccountApi accountApi;
+    private final Executor executor;
+    private final int maxConcurrentPages;
+    private final int pageSize;
+
+    /**
+     * New instance.
+     *
+     * @param accountApi         KB ADAA API client
+     * @param executor           executor for loading of the pages
+     * @param maxConcurrentPages maximum number of pages of one history loaded at the same time
+     * @param pageSize           number of transactions requested per page
+     */
+    public ConcurrentTransactionHistoryFetcher(AccountApi accountApi, Executor executor, int maxConcurrentPages,
+                                               int pageSize)
+    {
+        if (accountApi == null) {
+            throw new IllegalArgumentException("accountApi must not be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        if (maxConcurrentPages < 1) {
+            throw new IllegalArgumentException("maxConcurrentPages must be positive");
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+
+        this.accountApi = accountApi;
+        this.executor = executor;
+        this.maxConcurrentPages = maxConcurrentPages;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public List<AccountTransaction> fetch(String accountId, String accessToken,
+                                          @Nullable OffsetDateTime fromDate, @Nullable OffsetDateTime toDate)
+    {
+        PageSlice<AccountTransaction> firstPage = fetchPage(accountId, accessToken, fromDate, toDate, 0);
+        return fetchRemainingPages(accountId, accessToken, fromDate, toDate, firstPage);
+    }
+
+    /**
+     * Fetches pages of the transaction history one after another and passes them to the consumer in page order
+     * as soon as they arrive. While the consumer processes a page, up to {@code maxConcurrentPages} following pages
+     * are prefetched, so only a bounded number of pages is held in memory regardless of the history length.
+     *
+     * @param accountId    ID of the account
+     * @param accessToken  OAuth2 access token
+     * @param fromDate     start of the period, {@code null} for no lower bound
+     * @param toDate       end of the period, {@code null} for no upper bound
+     * @param pageConsumer consumer of the transactions of every page, it is called in the caller's thread
+     */
+    public void forEachPage(String accountId, String accessToken, @Nullable OffsetDateTime fromDate,
+                            @Nullable OffsetDateTime toDate, Consumer<List<AccountTransaction>> pageConsumer)
+    {
+        if (pageConsumer == null) {
+            throw new IllegalArgumentException("pageConsumer must not be null");
+        }
+
+        PageSlice<AccountTransaction> firstPage = fetchPage(accountId, accessToken, fromDate, toDate, 0);
+        int totalPages = firstPage.getTotalPages();
+        Deque<CompletableFuture<PageSlice<AccountTransaction>>> prefetchedPages = new ArrayDeque<>();
+        int nextPage = 1;
+        try {
+            List<AccountTransaction> transactions = new ArrayList<>(firstPage.getContent());
+            while (true) {
+                while (nextPage < totalPages && prefetchedPages.size() < maxConcurrentPages) {
+                    int pageNumber = nextPage++;
+                    prefetchedPages.add(CompletableFuture.supplyAsync(
+                            () -> fetchPage(accountId, accessToken, fromDate, toDate, pageNumber), executor));
+                }
+
+                pageConsumer.accept(transactions);
+
+                if (prefetchedPages.isEmpty()) {
+                    return;
+                }
+                transactions = new ArrayList<>(prefetchedPages.poll().join().getContent());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Transaction history could not be fetched.", e.getCause());
+        } finally {
+            prefetchedPages.forEach(pageFuture -> pageFuture.cancel(false));
+        }
+    }
+
+    /**
+     * Fetches a single page of the transaction history.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @param fromDate    start of the period, {@code null} for no lower bound
+     * @param toDate      end of the period, {@code null} for no upper bound
+     * @param page        zero-based page number
+     * @return page of the transaction history
+     */
+    public PageSlice<AccountTransaction> fetchPage(String accountId, String accessToken,
+                                                   @Nullable OffsetDateTime fromDate,
+                                                   @Nullable OffsetDateTime toDate, int page)
+    {
+        TransactionHistorySearch search = accountApi.transactions(accountId, accessToken)
+                                                    .size(pageSize)
+                                                    .page(page);
+        if (fromDate != null) {
+            search = search.fromDate(fromDate);
+        }
+        if (toDate != null) {
+            search = search.toDate(toDate);
+        }
+
+        return search.find();
+    }
+
+    /**
+     * Fetches all pages that follow the already loaded first page and assembles the transactions in page order.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @param fromDate    start of the period, {@code null} for no lower bound
+     * @param toDate      end of the period, {@code null} for no upper bound
+     * @param firstPage   already loaded first page of the same search
+     * @return transactions from all pages
+     */
+    public List<AccountTransaction> fetchRemainingPages(String accountId, String accessToken,
+                                                        @Nullable OffsetDateTime fromDate,
+                                                        @Nullable OffsetDateTime toDate,
+                                                        PageSlice<AccountTransaction> firstPage)
+    {
+        if (firstPage == null) {
+            throw new IllegalArgumentException("firstPage must not be null");
+        }
+
+        int totalPages = firstPage.getTotalPages();
+        List<CompletableFuture<PageSlice<AccountTransaction>>> remainingPages = new ArrayList<>();
+        Semaphore permits = new Semaphore(maxConcurrentPages);
+        try {
+            for (int page = 1; page < totalPages; page++) {
+                permits.acquire();
+                int pageNumber = page;
+                CompletableFuture<PageSlice<AccountTransaction>> pageFuture = CompletableFuture.supplyAsync(
+                        () -> fetchPage(accountId, accessToken, fromDate, toDate, pageNumber), executor);
+                pageFuture.whenComplete((result, error) -> permits.release());
+                remainingPages.add(pageFuture);
+            }
+
+            List<AccountTransaction> transactions = new ArrayList<>(firstPage.getContent());
+            for (CompletableFuture<PageSlice<AccountTransaction>> pageFuture : remainingPages) {
+                transactions.addAll(pageFuture.join().getContent());
+            }
+            return transactions;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Fetching of the transaction history was interrupted.", e);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Transaction history could not be fetched.", e.getCause());
+        } finally {
+            remainingPages.forEach(pageFuture -> pageFuture.cancel(false));
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package cz.kb.openbanking.adaa.example.core.transaction.impl;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import javax.annotation.Nullable;
+
+import cz.kb.openbanking.adaa.client.api.model.PageSlice;
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import cz.kb.openbanking.adaa.example.core.transaction.TransactionHistoryFetcher;
+
+/**
+ * Implementation of the {@link TransactionHistoryFetcher} that splits the requested period into date windows (shards)
+ * and fetches the windows concurrently, each one with its own pagination.
+ * <p>
+ * A window whose first page reports more than {@code maxPagesPerShard} pages is split in half before
+ * the rest of its pages is requested. The window size that fits the average density of the history is remembered
+ * per account, so the next fetch of a busy account starts with finer shards. Windows of the least recently fetched
+ * accounts are forgotten above {@code maxAccounts}.
+ * <p>
+ * Requests without the start of the period cannot be split and are delegated to the
+ * {@link ConcurrentTransactionHistoryFetcher}.
+ *
+ * @see ConcurrentTransactionHistoryFetcher
+ * @since 1.2
+ */
+public class DateShardedTransactionHistoryFetcher implements TransactionHistoryFetcher {
+
+    /**
+     * Order of the merged transactions: the newest booking date first, then by entry reference.
+     */
+    public static final Comparator<AccountTransaction> BOOKING_ORDER =
+            Comparator.comparing(AccountTransaction::getBookingDate, Comparator.nullsLast(Comparator.reverseOrder()))
+                      .thenComparing(AccountTransaction::getEntryReference, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final ConcurrentTransactionHistoryFetcher pageFetcher;
+    private final Executor executor;
+    private final int maxConcurrentShards;
+    private final int maxPagesPerShard;
+    private final Duration initialWindow;
+    private final Duration minWindow;
+    private final Map<String, Duration> windowByAccount;
+
+    /**
+     * New instance.
+     *
+     * @param pageFetcher         fetcher of the pages of a single window
+     * @param executor            executor for loading of the windows
+     * @param maxConcurrentShards maximum number of windows of one history loaded at the same time
+     * @param maxPagesPerShard    maximum number of pages of one window, larger windows are split
+     * @param initialWindow       size of the window used for an account without observed history
+     * @param minWindow           minimum size of the window, smaller windows are not split anymore
+     * @param maxAccounts         maximum number of accounts whose window size is remembered
+     */
+    public DateShardedTransactionHistoryFetcher(ConcurrentTransactionHistoryFetcher pageFetcher, Executor executor,
+                                                int maxConcurrentShards, int maxPagesPerShard,
+                                                Duration initialWindow, Duration minWindow, int maxAccounts)
+    {
+        if (pageFetcher == null) {
+            throw new IllegalArgumentException("pageFetcher must not be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        if (maxConcurrentShards < 1) {
+            throw new IllegalArgumentException("maxConcurrentShards must be positive");
+        }
+        if (maxPagesPerShard < 1) {
+            throw new IllegalArgumentException("maxPagesPerShard must be positive");
+        }
+        if (minWindow == null || minWindow.isNegative() || minWindow.isZero()) {
+            throw new IllegalArgumentException("minWindow must be positive");
+        }
+        if (initialWindow == null || initialWindow.compareTo(minWindow) < 0) {
+            throw new IllegalArgumentException("initialWindow must not be shorter than minWindow");
+        }
+        if (maxAccounts < 1) {
+            throw new IllegalArgumentException("maxAccounts must be positive");
+        }
+
+        this.pageFetcher = pageFetcher;
+        this.executor = executor;
+        this.maxConcurrentShards = maxConcurrentShards;
+        this.maxPagesPerShard = maxPagesPerShard;
+        this.initialWindow = initialWindow;
+        this.minWindow = minWindow;
+        this.windowByAccount = Collections.synchronizedMap(new LinkedHashMap<String, Duration>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Duration> eldest) {
+                return size() > maxAccounts;
+            }
+        });
+    }
+
+    @Override
+    public List<AccountTransaction> fetch(String accountId, String accessToken,
+                                          @Nullable OffsetDateTime fromDate, @Nullable OffsetDateTime toDate)
+    {
+        if (fromDate == null) {
+            return pageFetcher.fetch(accountId, accessToken, null, toDate);
+        }
+
+        OffsetDateTime end = toDate != null ? toDate : OffsetDateTime.now(ZoneId.systemDefault());
+        if (!fromDate.isBefore(end)) {
+            throw new IllegalArgumentException("fromDate must be before toDate");
+        }
+
+        Deque<Shard> shards = split(fromDate, end, windowByAccount.getOrDefault(accountId, initialWindow));
+        Deque<CompletableFuture<ShardResult>> inFlight = new ArrayDeque<>();
+        List<List<AccountTransaction>> shardTransactions = new ArrayList<>();
+        Duration fetchedPeriod = Duration.ZERO;
+        long fetchedPages = 0;
+        Semaphore permits = new Semaphore(maxConcurrentShards);
+        try {
+            while (!shards.isEmpty() || !inFlight.isEmpty()) {
+                while (!shards.isEmpty()) {
+                    Shard shard = shards.poll();
+                    permits.acquire();
+                    CompletableFuture<ShardResult> shardFuture = CompletableFuture.supplyAsync(
+                            () -> fetchShard(accountId, accessToken, shard), executor);
+                    shardFuture.whenComplete((result, error) -> permits.release());
+                    inFlight.add(shardFuture);
+                }
+
+                ShardResult result = inFlight.poll().join();
+                if (result.transactions == null) {
+                    OffsetDateTime middle = result.shard.from.plus(result.shard.length().dividedBy(2));
+                    shards.add(new Shard(result.shard.from, middle));
+                    shards.add(new Shard(middle, result.shard.to));
+                } else {
+                    shardTransactions.add(result.transactions);
+                    fetchedPeriod = fetchedPeriod.plus(result.shard.length());
+                    fetchedPages += Math.max(result.totalPages, 1);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Fetching of the transaction history was interrupted.", e);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Transaction history could not be fetched.", e.getCause());
+        } finally {
+            inFlight.forEach(shardFuture -> shardFuture.cancel(false));
+        }
+
+        windowByAccount.put(accountId, fittingWindow(fetchedPeriod, fetchedPages));
+
+        return merge(shardTransactions);
+    }
+
+    /**
+     * Fetches all pages of the window, unless the window is too busy and should be split.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @param shard       window to be fetched
+     * @return result of the window, without transactions if the window should be split
+     */
+    private ShardResult fetchShard(String accountId, String accessToken, Shard shard) {
+        PageSlice<AccountTransaction> firstPage = pageFetcher.fetchPage(accountId, accessToken, shard.from, shard.to, 0);
+        int totalPages = firstPage.getTotalPages();
+        if (totalPages > maxPagesPerShard && shard.length().dividedBy(2).compareTo(minWindow) >= 0) {
+            return new ShardResult(shard, totalPages, null);
+        }
+
+        return new ShardResult(shard, totalPages,
+                pageFetcher.fetchRemainingPages(accountId, accessToken, shard.from, shard.to, firstPage));
+    }
+
+    /**
+     * Estimates size of the window that would have {@code maxPagesPerShard} pages
+     * with the average transaction density observed in the fetched period.
+     *
+     * @param period fetched period
+     * @param pages  number of pages of the fetched period
+     * @return estimated window size, never shorter than {@code minWindow} nor longer than {@code initialWindow}
+     */
+    private Duration fittingWindow(Duration period, long pages) {
+        Duration window = period.multipliedBy(maxPagesPerShard).dividedBy(pages);
+        if (window.compareTo(minWindow) < 0) {
+            return minWindow;
+        }
+        if (window.compareTo(initialWindow) > 0) {
+            return initialWindow;
+        }
+        return window;
+    }
+
+    /**
+     * Splits the period into consecutive windows.
+     *
+     * @param from   start of the period
+     * @param to     end of the period
+     * @param window size of one window
+     * @return windows covering the whole period
+     */
+    private Deque<Shard> split(OffsetDateTime from, OffsetDateTime to, Duration window) {
+        Deque<Shard> shards = new ArrayDeque<>();
+        OffsetDateTime start = from;
+        while (start.isBefore(to)) {
+            OffsetDateTime end = start.plus(window);
+            if (end.isAfter(to)) {
+                end = to;
+            }
+            shards.add(new Shard(start, end));
+            start = end;
+        }
+        return shards;
+    }
+
+    /**
+     * Merges transactions of all windows, removes duplicates returned by adjacent windows
+     * and sorts the transactions by {@link #BOOKING_ORDER}.
+     * <p>
+     * The windows share their boundaries, so the transactions of the boundary day can be returned by both windows.
+     * Transactions with the entry reference are kept once. Transactions without it are compared by content,
+     * and the same transaction is kept as many times as the window that returned it most often, so identical
+     * transactions of one day are not lost.
+     *
+     * @param shardTransactions transactions of every window
+     * @return sorted transactions without duplicates
+     */
+    private List<AccountTransaction> merge(List<List<AccountTransaction>> shardTransactions) {
+        Set<String> entryReferences = new HashSet<>();
+        Map<AccountTransaction, Integer> mergedCounts = new HashMap<>();
+        List<AccountTransaction> merged = new ArrayList<>();
+        for (List<AccountTransaction> transactions : shardTransactions) {
+            Map<AccountTransaction, Integer> shardCounts = new HashMap<>();
+            for (AccountTransaction transaction : transactions) {
+                if (transaction.getEntryReference() != null) {
+                    if (entryReferences.add(transaction.getEntryReference())) {
+                        merged.add(transaction);
+                    }
+                } else {
+                    int count = shardCounts.merge(transaction, 1, Integer::sum);
+                    if (count > mergedCounts.getOrDefault(transaction, 0)) {
+                        mergedCounts.put(transaction, count);
+                        merged.add(transaction);
+                    }
+                }
+            }
+        }
+
+        merged.sort(BOOKING_ORDER);
+        return merged;
+    }
+
+    /**
+     * Date window of the transaction history.
+     */
+    private static final class Shard {
+        private final OffsetDateTime from;
+        private final OffsetDateTime to;
+
+        private Shard(OffsetDateTime from, OffsetDateTime to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        private Duration length() {
+            return Duration.between(from, to);
+        }
+    }
+
+    /**
+     * Result of fetching of one window.
+     */
+    private static final class ShardResult {
+        private final Shard shard;
+        private final int totalPages;
+        @Nullable
+        private final List<AccountTransaction> transactions;
+
+        private ShardResult(Shard shard, int totalPages, @Nullable List<AccountTransaction> transactions) {
+            this.shard = shard;
+            this.totalPages = totalPages;
+            this.transactions = transactions;
+        }
+    }
+}
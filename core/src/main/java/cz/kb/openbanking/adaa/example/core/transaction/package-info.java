@@ -0,0 +1,4 @@
+/**
+ * Contains services for retrieving transaction history from the KB ADAA API.
+ */
+package cz.kb.openbanking.adaa.example.core.transaction;
\ No newline at end of file
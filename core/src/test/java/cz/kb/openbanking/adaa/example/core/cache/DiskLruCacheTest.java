@@ -0,0 +1,89 @@
+package cz.kb.openbanking.adaa.example.core.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link DiskLruCache}.
+ *
+ * @since 1.2
+ */
+class DiskLruCacheTest {
+    private static final long MAX_BYTES = 10;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test method for {@link DiskLruCache#commit(String, Path)}.
+     */
+    @Test
+    void testCommittedFileIsCached() throws Exception {
+        DiskLruCache cache = new DiskLruCache(directory, MAX_BYTES);
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.contains("a")).isFalse();
+
+        Path file = cache.commit("a", write(cache, "abc"));
+        assertThat(cache.contains("a")).isTrue();
+
+        assertThat(cache.get("a")).isEqualTo(file);
+        assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).isEqualTo("abc");
+        assertThat(cache.size()).isEqualTo(3);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(1);
+        }
+    }
+
+    /**
+     * Test method for {@link DiskLruCache#commit(String, Path)}.
+     */
+    @Test
+    void testLeastRecentlyUsedFileIsEvicted() throws Exception {
+        DiskLruCache cache = new DiskLruCache(directory, MAX_BYTES);
+        Path a = cache.commit("a", write(cache, "aaaa"));
+        cache.commit("b", write(cache, "bbbb"));
+        cache.get("a");
+        cache.commit("c", write(cache, "cccc"));
+
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isNotNull();
+        assertThat(cache.size()).isEqualTo(8);
+        assertThat(a).exists();
+    }
+
+    /**
+     * Test method for {@link DiskLruCache#DiskLruCache(Path, long)}.
+     */
+    @Test
+    void testCacheIsRebuiltFromDirectory() throws Exception {
+        DiskLruCache cache = new DiskLruCache(directory, MAX_BYTES);
+        cache.commit("a", write(cache, "aaaa"));
+        Path b = cache.commit("b", write(cache, "bbbb"));
+        Files.setLastModifiedTime(b, FileTime.fromMillis(0));
+        Path unfinished = write(cache, "unfinished");
+
+        DiskLruCache reopened = new DiskLruCache(directory, MAX_BYTES);
+        assertThat(unfinished).doesNotExist();
+        assertThat(reopened.size()).isEqualTo(8);
+
+        // "b" is the least recently used now
+        reopened.commit("c", write(reopened, "cccc"));
+        assertThat(reopened.get("a")).isNotNull();
+        assertThat(reopened.get("b")).isNull();
+    }
+
+    private static Path write(DiskLruCache cache, String content) throws Exception {
+        Path tempFile = cache.createTempFile();
+        Files.write(tempFile, content.getBytes(StandardCharsets.UTF_8));
+        return tempFile;
+    }
+}
@@ -0,0 +1,129 @@
+package cz.kb.openbanking.adaa.example.core.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link StaleWhileRevalidateCache}.
+ *
+ * @since 1.2
+ */
+class StaleWhileRevalidateCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Runnable> refreshes = new ArrayList<>();
+
+    /**
+     * Test method for {@link StaleWhileRevalidateCache#get(Object)}.
+     */
+    @Test
+    void testFreshValueIsNotReloaded() {
+        StaleWhileRevalidateCache<String, String> cache = new StaleWhileRevalidateCache<>(10, Duration.ofHours(1),
+                refreshes::add, key -> key + loads.incrementAndGet());
+
+        assertThat(cache.get("a")).isEqualTo("a1");
+        assertThat(cache.get("a")).isEqualTo("a1");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(refreshes).isEmpty();
+    }
+
+    /**
+     * Test method for {@link StaleWhileRevalidateCache#get(Object)}.
+     */
+    @Test
+    void testStaleValueIsServedWhileRefreshed() {
+        StaleWhileRevalidateCache<String, String> cache = new StaleWhileRevalidateCache<>(10, Duration.ZERO,
+                refreshes::add, key -> key + loads.incrementAndGet());
+
+        assertThat(cache.get("a")).isEqualTo("a1");
+        assertThat(cache.get("a")).isEqualTo("a1");
+        assertThat(cache.get("a")).isEqualTo("a1");
+        // only one refresh is started for the stale value
+        assertThat(refreshes).hasSize(1);
+
+        refreshes.get(0).run();
+        assertThat(cache.get("a")).isEqualTo("a2");
+    }
+
+    /**
+     * Test method for {@link StaleWhileRevalidateCache#get(Object)}.
+     */
+    @Test
+    void testFailedRefreshKeepsStaleValue() {
+        StaleWhileRevalidateCache<String, String> cache = new StaleWhileRevalidateCache<>(10, Duration.ZERO,
+                refreshes::add, key -> {
+                    if (loads.incrementAndGet() > 1) {
+                        throw new IllegalStateException("unavailable");
+                    }
+                    return key;
+                });
+
+        cache.get("a");
+        cache.get("a");
+        refreshes.get(0).run();
+
+        assertThat(cache.get("a")).isEqualTo("a");
+        assertThat(refreshes).hasSize(2);
+    }
+
+    /**
+     * Test method for {@link StaleWhileRevalidateCache#invalidate(Object)}.
+     */
+    @Test
+    void testInvalidatedValueIsLoadedAgainAndRefreshIsDiscarded() {
+        StaleWhileRevalidateCache<String, String> cache = new StaleWhileRevalidateCache<>(10, Duration.ZERO,
+                refreshes::add, key -> key + loads.incrementAndGet());
+
+        cache.get("a");
+        cache.get("a");
+        cache.invalidate("a");
+        refreshes.get(0).run();
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get("a")).isEqualTo("a3");
+    }
+
+    /**
+     * Test method for {@link StaleWhileRevalidateCache#move(Object, Object)}.
+     */
+    @Test
+    void testMovedValueIsServedByNewKeyAndRefreshed() {
+        StaleWhileRevalidateCache<String, String> cache = new StaleWhileRevalidateCache<>(10, Duration.ZERO,
+                refreshes::add, key -> key + loads.incrementAndGet());
+
+        cache.get("a");
+        cache.get("a");
+        cache.move("a", "b");
+        // the refresh of the old key is discarded
+        refreshes.get(0).run();
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("b")).isEqualTo("a1");
+        assertThat(refreshes).hasSize(2);
+        refreshes.get(1).run();
+        assertThat(cache.get("b")).isEqualTo("b3");
+    }
+
+    /**
+     * Test method for {@link StaleWhileRevalidateCache#get(Object)}.
+     */
+    @Test
+    void testLeastRecentlyUsedValueIsEvicted() {
+        StaleWhileRevalidateCache<String, String> cache = new StaleWhileRevalidateCache<>(2, Duration.ofHours(1),
+                refreshes::add, key -> key + loads.incrementAndGet());
+
+        cache.get("a");
+        cache.get("b");
+        cache.get("a");
+        cache.get("c");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).isEqualTo("a1");
+        assertThat(cache.get("b")).isEqualTo("b4");
+    }
+}
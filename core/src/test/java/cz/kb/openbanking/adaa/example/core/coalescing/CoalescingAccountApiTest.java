@@ -0,0 +1,145 @@
+package cz.kb.openbanking.adaa.example.core.coalescing;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cz.kb.openbanking.adaa.client.api.AccountApi;
+import cz.kb.openbanking.adaa.client.api.search.AccountBalancesSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountStatementsSearch;
+import cz.kb.openbanking.adaa.client.api.search.PdfStatementSearch;
+import cz.kb.openbanking.adaa.client.api.search.TransactionHistorySearch;
+import cz.kb.openbanking.adaa.client.model.generated.AccountBalance;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for {@link CoalescingAccountApi}.
+ *
+ * @since 1.2
+ */
+class CoalescingAccountApiTest {
+    private static final int CALLERS = 5;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test method for {@link CoalescingAccountApi#balances(String, String)}.
+     */
+    @Test
+    void testConcurrentIdenticalSearchesShareOneCall() throws Exception {
+        BlockingAccountApi delegate = new BlockingAccountApi();
+        CoalescingAccountApi accountApi = new CoalescingAccountApi(delegate);
+
+        List<Future<List<AccountBalance>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> accountApi.balances("accountId", "token").find()));
+        }
+        assertThat(delegate.started.await(5, TimeUnit.SECONDS)).isTrue();
+        // give the other callers time to join the call in flight
+        Thread.sleep(100);
+        delegate.release.countDown();
+
+        for (Future<List<AccountBalance>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(delegate.balances);
+        }
+        assertThat(delegate.calls.get()).isEqualTo(1);
+
+        // the call is not cached
+        accountApi.balances("accountId", "token").find();
+        assertThat(delegate.calls.get()).isEqualTo(2);
+    }
+
+    /**
+     * Test method for {@link CoalescingAccountApi#balances(String, String)}.
+     */
+    @Test
+    void testDifferentSearchesAreNotCoalesced() {
+        BlockingAccountApi delegate = new BlockingAccountApi();
+        delegate.release.countDown();
+        CoalescingAccountApi accountApi = new CoalescingAccountApi(delegate);
+
+        accountApi.balances("accountId", "token").find();
+        accountApi.balances("otherAccountId", "token").find();
+        accountApi.balances("accountId", "otherToken").find();
+
+        assertThat(delegate.calls.get()).isEqualTo(3);
+    }
+
+    /**
+     * Test method for {@link CoalescingAccountApi#balances(String, String)}.
+     */
+    @Test
+    void testFailureIsPropagated() {
+        BlockingAccountApi delegate = new BlockingAccountApi();
+        delegate.failure = new IllegalStateException("unavailable");
+        delegate.release.countDown();
+        CoalescingAccountApi accountApi = new CoalescingAccountApi(delegate);
+
+        assertThatThrownBy(() -> accountApi.balances("accountId", "token").find()).isSameAs(delegate.failure);
+    }
+
+    /**
+     * {@link AccountApi} whose balances are returned after the release.
+     */
+    private static final class BlockingAccountApi implements AccountApi {
+        private final List<AccountBalance> balances = Collections.singletonList(new AccountBalance());
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile RuntimeException failure;
+
+        @Override
+        public AccountBalancesSearch balances(String accountId, String accessToken) {
+            return () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                return balances;
+            };
+        }
+
+        @Override
+        public AccountSearch accounts(String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public TransactionHistorySearch transactions(String accountId, String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AccountStatementsSearch statements(String accountId, String accessToken, OffsetDateTime dateFrom) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PdfStatementSearch statementPdf(String accountId, String accessToken, long statementId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
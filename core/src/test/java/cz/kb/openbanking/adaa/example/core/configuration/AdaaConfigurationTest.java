@@ -0,0 +1,68 @@
+package cz.kb.openbanking.adaa.example.core.configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link AdaaConfiguration}.
+ *
+ * @since 1.2
+ */
+class AdaaConfigurationTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test method for {@link AdaaConfiguration#load(Properties, Path, Map, Properties)}.
+     */
+    @Test
+    void testOverridesWinInOrder() throws Exception {
+        Properties defaults = new Properties();
+        defaults.setProperty("bundled", "bundled");
+        defaults.setProperty("file", "bundled");
+        defaults.setProperty("env-name", "bundled");
+        defaults.setProperty("system", "bundled");
+
+        Path file = directory.resolve("application.properties");
+        Files.write(file, "file=file\nenv-name=file\nsystem=file\n".getBytes(StandardCharsets.UTF_8));
+
+        Map<String, String> environment = new HashMap<>();
+        environment.put("ADAA_ENV_NAME", "env");
+        environment.put("ADAA_SYSTEM", "env");
+        environment.put("ENV_NAME", "unprefixed");
+
+        Properties systemProperties = new Properties();
+        systemProperties.setProperty("adaa.system", "system");
+
+        AdaaConfiguration configuration = AdaaConfiguration.load(defaults, file, environment, systemProperties);
+        assertThat(configuration.get("bundled")).isEqualTo("bundled");
+        assertThat(configuration.get("file")).isEqualTo("file");
+        assertThat(configuration.get("env-name")).isEqualTo("env");
+        assertThat(configuration.get("system")).isEqualTo("system");
+        assertThat(configuration.get("unknown")).isNull();
+    }
+
+    /**
+     * Test method for {@link AdaaConfiguration#load(Properties, Path, Map, Properties)}.
+     */
+    @Test
+    void testMissingFileIsIgnored() {
+        Properties defaults = new Properties();
+        defaults.setProperty("bundled", "bundled");
+
+        AdaaConfiguration configuration = AdaaConfiguration.load(defaults, directory.resolve("missing.properties"),
+                Collections.emptyMap(), new Properties());
+        assertThat(configuration.get("bundled")).isEqualTo("bundled");
+    }
+}
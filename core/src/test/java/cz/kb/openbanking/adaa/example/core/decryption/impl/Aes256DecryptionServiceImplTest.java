@@ -3,7 +3,12 @@ package cz.kb.openbanking.adaa.example.core.decryption.impl;
 import cz.kb.openbanking.adaa.example.core.decryption.Aes256DecryptionService;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Test class for {@link Aes256DecryptionServiceImpl}.
@@ -26,4 +31,64 @@ class Aes256DecryptionServiceImplTest {
         String plainText = decryptionService.decrypt(CIPHER_TEXT, SALT, SECRET_KEY);
         assertThat(plainText).isEqualTo(PLAIN_TEXT);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link Aes256DecryptionServiceImpl#decrypt(byte[], byte[], String)}.
+     */
+    @Test
+    void testDecryptBytes() {
+        Aes256DecryptionService decryptionService = new Aes256DecryptionServiceImpl();
+        byte[] plainText = decryptionService.decrypt(Base64.getUrlDecoder().decode(CIPHER_TEXT),
+                Base64.getUrlDecoder().decode(SALT), SECRET_KEY);
+        assertThat(new String(plainText, StandardCharsets.UTF_8)).isEqualTo(PLAIN_TEXT);
+    }
+
+    /**
+     * Test method for {@link Aes256DecryptionServiceImpl#decrypt(ByteBuffer, byte[], String, ByteBuffer)}.
+     */
+    @Test
+    void testDecryptDirectBuffers() {
+        byte[] cipherBytes = Base64.getUrlDecoder().decode(CIPHER_TEXT);
+        ByteBuffer cipherText = ByteBuffer.allocateDirect(cipherBytes.length);
+        cipherText.put(cipherBytes).flip();
+        ByteBuffer plainText = ByteBuffer.allocateDirect(cipherBytes.length);
+
+        Aes256DecryptionService decryptionService = new Aes256DecryptionServiceImpl();
+        int length = decryptionService.decrypt(cipherText, Base64.getUrlDecoder().decode(SALT), SECRET_KEY, plainText);
+
+        byte[] plainBytes = new byte[length];
+        plainText.flip();
+        plainText.get(plainBytes);
+        assertThat(new String(plainBytes, StandardCharsets.UTF_8)).isEqualTo(PLAIN_TEXT);
+        assertThat(cipherText.hasRemaining()).isFalse();
+    }
+
+    /**
+     * Test method for {@link Aes256DecryptionServiceImpl#decrypt(String, String, String)}.
+     */
+    @Test
+    void testCachedCipherAndKeyAreReusable() {
+        Aes256DecryptionService decryptionService = new Aes256DecryptionServiceImpl();
+        String otherKey = Base64.getEncoder().encodeToString(new byte[32]);
+
+        assertThatThrownBy(() -> decryptionService.decrypt(CIPHER_TEXT, SALT, otherKey))
+                .isInstanceOf(IllegalStateException.class);
+        for (int i = 0; i < 3; i++) {
+            assertThat(decryptionService.decrypt(CIPHER_TEXT, SALT, SECRET_KEY)).isEqualTo(PLAIN_TEXT);
+        }
+    }
+
+    /**
+     * Test method for {@link Aes256DecryptionServiceImpl#decrypt(byte[], byte[], String)}.
+     */
+    @Test
+    void testModifiedBytesAreNotDecrypted() {
+        Aes256DecryptionService decryptionService = new Aes256DecryptionServiceImpl();
+        byte[] cipherBytes = Base64.getUrlDecoder().decode(CIPHER_TEXT);
+        cipherBytes[0] ^= 1;
+
+        assertThatThrownBy(() -> decryptionService.decrypt(cipherBytes, Base64.getUrlDecoder().decode(SALT),
+                SECRET_KEY))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
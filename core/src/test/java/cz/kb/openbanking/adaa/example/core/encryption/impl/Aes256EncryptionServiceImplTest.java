@@ -0,0 +1,42 @@
+package cz.kb.openbanking.adaa.example.core.encryption.impl;
+
+import cz.kb.openbanking.adaa.example.core.decryption.impl.Aes256DecryptionServiceImpl;
+import cz.kb.openbanking.adaa.example.core.encryption.Aes256EncryptionService;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link Aes256EncryptionServiceImpl}.
+ *
+ * @since 1.2
+ */
+class Aes256EncryptionServiceImplTest {
+    private static final String CIPHER_TEXT = "QUp4Sa8Vd0gwDrUNwhhokj_FBuy2Q88OCA==";
+    private static final String SALT = "2KwGx76r3hikHRw7";
+    private static final String SECRET_KEY = "Ri1KYU5kUmdVa1hwMnM1djh5L0I/RShIK0tiUGVTaFY=";
+    private static final String PLAIN_TEXT = "plaintext";
+
+    /**
+     * Test method for {@link Aes256EncryptionServiceImpl#encrypt(String, String, String)}.
+     */
+    @Test
+    void testEncrypt() {
+        Aes256EncryptionService encryptionService = new Aes256EncryptionServiceImpl();
+        String cipherText = encryptionService.encrypt(PLAIN_TEXT, SALT, SECRET_KEY);
+        assertThat(cipherText).isEqualTo(CIPHER_TEXT);
+    }
+
+    /**
+     * Test method for {@link Aes256EncryptionServiceImpl#generateSalt()}.
+     */
+    @Test
+    void testEncryptWithGeneratedSalt() {
+        Aes256EncryptionService encryptionService = new Aes256EncryptionServiceImpl();
+        String salt = encryptionService.generateSalt();
+        assertThat(salt).isNotEqualTo(encryptionService.generateSalt());
+
+        String cipherText = encryptionService.encrypt(PLAIN_TEXT, salt, SECRET_KEY);
+        assertThat(new Aes256DecryptionServiceImpl().decrypt(cipherText, salt, SECRET_KEY)).isEqualTo(PLAIN_TEXT);
+    }
+}
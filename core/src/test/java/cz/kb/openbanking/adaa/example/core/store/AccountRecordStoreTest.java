@@ -0,0 +1,56 @@
+package cz.kb.openbanking.adaa.example.core.store;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link AccountRecordStore}.
+ *
+ * @since 1.2
+ */
+class AccountRecordStoreTest {
+    private static final int SEGMENT_SIZE = 64;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test method for {@link AccountRecordStore#append(String, long, byte[])}.
+     */
+    @Test
+    void testLeastRecentlyUsedLogIsClosedAndReopened() {
+        try (AccountRecordStore store = new AccountRecordStore(directory, SEGMENT_SIZE, 1)) {
+            store.append("first", 1, bytes("a"));
+            List<String> firstRecords = readAll(store, "first");
+            store.append("second", 2, bytes("b"));
+            // the log of the first account was evicted and is opened again
+            store.append("first", 3, bytes("c"));
+
+            assertThat(firstRecords).containsExactly("1:a");
+            assertThat(readAll(store, "first")).containsExactly("1:a", "3:c");
+            assertThat(readAll(store, "second")).containsExactly("2:b");
+            assertThat(store.getWatermark("first")).isEqualTo(3);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readAll(AccountRecordStore store, String accountId) {
+        List<String> records = new ArrayList<>();
+        store.forEach(accountId, (watermark, payload) -> {
+            byte[] record = new byte[payload.remaining()];
+            payload.get(record);
+            records.add(watermark + ":" + new String(record, StandardCharsets.UTF_8));
+        });
+        return records;
+    }
+}
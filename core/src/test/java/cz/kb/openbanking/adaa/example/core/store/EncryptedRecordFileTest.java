@@ -0,0 +1,88 @@
+package cz.kb.openbanking.adaa.example.core.store;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import cz.kb.openbanking.adaa.example.core.decryption.impl.Aes256DecryptionServiceImpl;
+import cz.kb.openbanking.adaa.example.core.encryption.impl.Aes256EncryptionServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link EncryptedRecordFile}.
+ *
+ * @since 1.2
+ */
+class EncryptedRecordFileTest {
+    private static final String SECRET_KEY = "Ri1KYU5kUmdVa1hwMnM1djh5L0I/RShIK0tiUGVTaFY=";
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test method for {@link EncryptedRecordFile#append(String)}.
+     */
+    @Test
+    void testAppendedRecordsAreReadAfterReopen() throws Exception {
+        Path file = directory.resolve("records.log");
+        try (EncryptedRecordFile records = open(file)) {
+            records.append("first");
+            records.append("second");
+        }
+
+        assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).doesNotContain("first");
+        try (EncryptedRecordFile records = open(file)) {
+            assertThat(records.readAll()).containsExactly("first", "second");
+            assertThat(records.getRecordCount()).isEqualTo(2);
+        }
+    }
+
+    /**
+     * Test method for {@link EncryptedRecordFile#readAll()}.
+     */
+    @Test
+    void testTornRecordIsSkipped() throws Exception {
+        Path file = directory.resolve("records.log");
+        try (EncryptedRecordFile records = open(file)) {
+            records.append("first");
+        }
+        Files.write(file, "AAAAAAAAAAAAAAAA.QUp4".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (EncryptedRecordFile records = open(file)) {
+            records.append("second");
+            assertThat(records.readAll()).containsExactly("first", "second");
+            assertThat(records.getRecordCount()).isEqualTo(3);
+        }
+    }
+
+    /**
+     * Test method for {@link EncryptedRecordFile#rewrite(java.util.Collection)}.
+     */
+    @Test
+    void testRewriteReplacesRecords() throws Exception {
+        Path file = directory.resolve("records.log");
+        try (EncryptedRecordFile records = open(file)) {
+            records.append("first");
+            records.append("second");
+            records.rewrite(Collections.singletonList("third"));
+            records.append("fourth");
+
+            assertThat(records.readAll()).containsExactly("third", "fourth");
+        }
+        assertThat(directory.resolve("records.log.tmp")).doesNotExist();
+        try (EncryptedRecordFile records = open(file)) {
+            assertThat(records.readAll()).isEqualTo(Arrays.asList("third", "fourth"));
+        }
+    }
+
+    private static EncryptedRecordFile open(Path file) {
+        return new EncryptedRecordFile(file, new Aes256EncryptionServiceImpl(), new Aes256DecryptionServiceImpl(),
+                SECRET_KEY);
+    }
+}
@@ -0,0 +1,140 @@
+package cz.kb.openbanking.adaa.example.core.store;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for {@link MappedRecordLog}.
+ *
+ * @since 1.2
+ */
+class MappedRecordLogTest {
+    private static final int SEGMENT_SIZE = 64;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test method for {@link MappedRecordLog#forEach(MappedRecordLog.RecordVisitor)}.
+     */
+    @Test
+    void testRecordsAreReadInAppendOrder() {
+        MappedRecordLog log = new MappedRecordLog(directory, SEGMENT_SIZE);
+        log.append(3, bytes("first"));
+        log.append(1, bytes("second"));
+
+        assertThat(readAll(log)).containsExactly("3:first", "1:second");
+        assertThat(log.getWatermark()).isEqualTo(3);
+    }
+
+    /**
+     * Test method for {@link MappedRecordLog#append(long, byte[])}.
+     */
+    @Test
+    void testNewSegmentIsCreatedWhenRecordDoesNotFit() throws Exception {
+        MappedRecordLog log = new MappedRecordLog(directory, SEGMENT_SIZE);
+        for (int i = 0; i < 5; i++) {
+            log.append(i, bytes("record-number-" + i));
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count()).isGreaterThan(1);
+        }
+        assertThat(readAll(log)).hasSize(5).last().isEqualTo("4:record-number-4");
+    }
+
+    /**
+     * Test method for {@link MappedRecordLog#MappedRecordLog(Path, int)}.
+     */
+    @Test
+    void testRecordsSurviveReopening() {
+        MappedRecordLog log = new MappedRecordLog(directory, SEGMENT_SIZE);
+        for (int i = 0; i < 5; i++) {
+            log.append(i, bytes("record-number-" + i));
+        }
+        log.close();
+
+        MappedRecordLog reopened = new MappedRecordLog(directory, SEGMENT_SIZE);
+        assertThat(reopened.getWatermark()).isEqualTo(4);
+        reopened.append(10, bytes("after"));
+
+        List<String> records = readAll(reopened);
+        assertThat(records).hasSize(6).last().isEqualTo("10:after");
+    }
+
+    /**
+     * Test method for {@link MappedRecordLog#append(long, byte[])}.
+     */
+    @Test
+    void testRecordLargerThanSegmentIsRejected() {
+        MappedRecordLog log = new MappedRecordLog(directory, SEGMENT_SIZE);
+
+        assertThatThrownBy(() -> log.append(1, new byte[SEGMENT_SIZE]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(log.getWatermark()).isEqualTo(Long.MIN_VALUE);
+    }
+
+    /**
+     * Test method for {@link MappedRecordLog#close()}.
+     */
+    @Test
+    void testClosedLogRejectsAppends() {
+        MappedRecordLog log = new MappedRecordLog(directory, SEGMENT_SIZE);
+        log.append(1, bytes("first"));
+        log.close();
+
+        assertThat(log.isClosed()).isTrue();
+        assertThatThrownBy(() -> log.append(2, bytes("second")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(readAll(log)).containsExactly("1:first");
+    }
+
+    /**
+     * Test method for {@link MappedRecordLog#MappedRecordLog(Path, int)}.
+     */
+    @Test
+    void testFilesAreAccessibleByOwnerOnly() throws Exception {
+        Path logDirectory = directory.resolve("store").resolve("account");
+        MappedRecordLog log = new MappedRecordLog(logDirectory, SEGMENT_SIZE);
+        log.append(1, bytes("first"));
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(directory.resolve("store"))))
+                .isEqualTo("rwx------");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(logDirectory)))
+                .isEqualTo("rwx------");
+        List<Path> segmentFiles = new ArrayList<>();
+        try (Stream<Path> files = Files.list(logDirectory)) {
+            files.forEach(segmentFiles::add);
+        }
+        assertThat(segmentFiles).isNotEmpty();
+        for (Path segmentFile : segmentFiles) {
+            assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(segmentFile)))
+                    .isEqualTo("rw-------");
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readAll(MappedRecordLog log) {
+        List<String> records = new ArrayList<>();
+        log.forEach((watermark, payload) -> {
+            byte[] record = new byte[payload.remaining()];
+            payload.get(record);
+            records.add(watermark + ":" + new String(record, StandardCharsets.UTF_8));
+        });
+        return records;
+    }
+}
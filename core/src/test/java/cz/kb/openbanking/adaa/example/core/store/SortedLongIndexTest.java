@@ -0,0 +1,70 @@
+package cz.kb.openbanking.adaa.example.core.store;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link SortedLongIndex}.
+ *
+ * @since 1.2
+ */
+class SortedLongIndexTest {
+
+    /**
+     * Test method for {@link SortedLongIndex#range(long, long)}.
+     */
+    @Test
+    void testRangeMatchesLinearScan() {
+        Random random = new Random(42);
+        long[] keys = new long[10_000];
+        SortedLongIndex.Builder builder = SortedLongIndex.builder(0);
+        for (int row = 0; row < keys.length; row++) {
+            // mix of negative, small and large keys
+            keys[row] = row % 3 == 0 ? random.nextLong() : random.nextInt(2_000) - 1_000;
+            builder.add(keys[row], row);
+        }
+        SortedLongIndex index = builder.build();
+
+        assertThat(index.size()).isEqualTo(keys.length);
+        for (int i = 0; i < 100; i++) {
+            long from = random.nextInt(2_400) - 1_200;
+            long to = from + random.nextInt(500);
+            int[] expected = IntStream.range(0, keys.length).filter(row -> keys[row] >= from && keys[row] <= to)
+                                      .toArray();
+            assertThat(index.range(from, to)).containsExactly(expected);
+        }
+        int[] all = IntStream.range(0, keys.length).toArray();
+        assertThat(index.range(Long.MIN_VALUE, Long.MAX_VALUE)).containsExactly(all);
+    }
+
+    /**
+     * Test method for {@link SortedLongIndex#lookup(long)}.
+     */
+    @Test
+    void testLookup() {
+        SortedLongIndex index = SortedLongIndex.builder(4)
+                                               .add(7, 0)
+                                               .add(-7, 1)
+                                               .add(7, 2)
+                                               .add(8, 3)
+                                               .build();
+
+        assertThat(index.lookup(7)).containsExactly(0, 2);
+        assertThat(index.lookup(-7)).containsExactly(1);
+        assertThat(index.lookup(0)).isEmpty();
+        assertThat(index.range(9, 1)).isEmpty();
+    }
+
+    /**
+     * Test method for {@link SortedLongIndex#intersect(int[], int[])}.
+     */
+    @Test
+    void testIntersect() {
+        assertThat(SortedLongIndex.intersect(new int[]{1, 3, 5, 7}, new int[]{2, 3, 7, 9})).containsExactly(3, 7);
+        assertThat(SortedLongIndex.intersect(new int[]{1, 2}, new int[0])).isEmpty();
+    }
+}
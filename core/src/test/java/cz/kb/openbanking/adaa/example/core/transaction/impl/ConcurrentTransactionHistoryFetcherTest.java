@@ -0,0 +1,161 @@
+package cz.kb.openbanking.adaa.example.core.transaction.impl;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import cz.kb.openbanking.adaa.client.api.AccountApi;
+import cz.kb.openbanking.adaa.client.api.model.PageSlice;
+import cz.kb.openbanking.adaa.client.api.search.AccountBalancesSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountStatementsSearch;
+import cz.kb.openbanking.adaa.client.api.search.PdfStatementSearch;
+import cz.kb.openbanking.adaa.client.api.search.TransactionHistorySearch;
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link ConcurrentTransactionHistoryFetcher}.
+ *
+ * @since 1.2
+ */
+class ConcurrentTransactionHistoryFetcherTest {
+    private static final int TOTAL_PAGES = 7;
+    private static final int PAGE_SIZE = 3;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test method for {@link ConcurrentTransactionHistoryFetcher#fetch(String, String, OffsetDateTime, OffsetDateTime)}.
+     */
+    @Test
+    void testFetchAssemblesAllPagesInOrder() {
+        PagedAccountApi accountApi = new PagedAccountApi();
+        ConcurrentTransactionHistoryFetcher fetcher = new ConcurrentTransactionHistoryFetcher(accountApi, executor,
+                2, PAGE_SIZE);
+
+        List<AccountTransaction> transactions = fetcher.fetch("accountId", "token", null, null);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < TOTAL_PAGES * PAGE_SIZE; i++) {
+            expected.add(String.valueOf(i));
+        }
+        assertThat(transactions.stream().map(AccountTransaction::getEntryReference).collect(Collectors.toList()))
+                .isEqualTo(expected);
+        assertThat(accountApi.maxConcurrentCalls.get()).isLessThanOrEqualTo(2);
+    }
+
+    /**
+     * Test method for
+     * {@link ConcurrentTransactionHistoryFetcher#forEachPage(String, String, OffsetDateTime, OffsetDateTime, Consumer)}.
+     */
+    @Test
+    void testForEachPagePassesPagesInOrder() {
+        PagedAccountApi accountApi = new PagedAccountApi();
+        ConcurrentTransactionHistoryFetcher fetcher = new ConcurrentTransactionHistoryFetcher(accountApi, executor,
+                2, PAGE_SIZE);
+
+        List<List<String>> pages = new ArrayList<>();
+        fetcher.forEachPage("accountId", "token", null, null, page -> pages.add(
+                page.stream().map(AccountTransaction::getEntryReference).collect(Collectors.toList())));
+
+        assertThat(pages).hasSize(TOTAL_PAGES);
+        for (int page = 0; page < TOTAL_PAGES; page++) {
+            assertThat(pages.get(page)).first().isEqualTo(String.valueOf(page * PAGE_SIZE));
+        }
+        assertThat(accountApi.maxConcurrentCalls.get()).isLessThanOrEqualTo(2);
+    }
+
+    /**
+     * {@link AccountApi} serving {@value #TOTAL_PAGES} pages of transactions, later pages are served faster.
+     */
+    private static final class PagedAccountApi implements AccountApi {
+        private final AtomicInteger concurrentCalls = new AtomicInteger();
+        private final AtomicInteger maxConcurrentCalls = new AtomicInteger();
+
+        @Override
+        public TransactionHistorySearch transactions(String accountId, String accessToken) {
+            return new PageSearch(0);
+        }
+
+        @Override
+        public AccountSearch accounts(String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AccountBalancesSearch balances(String accountId, String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AccountStatementsSearch statements(String accountId, String accessToken, OffsetDateTime dateFrom) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PdfStatementSearch statementPdf(String accountId, String accessToken, long statementId) {
+            throw new UnsupportedOperationException();
+        }
+
+        private final class PageSearch implements TransactionHistorySearch {
+            private final int page;
+
+            private PageSearch(int page) {
+                this.page = page;
+            }
+
+            @Override
+            public PageSlice<AccountTransaction> find() {
+                maxConcurrentCalls.accumulateAndGet(concurrentCalls.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep((TOTAL_PAGES - page) * 5L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    concurrentCalls.decrementAndGet();
+                }
+
+                List<AccountTransaction> content = new ArrayList<>();
+                for (int i = 0; i < PAGE_SIZE; i++) {
+                    content.add(new AccountTransaction().entryReference(String.valueOf(page * PAGE_SIZE + i)));
+                }
+                return new PageSlice<>(content, TOTAL_PAGES, page, PAGE_SIZE, PAGE_SIZE, page == 0,
+                        page == TOTAL_PAGES - 1, false);
+            }
+
+            @Override
+            public TransactionHistorySearch page(int page) {
+                return new PageSearch(page);
+            }
+
+            @Override
+            public TransactionHistorySearch size(Integer size) {
+                return this;
+            }
+
+            @Override
+            public TransactionHistorySearch fromDate(OffsetDateTime fromDate) {
+                return this;
+            }
+
+            @Override
+            public TransactionHistorySearch toDate(OffsetDateTime toDate) {
+                return this;
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package cz.kb.openbanking.adaa.example.core.transaction.impl;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+import cz.kb.openbanking.adaa.client.api.AccountApi;
+import cz.kb.openbanking.adaa.client.api.model.PageSlice;
+import cz.kb.openbanking.adaa.client.api.search.AccountBalancesSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountStatementsSearch;
+import cz.kb.openbanking.adaa.client.api.search.PdfStatementSearch;
+import cz.kb.openbanking.adaa.client.api.search.TransactionHistorySearch;
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link DateShardedTransactionHistoryFetcher}.
+ *
+ * @since 1.2
+ */
+class DateShardedTransactionHistoryFetcherTest {
+    private static final int PAGE_SIZE = 10;
+    private static final int DAYS = 60;
+    private static final int TRANSACTIONS_PER_DAY = 10;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+    private static final OffsetDateTime FROM_DATE = FIRST_DAY.atStartOfDay().atOffset(ZoneOffset.UTC);
+    private static final OffsetDateTime TO_DATE = FROM_DATE.plusDays(DAYS - 1);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test method for {@link DateShardedTransactionHistoryFetcher#fetch(String, String, OffsetDateTime, OffsetDateTime)}.
+     */
+    @Test
+    void testFetchMergesWindowsWithoutDuplicates() {
+        List<AccountTransaction> history = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            LocalDate bookingDate = FIRST_DAY.plusDays(day);
+            for (int i = 0; i < TRANSACTIONS_PER_DAY; i++) {
+                history.add(new AccountTransaction().entryReference(day + "-" + i).bookingDate(bookingDate));
+            }
+            // transactions without the entry reference, two of them are identical
+            history.add(unreferencedTransaction(bookingDate, "1"));
+            history.add(unreferencedTransaction(bookingDate, "2"));
+            history.add(unreferencedTransaction(bookingDate, "2"));
+        }
+        DateRangeAccountApi accountApi = new DateRangeAccountApi(history);
+        DateShardedTransactionHistoryFetcher fetcher = new DateShardedTransactionHistoryFetcher(
+                new ConcurrentTransactionHistoryFetcher(accountApi, executor, 2, PAGE_SIZE), executor,
+                3, 5, Duration.ofDays(7), Duration.ofDays(1), 100);
+
+        List<AccountTransaction> transactions = fetcher.fetch("accountId", "token", FROM_DATE, TO_DATE);
+
+        assertThat(transactions).hasSize(history.size());
+        assertThat(transactions).containsExactlyInAnyOrderElementsOf(history);
+        assertThat(transactions).isSortedAccordingTo(DateShardedTransactionHistoryFetcher.BOOKING_ORDER);
+        assertThat(transactions.get(0).getBookingDate()).isEqualTo(TO_DATE.toLocalDate());
+    }
+
+    /**
+     * Test method for {@link DateShardedTransactionHistoryFetcher#fetch(String, String, OffsetDateTime, OffsetDateTime)}.
+     */
+    @Test
+    void testFetchSplitsBusyWindowsAndRemembersWindowSize() {
+        List<AccountTransaction> history = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            for (int i = 0; i < TRANSACTIONS_PER_DAY; i++) {
+                history.add(new AccountTransaction().entryReference(day + "-" + i).bookingDate(FIRST_DAY.plusDays(day)));
+            }
+        }
+        DateRangeAccountApi accountApi = new DateRangeAccountApi(history);
+        DateShardedTransactionHistoryFetcher fetcher = new DateShardedTransactionHistoryFetcher(
+                new ConcurrentTransactionHistoryFetcher(accountApi, executor, 2, PAGE_SIZE), executor,
+                3, 5, Duration.ofDays(DAYS), Duration.ofDays(1), 100);
+
+        List<AccountTransaction> transactions = fetcher.fetch("accountId", "token", FROM_DATE, TO_DATE);
+        int firstFetchCalls = accountApi.calls.getAndSet(0);
+        List<AccountTransaction> secondTransactions = fetcher.fetch("accountId", "token", FROM_DATE, TO_DATE);
+
+        assertThat(transactions.stream().map(AccountTransaction::getEntryReference).collect(Collectors.toSet()))
+                .hasSize(history.size());
+        assertThat(secondTransactions).isEqualTo(transactions);
+        // the second fetch starts with the remembered window and does not request the pages of oversized windows
+        assertThat(accountApi.calls.get()).isLessThan(firstFetchCalls);
+    }
+
+    /**
+     * Test method for {@link DateShardedTransactionHistoryFetcher#fetch(String, String, OffsetDateTime, OffsetDateTime)}.
+     */
+    @Test
+    void testWindowOfLeastRecentlyFetchedAccountIsForgotten() {
+        List<AccountTransaction> history = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            for (int i = 0; i < TRANSACTIONS_PER_DAY; i++) {
+                history.add(new AccountTransaction().entryReference(day + "-" + i).bookingDate(FIRST_DAY.plusDays(day)));
+            }
+        }
+        DateRangeAccountApi accountApi = new DateRangeAccountApi(history);
+        DateShardedTransactionHistoryFetcher fetcher = new DateShardedTransactionHistoryFetcher(
+                new ConcurrentTransactionHistoryFetcher(accountApi, executor, 2, PAGE_SIZE), executor,
+                3, 5, Duration.ofDays(DAYS), Duration.ofDays(1), 1);
+
+        fetcher.fetch("accountId", "token", FROM_DATE, TO_DATE);
+        int firstFetchCalls = accountApi.calls.getAndSet(0);
+        fetcher.fetch("otherAccountId", "token", FROM_DATE, TO_DATE);
+        accountApi.calls.set(0);
+        fetcher.fetch("accountId", "token", FROM_DATE, TO_DATE);
+
+        // the window of the first account was evicted, so its fetch starts with the initial window again
+        assertThat(accountApi.calls.get()).isEqualTo(firstFetchCalls);
+    }
+
+    /**
+     * Test method for {@link DateShardedTransactionHistoryFetcher#fetch(String, String, OffsetDateTime, OffsetDateTime)}.
+     */
+    @Test
+    void testFetchWithoutFromDateIsNotSplit() {
+        List<AccountTransaction> history = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            history.add(new AccountTransaction().entryReference(String.valueOf(i)).bookingDate(FIRST_DAY));
+        }
+        DateRangeAccountApi accountApi = new DateRangeAccountApi(history);
+        DateShardedTransactionHistoryFetcher fetcher = new DateShardedTransactionHistoryFetcher(
+                new ConcurrentTransactionHistoryFetcher(accountApi, executor, 2, PAGE_SIZE), executor,
+                3, 1, Duration.ofDays(7), Duration.ofDays(1), 100);
+
+        List<AccountTransaction> transactions = fetcher.fetch("accountId", "token", null, null);
+
+        assertThat(transactions).isEqualTo(history);
+        assertThat(accountApi.calls.get()).isEqualTo(3);
+    }
+
+    private static AccountTransaction unreferencedTransaction(LocalDate bookingDate, String information) {
+        return new AccountTransaction().bookingDate(bookingDate).additionalTransactionInformation(information);
+    }
+
+    /**
+     * {@link AccountApi} serving the history filtered by booking date, both ends of the period are inclusive.
+     */
+    private static final class DateRangeAccountApi implements AccountApi {
+        private final List<AccountTransaction> history;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private DateRangeAccountApi(List<AccountTransaction> history) {
+            this.history = history;
+        }
+
+        @Override
+        public TransactionHistorySearch transactions(String accountId, String accessToken) {
+            return new DateRangeSearch(0, null, null);
+        }
+
+        @Override
+        public AccountSearch accounts(String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AccountBalancesSearch balances(String accountId, String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AccountStatementsSearch statements(String accountId, String accessToken, OffsetDateTime dateFrom) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PdfStatementSearch statementPdf(String accountId, String accessToken, long statementId) {
+            throw new UnsupportedOperationException();
+        }
+
+        private final class DateRangeSearch implements TransactionHistorySearch {
+            private final int page;
+            @Nullable
+            private final OffsetDateTime fromDate;
+            @Nullable
+            private final OffsetDateTime toDate;
+
+            private DateRangeSearch(int page, @Nullable OffsetDateTime fromDate, @Nullable OffsetDateTime toDate) {
+                this.page = page;
+                this.fromDate = fromDate;
+                this.toDate = toDate;
+            }
+
+            @Override
+            public PageSlice<AccountTransaction> find() {
+                calls.incrementAndGet();
+                List<AccountTransaction> matching = history.stream()
+                        .filter(transaction -> fromDate == null
+                                || !transaction.getBookingDate().isBefore(fromDate.toLocalDate()))
+                        .filter(transaction -> toDate == null
+                                || !transaction.getBookingDate().isAfter(toDate.toLocalDate()))
+                        .collect(Collectors.toList());
+                int totalPages = (matching.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+                List<AccountTransaction> content = matching.subList(Math.min(page * PAGE_SIZE, matching.size()),
+                        Math.min((page + 1) * PAGE_SIZE, matching.size()));
+                return new PageSlice<>(new ArrayList<>(content), totalPages, page, PAGE_SIZE, content.size(),
+                        page == 0, page >= totalPages - 1, content.isEmpty());
+            }
+
+            @Override
+            public TransactionHistorySearch page(int page) {
+                return new DateRangeSearch(page, fromDate, toDate);
+            }
+
+            @Override
+            public TransactionHistorySearch size(Integer size) {
+                return this;
+            }
+
+            @Override
+            public TransactionHistorySearch fromDate(OffsetDateTime fromDate) {
+                return new DateRangeSearch(page, fromDate, toDate);
+            }
+
+            @Override
+            public TransactionHistorySearch toDate(OffsetDateTime toDate) {
+                return new DateRangeSearch(page, fromDate, toDate);
+            }
+        }
+    }
+}
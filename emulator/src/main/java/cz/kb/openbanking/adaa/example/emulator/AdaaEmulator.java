@@ -0,0 +1,303 @@
+package cz.kb.openbanking.adaa.example.emulator;
+
+import java.io.Closeable;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.commons.lang3.StringUtils;
+import org.mockserver.configuration.ConfigurationProperties;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.HttpClassCallback;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+
+/**
+ * Local emulator of the endpoints of the KB ADAA API used by {@code AccountApiJerseyImpl}, so the application
+ * can be load-tested offline: the accounts, the pages of the transaction history, the balances, the statements
+ * and the PDF statements.
+ * <p>
+ * The emulator is a MockServer, whose every request of the {@code /accounts} resources is answered by
+ * {@link EmulatorCallback} from the {@link SyntheticBank}. Every response is delayed by a latency sampled from
+ * the configured {@link LatencyDistribution} and a configured fraction of the requests fails by the 429, 500 or
+ * 503 status, so the retries, timeouts and caches of the application can be measured. Any base path is accepted,
+ * so the {@code adaa-uri} property of the application is just pointed to the emulator
+ * (e.g. {@code http://localhost:8089/open/api/adaa/v1}). Only one emulator can run in the JVM.
+ *
+ * @since 1.2
+ */
+public class AdaaEmulator implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(AdaaEmulator.class.getName());
+
+    private static final Pattern ACCOUNTS = Pattern.compile(".*/accounts/?");
+    private static final Pattern TRANSACTIONS = Pattern.compile(".*/accounts/([^/]+)/transactions/?");
+    private static final Pattern BALANCES = Pattern.compile(".*/accounts/([^/]+)/balances/?");
+    private static final Pattern STATEMENTS = Pattern.compile(".*/accounts/([^/]+)/statements/?");
+    private static final Pattern STATEMENT_PDF = Pattern.compile(".*/accounts/([^/]+)/statements/(\\d+)/?");
+
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String API_KEY_HEADER = "x-api-key";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final int DATE_LENGTH = "yyyy-MM-dd".length();
+
+    private static volatile AdaaEmulator running;
+
+    private final EmulatorSettings settings;
+    private final SyntheticBank bank;
+    private final ObjectMapper objectMapper;
+    private final Random random;
+    private ClientAndServer server;
+
+    /**
+     * New instance.
+     *
+     * @param settings settings of the emulator
+     */
+    public AdaaEmulator(EmulatorSettings settings) {
+        if (settings == null) {
+            throw new IllegalArgumentException("settings must not be null");
+        }
+
+        this.settings = settings;
+        this.bank = new SyntheticBank(settings);
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.random = new Random(settings.getSeed());
+    }
+
+    /**
+     * Starts the emulator, runs it until it is stopped by Ctrl+C.
+     *
+     * @param args optional path to the properties file overriding the bundled {@code emulator.properties}
+     */
+    public static void main(String[] args) {
+        AdaaEmulator emulator = new AdaaEmulator(EmulatorSettings.load(args.length > 0 ? Paths.get(args[0]) : null));
+        emulator.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(emulator::close, "adaa-emulator-shutdown"));
+    }
+
+    /**
+     * Gets the running emulator.
+     *
+     * @return running emulator or {@code null} if no emulator runs
+     */
+    @Nullable
+    static AdaaEmulator getRunning() {
+        return running;
+    }
+
+    /**
+     * Starts the emulator.
+     */
+    public synchronized void start() {
+        if (server != null) {
+            throw new IllegalStateException("Emulator is already started.");
+        }
+        if (running != null) {
+            throw new IllegalStateException("Another emulator is already running.");
+        }
+
+        // the load tests must not be slowed down or run out of memory by the logs of the requests
+        ConfigurationProperties.logLevel("WARN");
+        ConfigurationProperties.disableRequestAudit(true);
+        ConfigurationProperties.nioEventLoopThreadCount(settings.getThreads());
+
+        running = this;
+        server = ClientAndServer.startClientAndServer(settings.getPort());
+        server.when(HttpRequest.request().withMethod("GET").withPath(".*/accounts.*"))
+              .respond(HttpClassCallback.callback(EmulatorCallback.class.getName()));
+
+        LOGGER.log(Level.INFO, "ADAA API emulator listens on {0} ({1} accounts with {2,number,#} transactions each).",
+                new Object[] {getBaseUri(), settings.getAccounts(), settings.getTransactionsPerAccount()});
+    }
+
+    /**
+     * Gets base URI of the emulated API.
+     *
+     * @return base URI
+     */
+    public synchronized String getBaseUri() {
+        if (server == null) {
+            throw new IllegalStateException("Emulator is not started.");
+        }
+        return "http://localhost:" + server.getLocalPort();
+    }
+
+    /**
+     * Gets the synthetic data of the emulator.
+     *
+     * @return synthetic data
+     */
+    public SyntheticBank getBank() {
+        return bank;
+    }
+
+    /**
+     * Stops the emulator.
+     */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop();
+            server = null;
+            running = null;
+        }
+    }
+
+    /**
+     * Handles request of the API.
+     *
+     * @param request request
+     * @return delayed response
+     */
+    HttpResponse handle(HttpRequest request) {
+        return respond(request).withDelay(TimeUnit.MILLISECONDS, settings.getLatencyDistribution().sample(random,
+                settings.getLatencyMinMillis(), settings.getLatencyMedianMillis(), settings.getLatencyMaxMillis()));
+    }
+
+    private HttpResponse respond(HttpRequest request) {
+        if (!StringUtils.startsWith(request.getFirstHeader(AUTHORIZATION_HEADER), BEARER_PREFIX)
+                || StringUtils.isBlank(request.getFirstHeader(API_KEY_HEADER)))
+        {
+            return error(401, "Access token or API key is missing.");
+        }
+
+        double fault = random.nextDouble();
+        if (fault < settings.getThrottleRate()) {
+            return error(429, "Too many requests.").withHeader("Retry-After", "1");
+        }
+        if (fault < settings.getThrottleRate() + settings.getErrorRate()) {
+            return random.nextBoolean() ? error(500, "Emulated internal error.")
+                    : error(503, "Emulated unavailability.");
+        }
+
+        String path = request.getPath().getValue();
+        if (ACCOUNTS.matcher(path).matches()) {
+            return json(bank.getAccounts());
+        }
+
+        Matcher matcher;
+        if ((matcher = TRANSACTIONS.matcher(path)).matches()) {
+            Integer account = bank.getAccountIndex(matcher.group(1));
+            if (account == null) {
+                return accountNotFound();
+            }
+            int page = getInt(request, "page", 0);
+            int size = getInt(request, "size", DEFAULT_PAGE_SIZE);
+            if (page < 0 || size <= 0) {
+                return error(400, "Invalid page or size.");
+            }
+            try {
+                return json(bank.getTransactions(account, getDate(request, "fromDate"), getDate(request, "toDate"),
+                        page, size));
+            } catch (DateTimeParseException e) {
+                return error(400, "Invalid date: " + e.getParsedString());
+            }
+        }
+        if ((matcher = BALANCES.matcher(path)).matches()) {
+            Integer account = bank.getAccountIndex(matcher.group(1));
+            return account == null ? accountNotFound() : json(bank.getBalances(account));
+        }
+        if ((matcher = STATEMENTS.matcher(path)).matches()) {
+            Integer account = bank.getAccountIndex(matcher.group(1));
+            if (account == null) {
+                return accountNotFound();
+            }
+            try {
+                return json(bank.getStatements(account, getDate(request, "dateFrom")));
+            } catch (DateTimeParseException e) {
+                return error(400, "Invalid date: " + e.getParsedString());
+            }
+        }
+        if ((matcher = STATEMENT_PDF.matcher(path)).matches()) {
+            Integer account = bank.getAccountIndex(matcher.group(1));
+            byte[] pdf = account == null ? null : bank.getStatementPdf(account, Long.parseLong(matcher.group(2)));
+            if (pdf == null) {
+                return error(404, "Statement not found.");
+            }
+            return HttpResponse.response()
+                               .withStatusCode(200)
+                               .withHeader("Content-Type", "application/pdf")
+                               .withBody(pdf);
+        }
+
+        return error(404, "Resource not found.");
+    }
+
+    private HttpResponse json(Object body) {
+        try {
+            return HttpResponse.response()
+                               .withStatusCode(200)
+                               .withHeader("Content-Type", "application/json")
+                               .withBody(objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be serialized.", e);
+        }
+    }
+
+    private HttpResponse accountNotFound() {
+        return error(404, "Account not found.");
+    }
+
+    private HttpResponse error(int status, String message) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(Collections.singletonMap("errors",
+                    Collections.singletonList(Collections.singletonMap("message", message))));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Error could not be serialized.", e);
+        }
+        return HttpResponse.response()
+                           .withStatusCode(status)
+                           .withHeader("Content-Type", "application/json")
+                           .withBody(body);
+    }
+
+    private static int getInt(HttpRequest request, String name, int defaultValue) {
+        String value = request.getFirstQueryStringParameter(name);
+        try {
+            return StringUtils.isBlank(value) ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the date of the query parameter, the API defines the dates of the transactions as dates,
+     * but the client sends them as date-times.
+     *
+     * @param request request
+     * @param name    name of the parameter
+     * @return date or {@code null} if the parameter is missing
+     */
+    @Nullable
+    private static LocalDate getDate(HttpRequest request, String name) {
+        String value = request.getFirstQueryStringParameter(name);
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        String date = value.trim();
+        if (date.length() == DATE_LENGTH) {
+            return LocalDate.parse(date);
+        }
+        // '+' of the offset is decoded as a space if the client does not encode it
+        return OffsetDateTime.parse(date.replace(' ', '+')).toLocalDate();
+    }
+}
@@ -0,0 +1,25 @@
+package cz.kb.openbanking.adaa.example.emulator;
+
+import org.mockserver.mock.action.ExpectationResponseCallback;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+
+/**
+ * Callback of the MockServer answering the requests by the running {@link AdaaEmulator}.
+ * <p>
+ * MockServer creates the callback by its class name and calls it in its own threads, which is faster than
+ * a callback object registered over the web socket, so the callback finds the emulator by a static reference.
+ *
+ * @since 1.2
+ */
+public class EmulatorCallback implements ExpectationResponseCallback {
+
+    @Override
+    public HttpResponse handle(HttpRequest request) {
+        AdaaEmulator emulator = AdaaEmulator.getRunning();
+        if (emulator == null) {
+            return HttpResponse.response().withStatusCode(503);
+        }
+        return emulator.handle(request);
+    }
+}
@@ -0,0 +1,246 @@
+package cz.kb.openbanking.adaa.example.emulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Properties;
+import javax.annotation.Nullable;
+
+import cz.kb.openbanking.adaa.example.core.configuration.AdaaConfiguration;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Immutable settings of the {@link AdaaEmulator}.
+ * <p>
+ * The settings are read from the bundled {@code emulator.properties} and can be overridden the same way as the
+ * properties of the application, see {@link AdaaConfiguration}.
+ *
+ * @since 1.2
+ */
+public final class EmulatorSettings {
+    private static final String PROPERTIES_FILE = "/emulator.properties";
+
+    private final int port;
+    private final int threads;
+    private final long seed;
+    private final int accounts;
+    private final int transactionsPerAccount;
+    private final int historyDays;
+    private final LocalDate endDate;
+    private final int statementsPerAccount;
+    private final int statementPdfBytes;
+    private final LatencyDistribution latencyDistribution;
+    private final long latencyMinMillis;
+    private final long latencyMedianMillis;
+    private final long latencyMaxMillis;
+    private final double errorRate;
+    private final double throttleRate;
+
+    private EmulatorSettings(AdaaConfiguration configuration) {
+        this.port = getInt(configuration, "emulator-port", 0);
+        this.threads = getInt(configuration, "emulator-threads", 1);
+        this.seed = Long.parseLong(get(configuration, "emulator-seed"));
+        this.accounts = getInt(configuration, "emulator-accounts", 1);
+        this.transactionsPerAccount = getInt(configuration, "emulator-transactions-per-account", 0);
+        this.historyDays = getInt(configuration, "emulator-history-days", 1);
+        String endDateValue = configuration.get("emulator-end-date");
+        this.endDate = StringUtils.isBlank(endDateValue) ? LocalDate.now() : LocalDate.parse(endDateValue.trim());
+        this.statementsPerAccount = getInt(configuration, "emulator-statements-per-account", 0);
+        this.statementPdfBytes = getInt(configuration, "emulator-statement-pdf-bytes", 0);
+        this.latencyDistribution = LatencyDistribution.valueOf(
+                get(configuration, "emulator-latency-distribution").toUpperCase(Locale.ROOT));
+        this.latencyMinMillis = getInt(configuration, "emulator-latency-min-millis", 0);
+        this.latencyMedianMillis = getInt(configuration, "emulator-latency-median-millis", 0);
+        this.latencyMaxMillis = getInt(configuration, "emulator-latency-max-millis", 0);
+        this.errorRate = getRate(configuration, "emulator-error-rate");
+        this.throttleRate = getRate(configuration, "emulator-throttle-rate");
+
+        if (latencyMinMillis > latencyMedianMillis || latencyMedianMillis > latencyMaxMillis) {
+            throw new IllegalArgumentException("latency must be min <= median <= max");
+        }
+        if (errorRate + throttleRate > 1) {
+            throw new IllegalArgumentException("error and throttle rates must not exceed 1 together");
+        }
+    }
+
+    /**
+     * Loads the settings.
+     *
+     * @param file external properties file, it is ignored if it does not exist
+     * @return settings
+     */
+    public static EmulatorSettings load(@Nullable Path file) {
+        Properties defaults = new Properties();
+        try (InputStream in = EmulatorSettings.class.getResourceAsStream(PROPERTIES_FILE)) {
+            if (in == null) {
+                throw new IllegalStateException("Properties file '" + PROPERTIES_FILE + "' does not exist.");
+            }
+            defaults.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Properties file '" + PROPERTIES_FILE + "' could not be loaded.", e);
+        }
+
+        return new EmulatorSettings(AdaaConfiguration.load(defaults, file, System.getenv(), System.getProperties()));
+    }
+
+    /**
+     * Gets port of the emulator.
+     *
+     * @return port, 0 for a random free port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Gets number of the threads handling the requests.
+     *
+     * @return number of the threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Gets seed of the synthetic data.
+     *
+     * @return seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets number of the accounts of every access token.
+     *
+     * @return number of the accounts
+     */
+    public int getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Gets number of the transactions of every account.
+     *
+     * @return number of the transactions
+     */
+    public int getTransactionsPerAccount() {
+        return transactionsPerAccount;
+    }
+
+    /**
+     * Gets number of days the transactions of an account are spread over.
+     *
+     * @return number of days
+     */
+    public int getHistoryDays() {
+        return historyDays;
+    }
+
+    /**
+     * Gets date of the newest transaction.
+     *
+     * @return date of the newest transaction
+     */
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Gets number of the monthly statements of every account.
+     *
+     * @return number of the statements
+     */
+    public int getStatementsPerAccount() {
+        return statementsPerAccount;
+    }
+
+    /**
+     * Gets size of the PDF statement.
+     *
+     * @return size in bytes
+     */
+    public int getStatementPdfBytes() {
+        return statementPdfBytes;
+    }
+
+    /**
+     * Gets distribution of the latency of the responses.
+     *
+     * @return distribution
+     */
+    public LatencyDistribution getLatencyDistribution() {
+        return latencyDistribution;
+    }
+
+    /**
+     * Gets minimum latency of the responses.
+     *
+     * @return latency in milliseconds
+     */
+    public long getLatencyMinMillis() {
+        return latencyMinMillis;
+    }
+
+    /**
+     * Gets median latency of the responses.
+     *
+     * @return latency in milliseconds
+     */
+    public long getLatencyMedianMillis() {
+        return latencyMedianMillis;
+    }
+
+    /**
+     * Gets maximum latency of the responses.
+     *
+     * @return latency in milliseconds
+     */
+    public long getLatencyMaxMillis() {
+        return latencyMaxMillis;
+    }
+
+    /**
+     * Gets fraction of the requests failed by the server error.
+     *
+     * @return fraction between 0 and 1
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Gets fraction of the requests rejected by the 429 status.
+     *
+     * @return fraction between 0 and 1
+     */
+    public double getThrottleRate() {
+        return throttleRate;
+    }
+
+    private static String get(AdaaConfiguration configuration, String name) {
+        String value = configuration.get(name);
+        if (StringUtils.isBlank(value)) {
+            throw new IllegalArgumentException(name + " must not be empty");
+        }
+        return value.trim();
+    }
+
+    private static int getInt(AdaaConfiguration configuration, String name, int min) {
+        int value = Integer.parseInt(get(configuration, name));
+        if (value < min) {
+            throw new IllegalArgumentException(name + " must be at least " + min);
+        }
+        return value;
+    }
+
+    private static double getRate(AdaaConfiguration configuration, String name) {
+        double value = Double.parseDouble(get(configuration, name));
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,61 @@
+package cz.kb.openbanking.adaa.example.emulator;
+
+import java.util.Random;
+
+/**
+ * Distribution of the latency of the emulated responses.
+ *
+ * @since 1.2
+ */
+public enum LatencyDistribution {
+
+    /**
+     * Always the median latency.
+     */
+    FIXED {
+        @Override
+        long sample(Random random, long minMillis, long medianMillis, long maxMillis) {
+            return medianMillis;
+        }
+    },
+
+    /**
+     * Latency uniformly distributed between the minimum and the maximum.
+     */
+    UNIFORM {
+        @Override
+        long sample(Random random, long minMillis, long medianMillis, long maxMillis) {
+            return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+        }
+    },
+
+    /**
+     * Long-tailed latency of the real services: log-normal distribution with the median latency and
+     * the maximum latency as its 99th percentile, limited by the minimum and the maximum.
+     */
+    LOGNORMAL {
+        @Override
+        long sample(Random random, long minMillis, long medianMillis, long maxMillis) {
+            double sigma = Math.log((double) Math.max(maxMillis, medianMillis + 1) / Math.max(medianMillis, 1))
+                    / Z_99;
+            long latency = Math.round(Math.max(medianMillis, 1) * Math.exp(sigma * random.nextGaussian()));
+            return Math.min(maxMillis, Math.max(minMillis, latency));
+        }
+    };
+
+    /**
+     * 99th percentile of the standard normal distribution.
+     */
+    private static final double Z_99 = 2.326;
+
+    /**
+     * Samples the latency.
+     *
+     * @param random       source of randomness
+     * @param minMillis    minimum latency in milliseconds
+     * @param medianMillis median latency in milliseconds
+     * @param maxMillis    maximum latency in milliseconds
+     * @return latency in milliseconds
+     */
+    abstract long sample(Random random, long minMillis, long medianMillis, long maxMillis);
+}
@@ -0,0 +1,352 @@
+package cz.kb.openbanking.adaa.example.emulator;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+import cz.kb.openbanking.adaa.client.model.generated.Account;
+import cz.kb.openbanking.adaa.client.model.generated.AccountBalance;
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import cz.kb.openbanking.adaa.client.model.generated.AccountType;
+import cz.kb.openbanking.adaa.client.model.generated.CreditDebitIndicator;
+import cz.kb.openbanking.adaa.client.model.generated.CurrencyAmount;
+import cz.kb.openbanking.adaa.client.model.generated.PageSlice;
+import cz.kb.openbanking.adaa.client.model.generated.Statement;
+import cz.kb.openbanking.adaa.client.model.generated.TransactionCounterparty;
+import cz.kb.openbanking.adaa.client.model.generated.TransactionReferences;
+import cz.kb.openbanking.adaa.client.model.generated.TransactionType;
+
+/**
+ * Deterministic synthetic data of the {@link AdaaEmulator}.
+ * <p>
+ * Nothing is stored: every transaction, statement and PDF is generated on request from the seed, the account and
+ * its index, so the same settings always produce the same data and accounts with millions of transactions take
+ * no memory. The transactions of an account are ordered from the newest one and spread evenly over the history
+ * days, so the transactions of a period are found by a binary search.
+ *
+ * @since 1.2
+ */
+public class SyntheticBank {
+    private static final String CURRENCY = "CZK";
+    private static final String BANK_CODE = "0100";
+    private static final int COUNTERPARTIES = 50;
+    private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+    private static final BigInteger IBAN_MODULUS = BigInteger.valueOf(97);
+
+    private final EmulatorSettings settings;
+    private final List<Account> accounts;
+    private final Map<String, Integer> accountIndexes;
+    private final List<TransactionCounterparty> counterparties;
+
+    /**
+     * New instance.
+     *
+     * @param settings settings of the emulator
+     */
+    public SyntheticBank(EmulatorSettings settings) {
+        if (settings == null) {
+            throw new IllegalArgumentException("settings must not be null");
+        }
+
+        this.settings = settings;
+        List<Account> accountList = new ArrayList<>();
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < settings.getAccounts(); i++) {
+            Account account = new Account();
+            account.setAccountId(UUID.nameUUIDFromBytes(("account-" + settings.getSeed() + "-" + i)
+                    .getBytes(StandardCharsets.UTF_8)).toString());
+            account.setIban(iban(random(i, -1).nextInt(1_000_000_000)));
+            account.setCurrency(CURRENCY);
+            accountList.add(account);
+            indexes.put(account.getAccountId(), i);
+        }
+        this.accounts = Collections.unmodifiableList(accountList);
+        this.accountIndexes = indexes;
+
+        List<TransactionCounterparty> counterpartyList = new ArrayList<>();
+        Random random = new Random(settings.getSeed());
+        for (int i = 0; i < COUNTERPARTIES; i++) {
+            int accountNo = random.nextInt(1_000_000_000);
+            TransactionCounterparty counterparty = new TransactionCounterparty();
+            counterparty.setName("Counterparty " + i);
+            counterparty.setAccountNo(String.valueOf(accountNo));
+            counterparty.setBankCode(BANK_CODE);
+            counterparty.setIban(iban(accountNo));
+            counterpartyList.add(counterparty);
+        }
+        this.counterparties = Collections.unmodifiableList(counterpartyList);
+    }
+
+    /**
+     * Gets the accounts, the same for every access token.
+     *
+     * @return accounts
+     */
+    public List<Account> getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Gets index of the account.
+     *
+     * @param accountId ID of the account
+     * @return index of the account or {@code null} if the account does not exist
+     */
+    @Nullable
+    public Integer getAccountIndex(String accountId) {
+        return accountIndexes.get(accountId);
+    }
+
+    /**
+     * Gets page of the transactions of the account in the period.
+     *
+     * @param accountIndex index of the account
+     * @param fromDate     first day of the period or {@code null} for the oldest transaction
+     * @param toDate       last day of the period or {@code null} for the newest transaction
+     * @param page         number of the page, from 0
+     * @param size         size of the page
+     * @return page of the transactions
+     */
+    public PageSlice getTransactions(int accountIndex, @Nullable LocalDate fromDate, @Nullable LocalDate toDate,
+                                     int page, int size)
+    {
+        if (page < 0) {
+            throw new IllegalArgumentException("page must not be negative");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+
+        // the newest transaction has index 0, so the period starts by its last day
+        int start = toDate == null ? 0 : firstTransactionBefore(accountIndex, toDate.plusDays(1));
+        int end = fromDate == null ? settings.getTransactionsPerAccount() : firstTransactionBefore(accountIndex, fromDate);
+        int count = Math.max(0, end - start);
+        int totalPages = (count + size - 1) / size;
+
+        List<AccountTransaction> content = new ArrayList<>();
+        long first = start + (long) page * size;
+        for (long i = first; i < Math.min(first + size, end); i++) {
+            content.add(getTransaction(accountIndex, (int) i));
+        }
+
+        return new PageSlice()
+                .content(content)
+                .totalPages(totalPages)
+                .pageNumber(page)
+                .pageSize(size)
+                .numberOfElements(content.size())
+                .first(page == 0)
+                .last(page >= totalPages - 1)
+                .empty(content.isEmpty());
+    }
+
+    /**
+     * Generates the transaction.
+     *
+     * @param accountIndex index of the account
+     * @param index        index of the transaction, 0 for the newest one
+     * @return transaction
+     */
+    public AccountTransaction getTransaction(int accountIndex, int index) {
+        Random random = random(accountIndex, index);
+        LocalDate date = getTransactionDate(index);
+        boolean fee = random.nextInt(20) == 0;
+        boolean credit = !fee && random.nextBoolean();
+
+        AccountTransaction transaction = new AccountTransaction();
+        transaction.setLastUpdated(date.atTime(12, 0).atOffset(ZoneOffset.UTC));
+        transaction.setAccountType(AccountType.KB);
+        transaction.setEntryReference(accountIndex + "-" + index);
+        transaction.setIban(accounts.get(accountIndex).getIban());
+        transaction.setCreditDebitIndicator(credit ? CreditDebitIndicator.CREDIT : CreditDebitIndicator.DEBIT);
+        transaction.setTransactionType(fee ? TransactionType.FEE
+                : TRANSACTION_TYPES[random.nextInt(TRANSACTION_TYPES.length)]);
+        transaction.setAmount(amount(fee ? 10 + random.nextInt(90) : random.nextInt(5_000_000) / 100.0));
+        transaction.setBookingDate(date);
+        transaction.setValueDate(date);
+        transaction.setReversalIndicator(false);
+        transaction.setStatus("BOOK");
+        if (!fee) {
+            transaction.setCounterParty(counterparties.get(random.nextInt(COUNTERPARTIES)));
+            TransactionReferences references = new TransactionReferences();
+            references.setVariable(String.valueOf(random.nextInt(1_000_000_000)));
+            references.setConstant("0308");
+            transaction.setReferences(references);
+        }
+        return transaction;
+    }
+
+    /**
+     * Gets the balance of the account.
+     *
+     * @param accountIndex index of the account
+     * @return balances
+     */
+    public List<AccountBalance> getBalances(int accountIndex) {
+        AccountBalance balance = new AccountBalance();
+        balance.setType(AccountBalance.TypeEnum.CLOSING_AVAILABLE);
+        balance.setCreditDebitIndicator(CreditDebitIndicator.CREDIT);
+        balance.setAmount(amount(random(accountIndex, -2).nextInt(100_000_000) / 100.0));
+        balance.setValidAt(settings.getEndDate().atStartOfDay().atOffset(ZoneOffset.UTC));
+        return Collections.singletonList(balance);
+    }
+
+    /**
+     * Gets the monthly statements of the account issued since the date.
+     *
+     * @param accountIndex index of the account
+     * @param dateFrom     first day or {@code null} for all statements
+     * @return statements, from the newest one
+     */
+    public List<Statement> getStatements(int accountIndex, @Nullable LocalDate dateFrom) {
+        List<Statement> statements = new ArrayList<>();
+        for (int i = 0; i < settings.getStatementsPerAccount(); i++) {
+            Statement statement = getStatement(accountIndex, i);
+            if (dateFrom != null && statement.getIssued().isBefore(dateFrom)) {
+                break;
+            }
+            statements.add(statement);
+        }
+        return statements;
+    }
+
+    /**
+     * Generates the PDF statement.
+     *
+     * @param accountIndex index of the account
+     * @param statementId  ID of the statement
+     * @return content of the PDF file or {@code null} if the statement does not exist
+     */
+    @Nullable
+    public byte[] getStatementPdf(int accountIndex, long statementId) {
+        long index = statementId - statementIdBase(accountIndex);
+        if (index < 0 || index >= settings.getStatementsPerAccount()) {
+            return null;
+        }
+        Statement statement = getStatement(accountIndex, (int) index);
+
+        // minimal valid PDF, filled up to the configured size by comment lines
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream(settings.getStatementPdfBytes() + 1024);
+        List<Integer> offsets = new ArrayList<>();
+        write(pdf, "%PDF-1.4\n");
+        String text = "BT /F1 12 Tf 72 720 Td (Statement " + statement.getSequenceNumber() + " of "
+                + accounts.get(accountIndex).getIban() + ", issued " + statement.getIssued() + ") Tj ET";
+        String[] objects = {
+            "<< /Type /Catalog /Pages 2 0 R >>",
+            "<< /Type /Pages /Kids [3 0 R] /Count 1 >>",
+            "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792] /Contents 4 0 R"
+                    + " /Resources << /Font << /F1 5 0 R >> >> >>",
+            "<< /Length " + text.length() + " >>\nstream\n" + text + "\nendstream",
+            "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica >>"
+        };
+        for (int i = 0; i < objects.length; i++) {
+            offsets.add(pdf.size());
+            write(pdf, (i + 1) + " 0 obj\n" + objects[i] + "\nendobj\n");
+        }
+        Random random = random(accountIndex, (int) -statementId);
+        while (pdf.size() < settings.getStatementPdfBytes() - 256) {
+            write(pdf, "%" + Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()) + "\n");
+        }
+        int xref = pdf.size();
+        StringBuilder trailer = new StringBuilder("xref\n0 " + (objects.length + 1) + "\n0000000000 65535 f \n");
+        for (int offset : offsets) {
+            trailer.append(String.format("%010d 00000 n \n", offset));
+        }
+        trailer.append("trailer\n<< /Size ").append(objects.length + 1).append(" /Root 1 0 R >>\nstartxref\n")
+               .append(xref).append("\n%%EOF\n");
+        write(pdf, trailer.toString());
+        return pdf.toByteArray();
+    }
+
+    /**
+     * Gets date of the transaction.
+     *
+     * @param index index of the transaction, 0 for the newest one
+     * @return date of the transaction
+     */
+    LocalDate getTransactionDate(int index) {
+        return settings.getEndDate().minusDays((long) index * settings.getHistoryDays()
+                / Math.max(1, settings.getTransactionsPerAccount()));
+    }
+
+    /**
+     * Finds the first transaction (the newest one) made before the date.
+     *
+     * @param accountIndex index of the account
+     * @param date         date
+     * @return index of the transaction or the number of the transactions if there is no such transaction
+     */
+    private int firstTransactionBefore(int accountIndex, LocalDate date) {
+        int low = 0;
+        int high = settings.getTransactionsPerAccount();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getTransactionDate(middle).isBefore(date)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private Statement getStatement(int accountIndex, int index) {
+        Statement statement = new Statement();
+        statement.setIssued(settings.getEndDate().withDayOfMonth(1).minusMonths(index));
+        statement.setSequenceNumber(settings.getStatementsPerAccount() - index);
+        statement.setPagesCount(1 + random(accountIndex, -3 - index).nextInt(5));
+        statement.setStatementId(statementIdBase(accountIndex) + index);
+        statement.setArchive(false);
+        return statement;
+    }
+
+    private static long statementIdBase(int accountIndex) {
+        return 1_000_000L * (accountIndex + 1);
+    }
+
+    /**
+     * Creates source of randomness of one generated item.
+     *
+     * @param accountIndex index of the account
+     * @param index        index of the item
+     * @return random generator
+     */
+    private Random random(int accountIndex, int index) {
+        return new Random(settings.getSeed() * 31 * 31 + accountIndex * 31L + index * 1_000_003L);
+    }
+
+    /**
+     * Creates valid Czech IBAN of the account of the bank.
+     *
+     * @param accountNo number of the account
+     * @return IBAN
+     */
+    private static String iban(int accountNo) {
+        String bban = BANK_CODE + "000000" + String.format("%010d", accountNo);
+        // CZ is 1235, the check digits are computed for 00
+        int checkDigits = 98 - new BigInteger(bban + "123500").mod(IBAN_MODULUS).intValue();
+        return String.format("CZ%02d%s", checkDigits, bban);
+    }
+
+    private static CurrencyAmount amount(double value) {
+        CurrencyAmount amount = new CurrencyAmount();
+        amount.setValue(value);
+        amount.setCurrency(CURRENCY);
+        return amount;
+    }
+
+    private static void write(ByteArrayOutputStream out, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        out.write(bytes, 0, bytes.length);
+    }
+}
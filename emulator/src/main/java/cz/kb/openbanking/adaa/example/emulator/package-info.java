@@ -0,0 +1,4 @@
+/**
+ * Contains local emulator of the KB ADAA API for the load tests.
+ */
+package cz.kb.openbanking.adaa.example.emulator;
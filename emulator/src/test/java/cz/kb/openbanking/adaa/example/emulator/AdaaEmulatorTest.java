@@ -0,0 +1,156 @@
+package cz.kb.openbanking.adaa.example.emulator;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.ext.ContextResolver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import cz.kb.openbanking.adaa.client.api.AccountApi;
+import cz.kb.openbanking.adaa.client.api.model.PageSlice;
+import cz.kb.openbanking.adaa.client.jersey.AccountApiJerseyImpl;
+import cz.kb.openbanking.adaa.client.model.generated.Account;
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import cz.kb.openbanking.adaa.client.model.generated.Statement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link AdaaEmulator}.
+ *
+ * @since 1.2
+ */
+class AdaaEmulatorTest {
+    private static final String ACCESS_TOKEN = "token";
+    private static final LocalDate END_DATE = LocalDate.of(2020, 3, 31);
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test method for {@link AdaaEmulator#start()}.
+     */
+    @Test
+    void testServesAccountApi() throws Exception {
+        EmulatorSettings settings = settings("emulator-error-rate=0\nemulator-latency-distribution=FIXED\n"
+                + "emulator-latency-min-millis=0\nemulator-latency-median-millis=0\n");
+        Client client = ClientBuilder.newClient()
+                .register(new ObjectMapperResolver());
+
+        try (AdaaEmulator emulator = new AdaaEmulator(settings)) {
+            emulator.start();
+            AccountApi accountApi = new AccountApiJerseyImpl(emulator.getBaseUri() + "/open/api/adaa/v1", "key",
+                    client);
+
+            List<Account> accounts = accountApi.accounts(ACCESS_TOKEN).find();
+            assertThat(accounts).hasSize(2);
+            String accountId = accounts.get(1).getAccountId();
+
+            // all pages of one month, the history has 10 transactions per day
+            List<AccountTransaction> transactions = new ArrayList<>();
+            PageSlice<AccountTransaction> page;
+            int pageNumber = 0;
+            do {
+                page = accountApi.transactions(accountId, ACCESS_TOKEN)
+                                 .fromDate(OffsetDateTime.of(2020, 3, 1, 0, 0, 0, 0, ZoneOffset.ofHours(1)))
+                                 .toDate(OffsetDateTime.of(2020, 3, 31, 0, 0, 0, 0, ZoneOffset.ofHours(1)))
+                                 .page(pageNumber++)
+                                 .size(50)
+                                 .find();
+                transactions.addAll(page.getContent());
+            } while (!page.isLast());
+            assertThat(transactions).hasSize(310);
+            assertThat(transactions).allSatisfy(transaction -> assertThat(transaction.getValueDate())
+                    .isBetween(LocalDate.of(2020, 3, 1), END_DATE));
+            assertThat(transactions.get(0)).isEqualTo(emulator.getBank().getTransaction(1, 0));
+
+            assertThat(accountApi.balances(accountId, ACCESS_TOKEN).find()).hasSize(1);
+
+            List<Statement> statements = accountApi.statements(accountId, ACCESS_TOKEN,
+                    OffsetDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)).find();
+            assertThat(statements).hasSize(3);
+
+            byte[] pdf = accountApi.statementPdf(accountId, ACCESS_TOKEN, statements.get(0).getStatementId()).find();
+            assertThat(pdf.length).isBetween(3800, 4400);
+            assertThat(new String(pdf, 0, 8, StandardCharsets.US_ASCII)).isEqualTo("%PDF-1.4");
+        } finally {
+            client.close();
+        }
+    }
+
+    /**
+     * Test method for {@link SyntheticBank#getTransaction(int, int)}.
+     */
+    @Test
+    void testSyntheticDataAreDeterministic() throws Exception {
+        EmulatorSettings settings = settings("");
+        SyntheticBank bank = new SyntheticBank(settings);
+        SyntheticBank sameBank = new SyntheticBank(settings);
+
+        assertThat(bank.getAccounts()).isEqualTo(sameBank.getAccounts());
+        assertThat(bank.getTransaction(0, 1234)).isEqualTo(sameBank.getTransaction(0, 1234));
+        assertThat(bank.getStatementPdf(0, bank.getStatements(0, null).get(5).getStatementId()))
+                .isEqualTo(sameBank.getStatementPdf(0, sameBank.getStatements(0, null).get(5).getStatementId()));
+        assertThat(bank.getTransactions(0, null, null, 0, 10).getTotalPages()).isEqualTo(366);
+    }
+
+    /**
+     * Test method for {@link AdaaEmulator#handle(HttpRequest)}.
+     */
+    @Test
+    void testInjectsErrorsAndLatency() throws Exception {
+        EmulatorSettings settings = settings("emulator-error-rate=0.5\nemulator-throttle-rate=0.5\n"
+                + "emulator-latency-distribution=UNIFORM\n");
+        AdaaEmulator emulator = new AdaaEmulator(settings);
+
+        for (int i = 0; i < 100; i++) {
+            HttpResponse response = emulator.handle(HttpRequest.request("/accounts")
+                                                               .withHeader("Authorization", "Bearer " + ACCESS_TOKEN)
+                                                               .withHeader("x-api-key", "Bearer key"));
+            assertThat(response.getStatusCode()).isIn(429, 500, 503);
+            assertThat(response.getDelay().getValue()).isBetween(20L, 1000L);
+        }
+
+        HttpResponse unauthorized = emulator.handle(HttpRequest.request("/accounts"));
+        assertThat(unauthorized.getStatusCode()).isEqualTo(401);
+    }
+
+    /**
+     * Loads settings with small data set.
+     *
+     * @param overrides overriding properties
+     * @return settings
+     */
+    private EmulatorSettings settings(String overrides) throws Exception {
+        Path file = directory.resolve("emulator.properties");
+        String properties = "emulator-port=0\nemulator-threads=2\nemulator-accounts=2\n"
+                + "emulator-transactions-per-account=3660\nemulator-history-days=366\nemulator-end-date=" + END_DATE
+                + "\nemulator-statements-per-account=12\nemulator-statement-pdf-bytes=4096\n" + overrides;
+        Files.write(file, properties.getBytes(StandardCharsets.UTF_8));
+        return EmulatorSettings.load(file);
+    }
+
+    /**
+     * Object mapper of the client that reads the dates of the transactions.
+     */
+    private static final class ObjectMapperResolver implements ContextResolver<ObjectMapper> {
+        private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+        @Override
+        public ObjectMapper getContext(Class<?> type) {
+            return objectMapper;
+        }
+    }
+}
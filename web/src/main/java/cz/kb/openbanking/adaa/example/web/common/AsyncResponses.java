@@ -0,0 +1,113 @@
+package cz.kb.openbanking.adaa.example.web.common;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * Helpers for resources that process requests asynchronously by {@link AsyncResponse}.
+ *
+ * @since 1.2
+ */
+public final class AsyncResponses {
+    private static final Logger LOGGER = Logger.getLogger(AsyncResponses.class.getName());
+
+    /**
+     * Number of seconds after which a client should retry the request rejected because of a full executor.
+     */
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    /**
+     * Resumes the suspended response with the result of the stage once it is completed.
+     * A failed stage resumes the response with its cause, so it is mapped to the response as if it was thrown
+     * by a synchronous resource method.
+     * <p>
+     * A {@link Closeable} entity (e.g. {@link CloseableStreamingOutput}) is closed when the request is completed,
+     * so its resource is released even if the entity is never written.
+     *
+     * @param asyncResponse suspended response
+     * @param result        stage with the response entity
+     */
+    public static void resumeWhenComplete(AsyncResponse asyncResponse, CompletionStage<?> result) {
+        if (asyncResponse == null) {
+            throw new IllegalArgumentException("asyncResponse must not be null");
+        }
+        if (result == null) {
+            throw new IllegalArgumentException("result must not be null");
+        }
+
+        result.whenComplete((entity, error) -> {
+            if (error == null) {
+                resume(asyncResponse, entity);
+            } else if (error instanceof CompletionException && error.getCause() != null) {
+                asyncResponse.resume(error.getCause());
+            } else {
+                asyncResponse.resume(error);
+            }
+        });
+    }
+
+    /**
+     * Resumes the suspended response with the entity and releases the closeable entity once the request is completed.
+     *
+     * @param asyncResponse suspended response
+     * @param entity        response or response entity
+     */
+    private static void resume(AsyncResponse asyncResponse, @Nullable Object entity) {
+        Object content = entity instanceof Response ? ((Response) entity).getEntity() : entity;
+        if (!(content instanceof Closeable)) {
+            asyncResponse.resume(entity);
+            return;
+        }
+
+        Closeable closeableContent = (Closeable) content;
+        try {
+            asyncResponse.register((CompletionCallback) failure -> closeQuietly(closeableContent));
+        } catch (IllegalStateException e) {
+            // the request is cancelled or resumed already
+            closeQuietly(closeableContent);
+            return;
+        }
+        if (!asyncResponse.resume(entity)) {
+            closeQuietly(closeableContent);
+        }
+    }
+
+    /**
+     * Closes the content that was not written.
+     *
+     * @param content content
+     */
+    private static void closeQuietly(Closeable content) {
+        try {
+            content.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Content of the response could not be closed.", e);
+        }
+    }
+
+    /**
+     * Creates response for a request that was rejected because the executor of the requests is full.
+     *
+     * @return 503 (Service Unavailable) response
+     */
+    public static Response serviceUnavailable() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                       .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                       .build();
+    }
+
+    /**
+     * No instance.
+     */
+    private AsyncResponses() {
+    }
+}
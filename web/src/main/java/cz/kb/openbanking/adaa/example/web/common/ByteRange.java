@@ -0,0 +1,160 @@
+package cz.kb.openbanking.adaa.example.web.common;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Single byte range of the HTTP {@code Range} request header (RFC 7233).
+ * <p>
+ * Only one range of bytes is supported, a header with multiple ranges or other units is ignored
+ * and the whole representation is served, as the specification allows.
+ *
+ * @since 1.2
+ */
+public final class ByteRange {
+
+    /**
+     * Name of the request header with the requested ranges.
+     */
+    public static final String RANGE_HEADER = "Range";
+
+    /**
+     * Name of the request header that makes the range conditional.
+     */
+    public static final String IF_RANGE_HEADER = "If-Range";
+
+    /**
+     * Name of the response header that announces support of the ranges.
+     */
+    public static final String ACCEPT_RANGES_HEADER = "Accept-Ranges";
+
+    /**
+     * Name of the response header with the served range.
+     */
+    public static final String CONTENT_RANGE_HEADER = "Content-Range";
+
+    /**
+     * The only supported range unit.
+     */
+    public static final String BYTES_UNIT = "bytes";
+
+    private static final String BYTES_PREFIX = BYTES_UNIT + "=";
+
+    private final long first;
+    private final long last;
+    private final long length;
+
+    private ByteRange(long first, long last, long length) {
+        this.first = first;
+        this.last = last;
+        this.length = length;
+    }
+
+    /**
+     * Parses the {@code Range} header.
+     *
+     * @param range  value of the header
+     * @param length length of the whole representation
+     * @return requested range, possibly unsatisfiable, or {@code null} if the whole representation is to be served
+     */
+    @Nullable
+    public static ByteRange parse(@Nullable String range, long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length must not be negative");
+        }
+        if (range == null || !range.startsWith(BYTES_PREFIX) || range.indexOf(',') >= 0) {
+            return null;
+        }
+
+        String spec = range.substring(BYTES_PREFIX.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        String firstPos = spec.substring(0, dash).trim();
+        String lastPos = spec.substring(dash + 1).trim();
+        if (!isEmptyOrNumeric(firstPos) || !isEmptyOrNumeric(lastPos)) {
+            return null;
+        }
+
+        if (firstPos.isEmpty()) {
+            // suffix range: the last N bytes
+            if (lastPos.isEmpty()) {
+                return null;
+            }
+            return new ByteRange(Math.max(0, length - parsePosition(lastPos)), length - 1, length);
+        }
+
+        long first = parsePosition(firstPos);
+        long last = lastPos.isEmpty() ? Long.MAX_VALUE : parsePosition(lastPos);
+        if (last < first) {
+            // syntactically invalid range is ignored
+            return null;
+        }
+        return new ByteRange(first, Math.min(last, length - 1), length);
+    }
+
+    /**
+     * Parses the position of the range, positions beyond any representation are limited.
+     *
+     * @param position numeric position
+     * @return position
+     */
+    private static long parsePosition(String position) {
+        try {
+            return Long.parseLong(position);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Checks whether the position of the range is empty or a number.
+     *
+     * @param position position of the range
+     * @return {@code true} if the position is valid
+     */
+    private static boolean isEmptyOrNumeric(String position) {
+        return position.isEmpty() || StringUtils.isNumeric(position);
+    }
+
+    /**
+     * Checks whether the range overlaps the representation.
+     *
+     * @return {@code true} if the range can be served, {@code false} for 416 (Range Not Satisfiable)
+     */
+    public boolean isSatisfiable() {
+        return first < length && first <= last;
+    }
+
+    /**
+     * Gets position of the first byte of the range.
+     *
+     * @return position of the first byte
+     */
+    public long getFirst() {
+        return first;
+    }
+
+    /**
+     * Gets number of bytes of the range.
+     *
+     * @return number of bytes
+     */
+    public long getCount() {
+        return last - first + 1;
+    }
+
+    /**
+     * Gets value of the {@code Content-Range} response header.
+     *
+     * @return served range of the satisfiable range, the length of the representation otherwise
+     */
+    public String toContentRange() {
+        if (isSatisfiable()) {
+            return BYTES_UNIT + " " + first + "-" + last + "/" + length;
+        }
+        return BYTES_UNIT + " */" + length;
+    }
+}
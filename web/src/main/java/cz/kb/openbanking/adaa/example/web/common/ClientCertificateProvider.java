@@ -1,31 +1,80 @@
 package cz.kb.openbanking.adaa.example.web.common;
 
 import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getClientCertPassword;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getHttpPoolMaxPerRoute;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getHttpPoolMaxTotal;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getHttpPoolValidateAfterInactivity;
 import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getKeystorePassword;
 import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getKeystorePath;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTlsSessionCacheSize;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTlsSessionTimeoutSeconds;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.isKeystoreWatchEnabled;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
+import java.util.Enumeration;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.annotation.Nullable;
 import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 
-import org.glassfish.jersey.SslConfigurator;
+import cz.kb.openbanking.adaa.example.core.configuration.FileChangeWatcher;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.apache.connector.ApacheHttpClientBuilderConfigurator;
+import org.glassfish.jersey.client.ClientConfig;
 
 /**
  * Ensures SSL communication by adding client certificate.
  * JKS keystore with client certificate must be provided.
+ * <p>
+ * One {@link SSLContext} is shared by all clients, so its client session cache lets TLS connections to the KB
+ * APIs resume the sessions instead of doing full handshakes. The keystore is watched and a rotated certificate
+ * is swapped into the context by {@link ReloadableKeyManager} without a restart, the cached sessions
+ * of the old certificate are invalidated then.
  *
  * @author <a href="mailto:aleh_kuchynski@kb.cz">Aleh Kuchynski</a>
  * @since 1.0
  */
 public class ClientCertificateProvider {
+    private static final Logger LOGGER = Logger.getLogger(ClientCertificateProvider.class.getName());
+
+    /**
+     * Watcher of the keystore, {@code null} until the shared {@link SSLContext} is created or if it is disabled.
+     */
+    @Nullable
+    private static volatile FileChangeWatcher keystoreWatcher;
+
+    /**
+     * Gets process-wide shared {@link Client} with set client certificate.
+     * The client is backed by a bounded pool of keep-alive connections, so TLS sessions
+     * and connections to the KB APIs are reused across requests and resources.
+     *
+     * @return shared {@link Client} with set client certificate
+     */
+    public static Client getSharedClient() {
+        return SharedClientHolder.CLIENT;
+    }
 
     /**
      * Gets {@link Client} with set client certificate.
@@ -36,20 +85,7 @@ public class ClientCertificateProvider {
      * @return {@link Client} with set client certificate
      */
     public static Client getClientWithCertificate(@Nullable Client client) {
-        KeyStore clientKeyStore = null;
-        try {
-            clientKeyStore = KeyStore.getInstance("JKS");
-            clientKeyStore.load(new FileInputStream(getKeystorePath()), getKeystorePassword().toCharArray());
-        } catch (NoSuchAlgorithmException | CertificateException | KeyStoreException | IOException e) {
-            throw new IllegalStateException("Error was occurred during getting a keystore with a client certificate. " +
-                    "Error: " + e.getMessage(), e);
-        }
-
-        SslConfigurator sslConfig = SslConfigurator.newInstance()
-                .keyStore(clientKeyStore)
-                .keyStorePassword(getKeystorePassword())
-                .keyPassword(getClientCertPassword());
-        SSLContext sslContext = sslConfig.createSSLContext();
+        SSLContext sslContext = SslContextHolder.SSL_CONTEXT;
 
         if (client == null) {
             return ClientBuilder.newBuilder()
@@ -61,4 +97,126 @@ public class ClientCertificateProvider {
         client.getSslContext().setDefault(sslContext);
         return client;
     }
+
+    /**
+     * Creates {@link Client} backed by Apache HTTP client with a pooling connection manager.
+     *
+     * @return pooled {@link Client} with set client certificate
+     */
+    private static Client createPooledClient() {
+        SSLContext sslContext = SslContextHolder.SSL_CONTEXT;
+
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext,
+                        HttpsURLConnection.getDefaultHostnameVerifier()))
+                .build();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        connectionManager.setMaxTotal(getHttpPoolMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(getHttpPoolMaxPerRoute());
+        connectionManager.setValidateAfterInactivity(getHttpPoolValidateAfterInactivity());
+
+        ClientConfig clientConfig = new ClientConfig()
+                .connectorProvider(new ApacheConnectorProvider())
+                .property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager)
+                // connections authenticated by the client certificate are otherwise marked as stateful
+                // and would never be leased again for a request without the same user token
+                .register((ApacheHttpClientBuilderConfigurator) HttpClientBuilder::disableConnectionState);
+
+        return ClientBuilder.newBuilder()
+                .withConfig(clientConfig)
+                .hostnameVerifier(HttpsURLConnection.getDefaultHostnameVerifier())
+                .sslContext(sslContext)
+                .build();
+    }
+
+    /**
+     * Stops watching of the keystore, must be called when the application is shut down.
+     */
+    public static void shutdown() {
+        FileChangeWatcher watcher = keystoreWatcher;
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Creates {@link SSLContext} with the client certificate of the key manager and a tuned client session cache.
+     *
+     * @param keyManager key manager with the client certificate
+     * @return {@link SSLContext} with the client certificate
+     */
+    private static SSLContext createSslContext(KeyManager keyManager) {
+        SSLContext sslContext;
+        try {
+            sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(new KeyManager[] {keyManager}, null, null);
+        } catch (NoSuchAlgorithmException | KeyManagementException e) {
+            throw new IllegalStateException("SSL context could not be created.", e);
+        }
+
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        sessionContext.setSessionCacheSize(getTlsSessionCacheSize());
+        sessionContext.setSessionTimeout(getTlsSessionTimeoutSeconds());
+        return sslContext;
+    }
+
+    /**
+     * Loads the configured JKS keystore with the client certificate.
+     *
+     * @return keystore with the client certificate
+     */
+    private static KeyStore loadKeyStore() {
+        KeyStore clientKeyStore;
+        try (InputStream keystoreStream = new FileInputStream(getKeystorePath())) {
+            clientKeyStore = KeyStore.getInstance("JKS");
+            clientKeyStore.load(keystoreStream, getKeystorePassword().toCharArray());
+        } catch (NoSuchAlgorithmException | CertificateException | KeyStoreException | IOException e) {
+            throw new IllegalStateException("Error was occurred during getting a keystore with a client certificate. " +
+                    "Error: " + e.getMessage(), e);
+        }
+        return clientKeyStore;
+    }
+
+    /**
+     * Reloads the rotated client certificate. Cached TLS sessions were authenticated by the old certificate,
+     * so they are invalidated and the next connections do full handshakes with the new one. A keystore that
+     * cannot be loaded (e.g. it is being written) is ignored and the old certificate stays in use.
+     */
+    private static void reloadKeyStore() {
+        SslContextHolder.KEY_MANAGER.reload(loadKeyStore(), getClientCertPassword().toCharArray());
+
+        SSLSessionContext sessionContext = SslContextHolder.SSL_CONTEXT.getClientSessionContext();
+        for (Enumeration<byte[]> ids = sessionContext.getIds(); ids.hasMoreElements(); ) {
+            SSLSession session = sessionContext.getSession(ids.nextElement());
+            if (session != null) {
+                session.invalidate();
+            }
+        }
+        LOGGER.log(Level.INFO, "Client certificate was reloaded from {0}.", getKeystorePath());
+    }
+
+    /**
+     * Lazily initialized holder of the shared {@link SSLContext}.
+     */
+    private static final class SslContextHolder {
+        private static final ReloadableKeyManager KEY_MANAGER = new ReloadableKeyManager(loadKeyStore(),
+                getClientCertPassword().toCharArray());
+        private static final SSLContext SSL_CONTEXT = createSslContext(KEY_MANAGER);
+
+        static {
+            if (isKeystoreWatchEnabled()) {
+                keystoreWatcher = new FileChangeWatcher(Paths.get(getKeystorePath()),
+                        ClientCertificateProvider::reloadKeyStore, "adaa-keystore-watcher");
+            }
+        }
+    }
+
+    /**
+     * Lazily initialized holder of the shared {@link Client}.
+     */
+    private static final class SharedClientHolder {
+        private static final Client CLIENT = createPooledClient();
+    }
 }
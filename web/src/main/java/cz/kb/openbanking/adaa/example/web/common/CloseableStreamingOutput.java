@@ -0,0 +1,65 @@
+package cz.kb.openbanking.adaa.example.web.common;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * {@link StreamingOutput} that owns an already open resource, e.g. a response of a pooled connection or a file.
+ * <p>
+ * The resource is closed once the content is written. If the content is never written (the response could not be
+ * resumed, the request was cancelled or failed before the entity was written), the resource is closed
+ * by {@link #close()}, see {@link AsyncResponses#resumeWhenComplete(AsyncResponse, CompletionStage)}.
+ *
+ * @since 1.2
+ */
+public final class CloseableStreamingOutput implements StreamingOutput, Closeable {
+    private final Closeable resource;
+    private final StreamingOutput content;
+    private final AtomicBoolean used = new AtomicBoolean();
+
+    /**
+     * New instance.
+     *
+     * @param resource open resource of the content
+     * @param content  writer of the content
+     */
+    public CloseableStreamingOutput(Closeable resource, StreamingOutput content) {
+        if (resource == null) {
+            throw new IllegalArgumentException("resource must not be null");
+        }
+        if (content == null) {
+            throw new IllegalArgumentException("content must not be null");
+        }
+
+        this.resource = resource;
+        this.content = content;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        if (!used.compareAndSet(false, true)) {
+            throw new IllegalStateException("Content was already written or closed.");
+        }
+
+        try (Closeable ignored = resource) {
+            content.write(output);
+        }
+    }
+
+    /**
+     * Closes the resource, unless the content was written already.
+     *
+     * @throws IOException if the resource could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (used.compareAndSet(false, true)) {
+            resource.close();
+        }
+    }
+}
@@ -64,6 +64,11 @@ public final class EndpointUris {
      */
     public static final String TRANSACTIONS_URI = "transactions";
 
+    /**
+     * Last path from NDJSON export of transaction history URI in {@link TransactionHistoryResource}.
+     */
+    public static final String TRANSACTIONS_EXPORT_PATH = "/export";
+
     /**
      * URI to get accounts in {@link AccountResource}.
      */
@@ -0,0 +1,63 @@
+package cz.kb.openbanking.adaa.example.web.common;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writer of newline delimited JSON (NDJSON), every value is written as one line of compact JSON
+ * terminated by the line feed. The output stream is not closed by the writer.
+ *
+ * @since 1.2
+ */
+public final class NdjsonWriter implements Closeable, Flushable {
+    private static final char LINE_FEED = '\n';
+
+    private final JsonGenerator generator;
+
+    /**
+     * New instance.
+     *
+     * @param objectMapper JSON mapper of the values
+     * @param output       output stream
+     * @throws IOException if the JSON generator could not be created
+     */
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream output) throws IOException {
+        if (objectMapper == null) {
+            throw new IllegalArgumentException("objectMapper must not be null");
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("output must not be null");
+        }
+
+        this.generator = objectMapper.getFactory().createGenerator(output);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // root values are separated by the line feeds only, not by the default space
+        generator.setRootValueSeparator(null);
+    }
+
+    /**
+     * Writes the value as one line.
+     *
+     * @param value value
+     * @throws IOException if the value could not be written
+     */
+    public void write(Object value) throws IOException {
+        generator.writeObject(value);
+        generator.writeRaw(LINE_FEED);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
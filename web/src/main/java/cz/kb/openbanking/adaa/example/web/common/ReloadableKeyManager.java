@@ -0,0 +1,203 @@
+package cz.kb.openbanking.adaa.example.web.common;
+
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import javax.annotation.Nullable;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
+
+/**
+ * {@link X509ExtendedKeyManager} whose keys can be replaced at runtime, so a rotated client certificate is used
+ * by the next handshake of an existing {@link javax.net.ssl.SSLContext} without rebuilding the HTTP clients.
+ * <p>
+ * Every reload publishes an immutable snapshot of the keys through a volatile reference, handshakes never wait
+ * for a reload. A handshake chooses the alias first and asks for its key and certificate chain later, so
+ * the chosen alias carries the generation of its snapshot and the key and the chain are always resolved from
+ * that snapshot. The snapshot replaced by the last reload is kept for the handshakes in progress, an alias
+ * of an older generation resolves to no key, so a handshake fails rather than pair a key with a foreign chain.
+ *
+ * @since 1.2
+ */
+public class ReloadableKeyManager extends X509ExtendedKeyManager {
+    private static final char GENERATION_SEPARATOR = ':';
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * New instance.
+     *
+     * @param keyStore    keystore with the client certificate
+     * @param keyPassword password of the client certificate
+     */
+    public ReloadableKeyManager(KeyStore keyStore, char[] keyPassword) {
+        reload(keyStore, keyPassword);
+    }
+
+    /**
+     * Replaces the keys by the keys of the keystore.
+     *
+     * @param keyStore    keystore with the client certificate
+     * @param keyPassword password of the client certificate
+     */
+    public synchronized void reload(KeyStore keyStore, char[] keyPassword) {
+        if (keyStore == null) {
+            throw new IllegalArgumentException("keyStore must not be null");
+        }
+        if (keyPassword == null) {
+            throw new IllegalArgumentException("keyPassword must not be null");
+        }
+
+        X509ExtendedKeyManager keyManager = newKeyManager(keyStore, keyPassword);
+        Snapshot current = snapshot;
+        this.snapshot = current == null
+                ? new Snapshot(0, keyManager, null)
+                : new Snapshot(current.generation + 1, keyManager, current.keyManager);
+    }
+
+    @Override
+    public String[] getClientAliases(String keyType, Principal[] issuers) {
+        Snapshot current = snapshot;
+        return current.toAliases(current.keyManager.getClientAliases(keyType, issuers));
+    }
+
+    @Override
+    public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
+        Snapshot current = snapshot;
+        return current.toAlias(current.keyManager.chooseClientAlias(keyType, issuers, socket));
+    }
+
+    @Override
+    public String[] getServerAliases(String keyType, Principal[] issuers) {
+        Snapshot current = snapshot;
+        return current.toAliases(current.keyManager.getServerAliases(keyType, issuers));
+    }
+
+    @Override
+    public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+        Snapshot current = snapshot;
+        return current.toAlias(current.keyManager.chooseServerAlias(keyType, issuers, socket));
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+        X509ExtendedKeyManager keyManager = snapshot.keyManagerOf(alias);
+        return keyManager == null ? null : keyManager.getCertificateChain(delegateAlias(alias));
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String alias) {
+        X509ExtendedKeyManager keyManager = snapshot.keyManagerOf(alias);
+        return keyManager == null ? null : keyManager.getPrivateKey(delegateAlias(alias));
+    }
+
+    @Override
+    public String chooseEngineClientAlias(String[] keyType, Principal[] issuers, SSLEngine engine) {
+        Snapshot current = snapshot;
+        return current.toAlias(current.keyManager.chooseEngineClientAlias(keyType, issuers, engine));
+    }
+
+    @Override
+    public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+        Snapshot current = snapshot;
+        return current.toAlias(current.keyManager.chooseEngineServerAlias(keyType, issuers, engine));
+    }
+
+    /**
+     * Creates key manager of the keystore.
+     *
+     * @param keyStore    keystore with the client certificate
+     * @param keyPassword password of the client certificate
+     * @return X.509 key manager
+     */
+    private static X509ExtendedKeyManager newKeyManager(KeyStore keyStore, char[] keyPassword) {
+        try {
+            KeyManagerFactory factory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            factory.init(keyStore, keyPassword);
+            for (KeyManager keyManager : factory.getKeyManagers()) {
+                if (keyManager instanceof X509ExtendedKeyManager) {
+                    return (X509ExtendedKeyManager) keyManager;
+                }
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Key manager of the client certificate could not be created.", e);
+        }
+        throw new IllegalStateException("No X.509 key manager is available.");
+    }
+
+    /**
+     * Gets alias of the key manager of the snapshot.
+     *
+     * @param alias alias with the generation
+     * @return alias without the generation, {@code null} if the alias has no generation
+     */
+    @Nullable
+    private static String delegateAlias(@Nullable String alias) {
+        int separator = alias == null ? -1 : alias.indexOf(GENERATION_SEPARATOR);
+        return separator < 0 ? null : alias.substring(separator + 1);
+    }
+
+    /**
+     * Immutable keys of one reload, with the key manager of the previous reload.
+     */
+    private static final class Snapshot {
+        private final long generation;
+        private final X509ExtendedKeyManager keyManager;
+        @Nullable
+        private final X509ExtendedKeyManager previousKeyManager;
+
+        private Snapshot(long generation, X509ExtendedKeyManager keyManager,
+                         @Nullable X509ExtendedKeyManager previousKeyManager)
+        {
+            this.generation = generation;
+            this.keyManager = keyManager;
+            this.previousKeyManager = previousKeyManager;
+        }
+
+        @Nullable
+        private String toAlias(@Nullable String alias) {
+            return alias == null ? null : generation + String.valueOf(GENERATION_SEPARATOR) + alias;
+        }
+
+        @Nullable
+        private String[] toAliases(@Nullable String[] aliases) {
+            if (aliases == null) {
+                return null;
+            }
+
+            String[] result = new String[aliases.length];
+            for (int i = 0; i < aliases.length; i++) {
+                result[i] = toAlias(aliases[i]);
+            }
+            return result;
+        }
+
+        /**
+         * Gets key manager of the generation of the alias.
+         *
+         * @param alias alias with the generation
+         * @return key manager of the alias, {@code null} if the generation is not known anymore
+         */
+        @Nullable
+        private X509ExtendedKeyManager keyManagerOf(@Nullable String alias) {
+            int separator = alias == null ? -1 : alias.indexOf(GENERATION_SEPARATOR);
+            if (separator < 0) {
+                return null;
+            }
+
+            String aliasGeneration = alias.substring(0, separator);
+            if (aliasGeneration.equals(Long.toString(generation))) {
+                return keyManager;
+            }
+            if (previousKeyManager != null && aliasGeneration.equals(Long.toString(generation - 1))) {
+                return previousKeyManager;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package cz.kb.openbanking.adaa.example.web.dto;
+
+import javax.annotation.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Represents JSON object with one persisted change of the OAuth2 credentials: the client's identifiers,
+ * the tokens of a session or the removal of a session.
+ *
+ * @since 1.2
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CredentialRecordDto {
+
+    /**
+     * Type of the change.
+     */
+    public enum Type {
+        CLIENT,
+        SESSION,
+        SESSION_REMOVED
+    }
+
+    private final Type type;
+    private final String clientId;
+    private final String clientSecret;
+    private final String sessionId;
+    private final String accessToken;
+    private final String refreshToken;
+
+    /**
+     * Expiry of the access token in epoch millis.
+     */
+    private final Long expiresAt;
+
+    /**
+     * Last use of the session in epoch millis.
+     */
+    private final Long lastAccessAt;
+
+    /**
+     * New instance.
+     *
+     * @param type         type of the change
+     * @param clientId     client id, only for {@link Type#CLIENT}
+     * @param clientSecret client secret, only for {@link Type#CLIENT}
+     * @param sessionId    ID of the session, not for {@link Type#CLIENT}
+     * @param accessToken  access token, only for {@link Type#SESSION}
+     * @param refreshToken refresh token, only for {@link Type#SESSION}
+     * @param expiresAt    expiry of the access token in epoch millis, only for {@link Type#SESSION}
+     * @param lastAccessAt last use of the session in epoch millis, only for {@link Type#SESSION}
+     */
+    @JsonCreator
+    public CredentialRecordDto(@JsonProperty("type") Type type,
+                               @JsonProperty("clientId") @Nullable String clientId,
+                               @JsonProperty("clientSecret") @Nullable String clientSecret,
+                               @JsonProperty("sessionId") @Nullable String sessionId,
+                               @JsonProperty("accessToken") @Nullable String accessToken,
+                               @JsonProperty("refreshToken") @Nullable String refreshToken,
+                               @JsonProperty("expiresAt") @Nullable Long expiresAt,
+                               @JsonProperty("lastAccessAt") @Nullable Long lastAccessAt)
+    {
+        if (type == null) {
+            throw new IllegalArgumentException("type must not be null");
+        }
+
+        this.type = type;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.sessionId = sessionId;
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.expiresAt = expiresAt;
+        this.lastAccessAt = lastAccessAt;
+    }
+
+    /**
+     * Creates record of the client's identifiers.
+     *
+     * @param clientId     client id
+     * @param clientSecret client secret
+     * @return new record
+     */
+    public static CredentialRecordDto client(String clientId, String clientSecret) {
+        return new CredentialRecordDto(Type.CLIENT, clientId, clientSecret, null, null, null, null, null);
+    }
+
+    /**
+     * Creates record of the tokens of the session.
+     *
+     * @param sessionId    ID of the session
+     * @param accessToken  access token
+     * @param refreshToken refresh token
+     * @param expiresAt    expiry of the access token in epoch millis
+     * @param lastAccessAt last use of the session in epoch millis
+     * @return new record
+     */
+    public static CredentialRecordDto session(String sessionId, String accessToken, @Nullable String refreshToken,
+                                              @Nullable Long expiresAt, long lastAccessAt)
+    {
+        return new CredentialRecordDto(Type.SESSION, null, null, sessionId, accessToken, refreshToken, expiresAt,
+                lastAccessAt);
+    }
+
+    /**
+     * Creates record of the removal of the session.
+     *
+     * @param sessionId ID of the session
+     * @return new record
+     */
+    public static CredentialRecordDto sessionRemoved(String sessionId) {
+        return new CredentialRecordDto(Type.SESSION_REMOVED, null, null, sessionId, null, null, null, null);
+    }
+
+    /**
+     * Gets type of the change.
+     *
+     * @return type of the change
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets client ID.
+     *
+     * @return client ID or {@code null}
+     */
+    @Nullable
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * Gets client secret.
+     *
+     * @return client secret or {@code null}
+     */
+    @Nullable
+    public String getClientSecret() {
+        return clientSecret;
+    }
+
+    /**
+     * Gets ID of the session.
+     *
+     * @return ID of the session or {@code null}
+     */
+    @Nullable
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Gets access token.
+     *
+     * @return access token or {@code null}
+     */
+    @Nullable
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    /**
+     * Gets refresh token.
+     *
+     * @return refresh token or {@code null}
+     */
+    @Nullable
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    /**
+     * Gets expiry of the access token.
+     *
+     * @return expiry of the access token in epoch millis or {@code null}
+     */
+    @Nullable
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Gets last use of the session.
+     *
+     * @return last use of the session in epoch millis or {@code null} if it was not recorded
+     */
+    @Nullable
+    public Long getLastAccessAt() {
+        return lastAccessAt;
+    }
+}
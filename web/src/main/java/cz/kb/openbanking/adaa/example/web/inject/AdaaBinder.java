@@ -0,0 +1,359 @@
+package cz.kb.openbanking.adaa.example.web.inject;
+
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getAccountsCacheMaxSize;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getAccountsCacheTtlSeconds;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getAdaaUri;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getApiKey;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getAsyncResourceQueueSize;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getCredentialStoreFile;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getOAuth2FlowTtlSeconds;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getOAuth2SessionIdleTimeoutSeconds;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getOAuth2TokenRefreshAheadSeconds;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getOAuth2TokenRefreshJitterSeconds;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getSecretKey;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getSoftwareStatementUri;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getStatementArchiveMaxConcurrentDownloads;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getStatementCacheDir;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getStatementCacheMaxBytes;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getStatementPrefetchMaxPerUser;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getStatementPrefetchMaxTotal;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getStatementsCacheMaxMonths;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTransactionStoreBookingLagDays;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTransactionStoreDir;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTransactionStoreMaxOpenAccounts;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTransactionStoreSegmentSize;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTransactionStoreSyncIntervalSeconds;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTransactionsMaxConcurrentPages;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTransactionsMaxConcurrentShards;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTransactionsPageSize;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTransactionsShardMaxAccounts;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTransactionsShardMaxPages;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTransactionsShardMinWindowHours;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getTransactionsShardWindowDays;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.isCredentialStoreEnabled;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.isStatementPrefetchEnabled;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import cz.kb.openbanking.adaa.client.api.AccountApi;
+import cz.kb.openbanking.adaa.client.jersey.AccountApiJerseyImpl;
+import cz.kb.openbanking.adaa.example.core.cache.DiskLruCache;
+import cz.kb.openbanking.adaa.example.core.coalescing.CoalescingAccountApi;
+import cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties;
+import cz.kb.openbanking.adaa.example.core.configuration.FileChangeWatcher;
+import cz.kb.openbanking.adaa.example.core.decryption.Aes256DecryptionService;
+import cz.kb.openbanking.adaa.example.core.decryption.impl.Aes256DecryptionServiceImpl;
+import cz.kb.openbanking.adaa.example.core.encryption.impl.Aes256EncryptionServiceImpl;
+import cz.kb.openbanking.adaa.example.core.store.EncryptedRecordFile;
+import cz.kb.openbanking.adaa.example.core.store.AccountRecordStore;
+import cz.kb.openbanking.adaa.example.core.transaction.TransactionHistoryFetcher;
+import cz.kb.openbanking.adaa.example.core.transaction.impl.ConcurrentTransactionHistoryFetcher;
+import cz.kb.openbanking.adaa.example.core.transaction.impl.DateShardedTransactionHistoryFetcher;
+import cz.kb.openbanking.adaa.example.web.common.ClientCertificateProvider;
+import cz.kb.openbanking.adaa.example.web.mapper.AccountMapper;
+import cz.kb.openbanking.adaa.example.web.oauth2.OAuth2CredentialStore;
+import cz.kb.openbanking.adaa.example.web.oauth2.OAuth2FlowProvider;
+import cz.kb.openbanking.adaa.example.web.statement.PdfStatementArchive;
+import cz.kb.openbanking.adaa.example.web.statement.PdfStatementCache;
+import cz.kb.openbanking.adaa.example.web.statement.PdfStatementClient;
+import cz.kb.openbanking.adaa.example.web.statement.PdfStatementPrefetcher;
+import cz.kb.openbanking.adaa.example.web.store.AccountListCache;
+import cz.kb.openbanking.adaa.example.web.store.AccountStatementsCache;
+import cz.kb.openbanking.adaa.example.web.store.TransactionHistoryStore;
+import cz.kb.openbanking.clientregistration.client.api.SoftwareStatementsApi;
+import cz.kb.openbanking.clientregistration.client.jersey.SoftwareStatementsJerseyImpl;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.glassfish.hk2.utilities.binding.AbstractBinder;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * HK2 binder that creates application's services once at startup
+ * and makes them available for injection into (singleton) resources.
+ *
+ * @since 1.2
+ */
+public class AdaaBinder extends AbstractBinder {
+    private static final Logger LOGGER = Logger.getLogger(AdaaBinder.class.getName());
+
+    /**
+     * Name of the bounded {@link ExecutorService} that processes asynchronous requests of the resources.
+     */
+    public static final String RESOURCE_EXECUTOR = "resourceExecutor";
+
+    private final List<ExecutorService> executors = new ArrayList<>();
+
+    // thread pool -> configured number of its threads
+    private final Map<ThreadPoolExecutor, IntSupplier> threadPoolSizes = new LinkedHashMap<>();
+
+    private final AccountApi accountApi;
+    private final SoftwareStatementsApi softwareStatementsApi;
+    private final Client tokenClient;
+    private final OAuth2FlowProvider flowProvider;
+    @Nullable
+    private final OAuth2CredentialStore credentialStore;
+    private final AccountMapper accountMapper;
+    private final Aes256DecryptionService decryptionService;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentTransactionHistoryFetcher pageFetcher;
+    private final TransactionHistoryFetcher transactionHistoryFetcher;
+    private final AccountRecordStore recordStore;
+    private final TransactionHistoryStore transactionHistoryStore;
+    private final AccountListCache accountListCache;
+    private final AccountStatementsCache accountStatementsCache;
+    private final PdfStatementCache pdfStatementCache;
+    private final PdfStatementArchive pdfStatementArchive;
+    private final PdfStatementPrefetcher pdfStatementPrefetcher;
+    private final ExecutorService resourceExecutor;
+    @Nullable
+    private final FileChangeWatcher configurationWatcher;
+
+    /**
+     * New instance. All services are created eagerly, so misconfiguration fails the application startup
+     * instead of the first request.
+     */
+    public AdaaBinder() {
+        Client client = ClientCertificateProvider.getSharedClient();
+
+        // identical concurrent searches share one call of the rate-limited API
+        this.accountApi = new CoalescingAccountApi(new AccountApiJerseyImpl(getAdaaUri(), getApiKey(), client));
+        this.softwareStatementsApi = new SoftwareStatementsJerseyImpl(getSoftwareStatementUri(), getApiKey(), client);
+        this.accountMapper = Mappers.getMapper(AccountMapper.class);
+        this.decryptionService = new Aes256DecryptionServiceImpl();
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.tokenClient = ClientBuilder.newClient();
+        this.flowProvider = new OAuth2FlowProvider(tokenClient, Duration.ofSeconds(getOAuth2FlowTtlSeconds()),
+                Duration.ofSeconds(getOAuth2SessionIdleTimeoutSeconds()),
+                newScheduledThreadPool("adaa-token-refresh-%d", AdaaProperties::getOAuth2TokenRefreshThreads),
+                Duration.ofSeconds(getOAuth2TokenRefreshAheadSeconds()),
+                Duration.ofSeconds(getOAuth2TokenRefreshJitterSeconds()));
+        // a restart keeps the users logged in, the credentials are encrypted by the registration secret
+        this.credentialStore = isCredentialStoreEnabled()
+                ? new OAuth2CredentialStore(new EncryptedRecordFile(Paths.get(getCredentialStoreFile()),
+                        new Aes256EncryptionServiceImpl(), decryptionService, getSecretKey()), objectMapper)
+                : null;
+        if (credentialStore != null) {
+            flowProvider.restore(credentialStore);
+        }
+        this.pageFetcher = new ConcurrentTransactionHistoryFetcher(accountApi,
+                newFixedThreadPool("adaa-transactions-%d", AdaaProperties::getTransactionsFetchThreads),
+                getTransactionsMaxConcurrentPages(), getTransactionsPageSize());
+        this.transactionHistoryFetcher = new DateShardedTransactionHistoryFetcher(pageFetcher,
+                newFixedThreadPool("adaa-transaction-shards-%d", AdaaProperties::getTransactionsShardThreads),
+                getTransactionsMaxConcurrentShards(), getTransactionsShardMaxPages(),
+                Duration.ofDays(getTransactionsShardWindowDays()), Duration.ofHours(getTransactionsShardMinWindowHours()),
+                getTransactionsShardMaxAccounts());
+        this.accountListCache = new AccountListCache(accountApi, accountMapper, getAccountsCacheMaxSize(),
+                Duration.ofSeconds(getAccountsCacheTtlSeconds()),
+                newFixedThreadPool("adaa-cache-refresh-%d", AdaaProperties::getCacheRefreshThreads));
+        // a refreshed access token still has the same accounts
+        flowProvider.addAccessTokenListener(accountListCache::moveAccounts);
+        this.recordStore = new AccountRecordStore(Paths.get(getTransactionStoreDir()),
+                getTransactionStoreSegmentSize(), getTransactionStoreMaxOpenAccounts());
+        this.transactionHistoryStore = new TransactionHistoryStore(recordStore, transactionHistoryFetcher,
+                accountListCache, accountMapper, objectMapper,
+                Duration.ofSeconds(getTransactionStoreSyncIntervalSeconds()),
+                Duration.ofDays(getTransactionStoreBookingLagDays()), getTransactionStoreMaxOpenAccounts());
+        this.accountStatementsCache = new AccountStatementsCache(accountApi, accountMapper, accountListCache,
+                newFixedThreadPool("adaa-statements-%d", AdaaProperties::getStatementsFetchThreads),
+                getStatementsCacheMaxMonths(), ZoneId.systemDefault());
+        this.pdfStatementCache = new PdfStatementCache(new PdfStatementClient(client, getAdaaUri(), getApiKey()),
+                accountListCache, new DiskLruCache(Paths.get(getStatementCacheDir()), getStatementCacheMaxBytes()));
+        this.pdfStatementArchive = new PdfStatementArchive(pdfStatementCache,
+                newFixedThreadPool("adaa-statement-downloads-%d", AdaaProperties::getStatementDownloadThreads),
+                getStatementArchiveMaxConcurrentDownloads());
+        // the prefetcher is opt-in, a disabled one never starts a thread
+        this.pdfStatementPrefetcher = new PdfStatementPrefetcher(pdfStatementCache,
+                newFixedThreadPool("adaa-statement-prefetch-%d", AdaaProperties::getStatementPrefetchThreads,
+                        Thread.MIN_PRIORITY),
+                isStatementPrefetchEnabled() ? getStatementPrefetchMaxPerUser() : 0, getStatementPrefetchMaxTotal());
+        this.resourceExecutor = newBoundedThreadPool("adaa-resource-%d", AdaaProperties::getAsyncResourceThreads,
+                getAsyncResourceQueueSize());
+
+        // sizes of the thread pools follow the external properties file, other services read it at startup
+        Path configurationFile = AdaaProperties.getConfigurationFile();
+        this.configurationWatcher = configurationFile == null
+                ? null
+                : new FileChangeWatcher(configurationFile, this::reloadConfiguration, "adaa-configuration-watcher");
+    }
+
+    @Override
+    protected void configure() {
+        bind(accountApi).to(AccountApi.class);
+        bind(softwareStatementsApi).to(SoftwareStatementsApi.class);
+        bind(flowProvider).to(OAuth2FlowProvider.class);
+        bind(accountMapper).to(AccountMapper.class);
+        bind(decryptionService).to(Aes256DecryptionService.class);
+        bind(objectMapper).to(ObjectMapper.class);
+        bind(pageFetcher).to(ConcurrentTransactionHistoryFetcher.class);
+        bind(transactionHistoryFetcher).to(TransactionHistoryFetcher.class);
+        bind(transactionHistoryStore).to(TransactionHistoryStore.class);
+        bind(accountListCache).to(AccountListCache.class);
+        bind(accountStatementsCache).to(AccountStatementsCache.class);
+        bind(pdfStatementCache).to(PdfStatementCache.class);
+        bind(pdfStatementArchive).to(PdfStatementArchive.class);
+        bind(pdfStatementPrefetcher).to(PdfStatementPrefetcher.class);
+        bind(resourceExecutor).named(RESOURCE_EXECUTOR).to(ExecutorService.class);
+    }
+
+    /**
+     * Releases resources held by the services, must be called when the application is shut down.
+     */
+    public void shutdown() {
+        if (configurationWatcher != null) {
+            configurationWatcher.close();
+        }
+        executors.forEach(ExecutorService::shutdownNow);
+        recordStore.close();
+        if (credentialStore != null) {
+            credentialStore.close();
+        }
+        tokenClient.close();
+        ClientCertificateProvider.shutdown();
+    }
+
+    /**
+     * Reloads the application properties and resizes the thread pools. Invalid sizes are ignored.
+     */
+    private void reloadConfiguration() {
+        AdaaProperties.reload();
+        threadPoolSizes.forEach((executor, threads) -> {
+            try {
+                resize(executor, threads.getAsInt());
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Thread pool could not be resized.", e);
+            }
+        });
+        LOGGER.info("Application properties were reloaded.");
+    }
+
+    /**
+     * Changes number of the threads of the pool. The pool is not changed if the number is invalid.
+     *
+     * @param executor thread pool
+     * @param threads  new number of threads
+     */
+    private static void resize(ThreadPoolExecutor executor, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+
+        if (executor instanceof ScheduledThreadPoolExecutor) {
+            // scheduled pool has only the core threads, its maximum size has no effect
+            executor.setCorePoolSize(threads);
+            return;
+        }
+        // the core size must never exceed the maximum size
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+    }
+
+    /**
+     * Creates fixed thread pool with daemon threads that is shut down together with the application.
+     *
+     * @param namingPattern naming pattern of the threads
+     * @param threads       configured number of threads
+     * @return new thread pool
+     */
+    private ExecutorService newFixedThreadPool(String namingPattern, IntSupplier threads) {
+        return newFixedThreadPool(namingPattern, threads, Thread.NORM_PRIORITY);
+    }
+
+    /**
+     * Creates fixed thread pool with daemon threads of the priority that is shut down together with the application.
+     *
+     * @param namingPattern naming pattern of the threads
+     * @param threads       configured number of threads
+     * @param priority      priority of the threads
+     * @return new thread pool
+     */
+    private ExecutorService newFixedThreadPool(String namingPattern, IntSupplier threads, int priority) {
+        int size = threads.getAsInt();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), newThreadFactory(namingPattern, priority));
+        executors.add(executor);
+        threadPoolSizes.put(executor, threads);
+        return executor;
+    }
+
+    /**
+     * Creates scheduled thread pool with daemon threads that is shut down together with the application.
+     * Cancelled tasks are removed from the queue immediately.
+     *
+     * @param namingPattern naming pattern of the threads
+     * @param threads       configured number of threads
+     * @return new scheduled thread pool
+     */
+    private ScheduledExecutorService newScheduledThreadPool(String namingPattern, IntSupplier threads) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads.getAsInt(),
+                newThreadFactory(namingPattern, Thread.NORM_PRIORITY));
+        executor.setRemoveOnCancelPolicy(true);
+        executors.add(executor);
+        threadPoolSizes.put(executor, threads);
+        return executor;
+    }
+
+    /**
+     * Creates fixed thread pool with a bounded queue that rejects tasks when the queue is full.
+     * The pool has daemon threads and is shut down together with the application.
+     *
+     * @param namingPattern naming pattern of the threads
+     * @param threads       configured number of threads
+     * @param queueSize     maximum number of tasks waiting for a thread
+     * @return new thread pool
+     */
+    private ExecutorService newBoundedThreadPool(String namingPattern, IntSupplier threads, int queueSize) {
+        int size = threads.getAsInt();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), newThreadFactory(namingPattern, Thread.NORM_PRIORITY),
+                new ThreadPoolExecutor.AbortPolicy());
+        executors.add(executor);
+        threadPoolSizes.put(executor, threads);
+        return executor;
+    }
+
+    /**
+     * Creates factory of daemon threads.
+     *
+     * @param namingPattern naming pattern of the threads
+     * @param priority      priority of the threads
+     * @return new thread factory
+     */
+    private static ThreadFactory newThreadFactory(String namingPattern, int priority) {
+        return new BasicThreadFactory.Builder()
+                .namingPattern(namingPattern)
+                .priority(priority)
+                .daemon(true)
+                .build();
+    }
+}
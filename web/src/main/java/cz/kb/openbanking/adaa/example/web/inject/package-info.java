@@ -0,0 +1,4 @@
+/**
+ * Contains dependency injection bindings of the application's services.
+ */
+package cz.kb.openbanking.adaa.example.web.inject;
\ No newline at end of file
@@ -0,0 +1,117 @@
+package cz.kb.openbanking.adaa.example.web.oauth2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.kb.openbanking.adaa.example.core.store.EncryptedRecordFile;
+import cz.kb.openbanking.adaa.example.web.dto.CredentialRecordDto;
+
+/**
+ * Persistent store of the OAuth2 credentials, so the users stay logged in across restarts of the application.
+ * <p>
+ * Every change of the credentials is appended as one JSON record to the {@link EncryptedRecordFile}, the records
+ * are replayed by {@link OAuth2FlowProvider} at startup. Superseded records are dropped by compaction, when
+ * the file has more records than {@link #COMPACTION_MIN_RECORDS} plus twice the number of the live credentials.
+ * Failures of the store are logged and do not fail the requests, the credentials only do not survive a restart.
+ *
+ * @since 1.2
+ */
+public class OAuth2CredentialStore implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(OAuth2CredentialStore.class.getName());
+
+    /**
+     * Number of superseded records that are kept without compaction.
+     */
+    private static final int COMPACTION_MIN_RECORDS = 1000;
+
+    private final EncryptedRecordFile recordFile;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * New instance.
+     *
+     * @param recordFile   encrypted file with the records
+     * @param objectMapper mapper of the JSON records
+     */
+    public OAuth2CredentialStore(EncryptedRecordFile recordFile, ObjectMapper objectMapper) {
+        if (recordFile == null) {
+            throw new IllegalArgumentException("recordFile must not be null");
+        }
+        if (objectMapper == null) {
+            throw new IllegalArgumentException("objectMapper must not be null");
+        }
+
+        this.recordFile = recordFile;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Loads all records by one sequential read of the file.
+     *
+     * @return records in the order they were appended
+     */
+    public synchronized List<CredentialRecordDto> load() {
+        List<CredentialRecordDto> records = new ArrayList<>();
+        for (String json : recordFile.readAll()) {
+            try {
+                records.add(objectMapper.readValue(json, CredentialRecordDto.class));
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Credential record could not be parsed and was skipped.", e);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Appends the record.
+     *
+     * @param record record
+     */
+    public synchronized void append(CredentialRecordDto record) {
+        if (record == null) {
+            throw new IllegalArgumentException("record must not be null");
+        }
+
+        try {
+            recordFile.append(objectMapper.writeValueAsString(record));
+        } catch (JsonProcessingException | UncheckedIOException e) {
+            LOGGER.log(Level.WARNING, "Credential record could not be stored.", e);
+        }
+    }
+
+    /**
+     * Replaces all records with the live credentials if there are too many superseded records.
+     * The live credentials are taken under the lock of the store, so no concurrently appended record is lost.
+     *
+     * @param liveRecords supplier of the records of the live credentials
+     * @param liveCount   number of the live credentials
+     */
+    public synchronized void compactIfNeeded(Supplier<List<CredentialRecordDto>> liveRecords, int liveCount) {
+        if (recordFile.getRecordCount() <= COMPACTION_MIN_RECORDS + 2L * liveCount) {
+            return;
+        }
+
+        try {
+            List<String> jsons = new ArrayList<>();
+            for (CredentialRecordDto record : liveRecords.get()) {
+                jsons.add(objectMapper.writeValueAsString(record));
+            }
+            recordFile.rewrite(jsons);
+        } catch (JsonProcessingException | UncheckedIOException e) {
+            LOGGER.log(Level.WARNING, "Credential records could not be compacted.", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        recordFile.close();
+    }
+}
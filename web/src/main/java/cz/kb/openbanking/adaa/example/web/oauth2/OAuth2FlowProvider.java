@@ -5,19 +5,60 @@ import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.g
 import static cz.kb.openbanking.adaa.example.web.common.EndpointUris.AUTHORIZATION_OAUTH2_URI;
 
 import java.net.URI;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.annotation.Nullable;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.NewCookie;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 
 import cz.kb.openbanking.adaa.example.web.common.EndpointUris;
+import cz.kb.openbanking.adaa.example.web.dto.CredentialRecordDto;
 import org.apache.commons.lang3.StringUtils;
 import org.glassfish.jersey.client.oauth2.ClientIdentifier;
 import org.glassfish.jersey.client.oauth2.OAuth2ClientSupport;
 import org.glassfish.jersey.client.oauth2.OAuth2CodeGrantFlow;
+import org.glassfish.jersey.client.oauth2.TokenResult;
+import org.glassfish.jersey.uri.UriComponent;
 
 /**
- * Store of OAuth2 credentials and authorization flow. This is very simple one user store for credentials.
- * In real usage tokens should be stored per user.
+ * Store of OAuth2 credentials and authorization flows of the users.
+ * <p>
+ * Every user is identified by a random session ID in the {@link #SESSION_COOKIE} cookie. Started authorization
+ * flows are kept by their OAuth2 {@code state} until they are finished or expire, the flow can be finished only
+ * by the session that started it. Access tokens are kept by the session until the session is idle for too long.
+ * Both are kept in {@link ConcurrentHashMap}s, so concurrent users do not contend on a single lock.
+ * <p>
+ * Access tokens with a refresh token are refreshed in the background shortly before they expire, so an active user
+ * is not redirected to the authorization server in the middle of the session. Refreshes are randomly brought
+ * forward by up to the jitter, so the tokens of the users who logged in together are not refreshed at once,
+ * and they run on the refresh scheduler, whose threads bound the number of concurrent refreshes. The access token
+ * listeners are notified of every refreshed token, so the caches keyed by the access token keep the entries
+ * of the session.
+ * <p>
+ * The client identifier and the tokens of the sessions are optionally persisted to an {@link OAuth2CredentialStore}
+ * and restored from it by {@link #restore(OAuth2CredentialStore)} at startup. The last use of a session is persisted
+ * with its tokens and at least every quarter of the idle timeout, so sessions idle for too long are not restored.
+ * A session is persisted only under its lock while it is live, so a refresh never resurrects a removed session.
+ * The client identifier is shared by all users, as it identifies this application. All flows request and refresh
+ * the tokens through one shared token client, so its connections are reused and no client is left open per flow.
  *
  * @author <a href="mailto:aleh_kuchynski@kb.cz">Aleh Kuchynski</a>
  * @see ClientIdentifier
@@ -25,6 +66,12 @@ import org.glassfish.jersey.client.oauth2.OAuth2CodeGrantFlow;
  * @since 1.0
  */
 public class OAuth2FlowProvider {
+    private static final Logger LOGGER = Logger.getLogger(OAuth2FlowProvider.class.getName());
+
+    /**
+     * Name of the cookie with the session ID.
+     */
+    public static final String SESSION_COOKIE = "ADAA_SESSION";
 
     /**
      * ADAA authorization scope.
@@ -32,108 +79,306 @@ public class OAuth2FlowProvider {
     private static final String ADAA_SCOPE = "adaa";
 
     /**
-     * Represents authorization flow.
+     * Name of the query parameter of the authorization URI with the OAuth2 state.
+     */
+    private static final String STATE_PARAM = "state";
+
+    /**
+     * Number of random bytes of the session ID.
+     */
+    private static final int SESSION_ID_BYTES = 32;
+
+    /**
+     * Minimum period between two purges of the expired flows and sessions.
+     */
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * Delay of the next attempt to refresh the access token after a failed refresh.
      */
-    private static OAuth2CodeGrantFlow flow;
+    private static final long REFRESH_RETRY_NANOS = TimeUnit.SECONDS.toNanos(15);
+
+    private final Client tokenClient;
+    private final long flowTimeToLiveNanos;
+    private final long sessionIdleTimeoutNanos;
+    private final ScheduledExecutorService refreshScheduler;
+    private final long refreshAheadNanos;
+    private final long refreshJitterNanos;
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong lastPurge = new AtomicLong(System.nanoTime());
+
+    // OAuth2 state -> started flow
+    private final Map<String, PendingFlow> flows = new ConcurrentHashMap<>();
+
+    // session ID -> session with the access token
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    // called with the previous and the new access token of a refreshed session
+    private final List<BiConsumer<String, String>> accessTokenListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Contains client's identity.
      */
-    private static ClientIdentifier clientIdentifier;
+    private volatile ClientIdentifier clientIdentifier;
+
+    @Nullable
+    private volatile OAuth2CredentialStore credentialStore;
 
     /**
-     * OAuth2 access token.
+     * New instance.
+     *
+     * @param tokenClient        client of the token endpoint shared by all flows, closed by the caller
+     * @param flowTimeToLive     time in which a started authorization flow must be finished
+     * @param sessionIdleTimeout time after which an unused session is forgotten
+     * @param refreshScheduler   scheduler of the refreshes of the access tokens, its threads run the refreshes
+     * @param refreshAhead       time before the expiry of the access token when the token is refreshed
+     * @param refreshJitter      maximum random time by which the refresh is brought forward
      */
-    private static String accessToken;
+    public OAuth2FlowProvider(Client tokenClient, Duration flowTimeToLive, Duration sessionIdleTimeout,
+                              ScheduledExecutorService refreshScheduler, Duration refreshAhead, Duration refreshJitter)
+    {
+        if (tokenClient == null) {
+            throw new IllegalArgumentException("tokenClient must not be null");
+        }
+        if (flowTimeToLive == null || flowTimeToLive.isNegative() || flowTimeToLive.isZero()) {
+            throw new IllegalArgumentException("flowTimeToLive must be positive");
+        }
+        if (sessionIdleTimeout == null || sessionIdleTimeout.isNegative() || sessionIdleTimeout.isZero()) {
+            throw new IllegalArgumentException("sessionIdleTimeout must be positive");
+        }
+        if (refreshScheduler == null) {
+            throw new IllegalArgumentException("refreshScheduler must not be null");
+        }
+        if (refreshAhead == null || refreshAhead.isNegative()) {
+            throw new IllegalArgumentException("refreshAhead must not be negative");
+        }
+        if (refreshJitter == null || refreshJitter.isNegative()) {
+            throw new IllegalArgumentException("refreshJitter must not be negative");
+        }
+
+        this.tokenClient = tokenClient;
+        this.flowTimeToLiveNanos = flowTimeToLive.toNanos();
+        this.sessionIdleTimeoutNanos = sessionIdleTimeout.toNanos();
+        this.refreshScheduler = refreshScheduler;
+        this.refreshAheadNanos = refreshAhead.toNanos();
+        this.refreshJitterNanos = refreshJitter.toNanos();
+    }
 
     /**
-     * Prepare redirect response to KB OAuth2 authorization consent request.
+     * Prepare redirect response to KB OAuth2 authorization consent request. A new session is started
+     * if the request has no session.
      *
-     * @param baseUri application base URI
+     * @param baseUri   application base URI
+     * @param sessionId ID of the session of the request
      * @return redirect response to KB OAuth2 authorization consent request
      */
-    public static Response authorizationRedirect(URI baseUri) {
+    public Response authorizationRedirect(URI baseUri, @Nullable String sessionId) {
         if (baseUri == null) {
             throw new IllegalArgumentException("baseUri must not be null");
         }
+        purgeExpired();
 
         String redirectUri = UriBuilder.fromUri(baseUri).path(AUTHORIZATION_OAUTH2_URI).build().toString();
-        OAuth2CodeGrantFlow flow = OAuth2ClientSupport.authorizationCodeGrantFlowBuilder(
-                getClientIdentifier(),
-                getAuthorizationUri(),
-                getAccessTokenUri())
-                .redirectUri(redirectUri)
-                .scope(ADAA_SCOPE)
-                .build();
-
-        setFlow(flow);
+        OAuth2CodeGrantFlow flow = newFlow(getClientIdentifier(), redirectUri);
 
         // start the flow
         String kbAuthURI = flow.start();
+        URI authorizationUri = UriBuilder.fromUri(kbAuthURI).build();
+        String state = UriComponent.decodeQuery(authorizationUri, true).getFirst(STATE_PARAM);
+        if (StringUtils.isBlank(state)) {
+            throw new IllegalStateException("Authorization URI has no state.");
+        }
+
+        boolean newSession = StringUtils.isBlank(sessionId);
+        String flowSessionId = newSession ? newSessionId() : sessionId;
+        flows.put(state, new PendingFlow(flow, flowSessionId, System.nanoTime() + flowTimeToLiveNanos));
 
         // redirect user to KB OAuth2 authorization server
-        return Response.seeOther(UriBuilder.fromUri(kbAuthURI).build()).build();
+        Response.ResponseBuilder response = Response.seeOther(authorizationUri);
+        if (newSession) {
+            response.cookie(sessionCookie(baseUri, flowSessionId));
+        }
+        return response.build();
     }
 
     /**
-     * Gets redirect URI into OAuth2 (for getting authorization code).
-     * This URI must be fill in software statement and client registration.
+     * Creates the cookie with the session ID.
      *
-     * @param baseUri application base URI
-     * @return redirect URI
+     * @param baseUri   application base URI
+     * @param sessionId ID of the session
+     * @return HTTP-only session cookie, secure if the application is served over HTTPS
      */
-    public static String getOauthRedirectUri(URI baseUri) {
+    public static NewCookie sessionCookie(URI baseUri, String sessionId) {
         if (baseUri == null) {
             throw new IllegalArgumentException("baseUri must not be null");
         }
+        if (StringUtils.isBlank(sessionId)) {
+            throw new IllegalArgumentException("sessionId must not be empty");
+        }
 
-        return UriBuilder.fromUri(baseUri).path(EndpointUris.AUTHORIZATION_OAUTH2_URI).build().toString();
+        return new NewCookie(SESSION_COOKIE, sessionId, baseUri.getPath(), null, null, NewCookie.DEFAULT_MAX_AGE,
+                "https".equalsIgnoreCase(baseUri.getScheme()), true);
     }
 
     /**
-     * Gets access token.
+     * Finishes the authorization flow started by the session and stores the access token to a new session,
+     * which replaces the session of the request (a session ID known before the login is never authorized).
+     * The refresh of the access token is scheduled if the token expires and can be refreshed.
      *
-     * @return access token
+     * @param sessionId ID of the session of the request
+     * @param authCode  OAuth2 authorization code
+     * @param state     OAuth2 state of the flow
+     * @return ID of the new authorized session
      */
-    @Nullable
-    public static String getAccessToken() {
-        return accessToken;
+    public String finish(@Nullable String sessionId, String authCode, String state) {
+        if (StringUtils.isBlank(authCode)) {
+            throw new IllegalArgumentException("authCode must not be empty");
+        }
+        if (StringUtils.isBlank(state)) {
+            throw new IllegalArgumentException("state must not be empty");
+        }
+
+        PendingFlow pendingFlow = flows.remove(state);
+        if (pendingFlow == null || pendingFlow.isExpired(System.nanoTime())) {
+            throw new IllegalArgumentException("Authorization flow is unknown or expired.");
+        }
+        // protection against CSRF, the flow must be finished by the user who started it
+        if (!pendingFlow.sessionId.equals(sessionId)) {
+            throw new IllegalArgumentException("Authorization flow was started by another session.");
+        }
+
+        // call KB OAuth2 API to get access token
+        TokenResult tokenResult = pendingFlow.flow.finish(authCode, state);
+        String authorizedSessionId = newSessionId();
+        Session session = new Session(authorizedSessionId, pendingFlow.flow, System.nanoTime());
+        session.update(tokenResult, session.lastAccess);
+        sessions.put(authorizedSessionId, session);
+        persistSession(session);
+        scheduleRefresh(session);
+        removeSession(sessionId);
+        return authorizedSessionId;
     }
 
     /**
-     * Sets access token.
+     * Restores the client identifier and the sessions persisted in the store and persists their later changes
+     * to the store. Sessions whose access token expired or which were idle for too long are not restored.
+     * Must be called before the provider
+     * is used.
      *
-     * @param accessToken access token
+     * @param store store of the credentials
      */
-    public static void setAccessToken(String accessToken) {
-        if (StringUtils.isBlank(accessToken)) {
-            throw new IllegalArgumentException("accessToken must not be empty");
+    public void restore(OAuth2CredentialStore store) {
+        if (store == null) {
+            throw new IllegalArgumentException("store must not be null");
         }
 
-        OAuth2FlowProvider.accessToken = accessToken;
+        // replay the changes, the last record of every session wins
+        ClientIdentifier restoredClientIdentifier = null;
+        Map<String, CredentialRecordDto> sessionRecords = new LinkedHashMap<>();
+        for (CredentialRecordDto record : store.load()) {
+            switch (record.getType()) {
+                case CLIENT:
+                    if (StringUtils.isNoneBlank(record.getClientId(), record.getClientSecret())) {
+                        restoredClientIdentifier = new ClientIdentifier(record.getClientId(),
+                                record.getClientSecret());
+                    }
+                    break;
+                case SESSION:
+                    sessionRecords.put(record.getSessionId(), record);
+                    break;
+                case SESSION_REMOVED:
+                    sessionRecords.remove(record.getSessionId());
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported credential record type " + record.getType());
+            }
+        }
+
+        if (restoredClientIdentifier != null) {
+            this.clientIdentifier = restoredClientIdentifier;
+            long now = System.nanoTime();
+            long nowMillis = System.currentTimeMillis();
+            long idleTimeoutMillis = TimeUnit.NANOSECONDS.toMillis(sessionIdleTimeoutNanos);
+            for (CredentialRecordDto record : sessionRecords.values()) {
+                if (StringUtils.isBlank(record.getSessionId()) || StringUtils.isBlank(record.getAccessToken())
+                        || record.getExpiresAt() != null && record.getExpiresAt() <= nowMillis
+                        || record.getLastAccessAt() != null
+                        && nowMillis - record.getLastAccessAt() > idleTimeoutMillis) {
+                    continue;
+                }
+
+                // records of older versions have no last use, the session is idle since the restart
+                long idleMillis = record.getLastAccessAt() == null
+                        ? 0
+                        : Math.max(0, nowMillis - record.getLastAccessAt());
+                Session session = new Session(record.getSessionId(), newFlow(restoredClientIdentifier, null),
+                        now - TimeUnit.MILLISECONDS.toNanos(idleMillis));
+                session.accessToken = record.getAccessToken();
+                session.refreshToken = record.getRefreshToken();
+                session.expiresAt = record.getExpiresAt() == null
+                        ? Long.MAX_VALUE
+                        : now + TimeUnit.MILLISECONDS.toNanos(record.getExpiresAt() - nowMillis);
+                sessions.put(session.id, session);
+                scheduleRefresh(session);
+            }
+        }
+
+        this.credentialStore = store;
+        store.compactIfNeeded(this::liveRecords, sessions.size() + 1);
     }
 
     /**
-     * Gets {@link OAuth2CodeGrantFlow}.
+     * Gets redirect URI into OAuth2 (for getting authorization code).
+     * This URI must be fill in software statement and client registration.
      *
-     * @return {@link OAuth2CodeGrantFlow}
+     * @param baseUri application base URI
+     * @return redirect URI
+     */
+    public static String getOauthRedirectUri(URI baseUri) {
+        if (baseUri == null) {
+            throw new IllegalArgumentException("baseUri must not be null");
+        }
+
+        return UriBuilder.fromUri(baseUri).path(EndpointUris.AUTHORIZATION_OAUTH2_URI).build().toString();
+    }
+
+    /**
+     * Gets access token of the session.
+     *
+     * @param sessionId ID of the session
+     * @return access token or {@code null} if the session is not authorized or its access token expired
      */
     @Nullable
-    public static OAuth2CodeGrantFlow getFlow() {
-        return flow;
+    public String getAccessToken(@Nullable String sessionId) {
+        if (StringUtils.isBlank(sessionId)) {
+            return null;
+        }
+        purgeExpired();
+
+        long now = System.nanoTime();
+        Session session = sessions.get(sessionId);
+        if (session == null || now - session.lastAccess > sessionIdleTimeoutNanos || session.isExpired(now)) {
+            return null;
+        }
+        session.lastAccess = now;
+        if (now - session.persistedAccess > sessionIdleTimeoutNanos / 4) {
+            persistSession(session);
+        }
+        return session.accessToken;
     }
 
     /**
-     * Sets {@link OAuth2CodeGrantFlow}.
+     * Adds listener that is called with the previous and the new access token whenever the access token
+     * of a session is refreshed. The listener is called by the thread of the refresh scheduler.
      *
-     * @param flow {@link OAuth2CodeGrantFlow}
+     * @param listener listener of the refreshed access tokens
      */
-    public static void setFlow(OAuth2CodeGrantFlow flow) {
-        if (flow == null) {
-            throw new IllegalArgumentException("authorization flow must not be null");
+    public void addAccessTokenListener(BiConsumer<String, String> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
         }
 
-        OAuth2FlowProvider.flow = flow;
+        accessTokenListeners.add(listener);
     }
 
     /**
@@ -142,7 +387,7 @@ public class OAuth2FlowProvider {
      * @return {@link ClientIdentifier}
      */
     @Nullable
-    public static ClientIdentifier getClientIdentifier() {
+    public ClientIdentifier getClientIdentifier() {
         return clientIdentifier;
     }
 
@@ -151,11 +396,295 @@ public class OAuth2FlowProvider {
      *
      * @param clientIdentifier {@link ClientIdentifier}
      */
-    public static void setClientIdentifier(ClientIdentifier clientIdentifier) {
+    public void setClientIdentifier(ClientIdentifier clientIdentifier) {
         if (clientIdentifier == null) {
             throw new IllegalArgumentException("clientIdentifier must not be null");
         }
 
-        OAuth2FlowProvider.clientIdentifier = clientIdentifier;
+        this.clientIdentifier = clientIdentifier;
+        persist(CredentialRecordDto.client(clientIdentifier.getClientId(), clientIdentifier.getClientSecret()));
+    }
+
+    /**
+     * Removes expired flows and idle sessions, at most once per {@link #PURGE_INTERVAL_NANOS}.
+     */
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        long last = lastPurge.get();
+        if (now - last < PURGE_INTERVAL_NANOS || !lastPurge.compareAndSet(last, now)) {
+            return;
+        }
+
+        flows.values().removeIf(flow -> flow.isExpired(now));
+        sessions.values().stream()
+                .filter(session -> now - session.lastAccess > sessionIdleTimeoutNanos || session.isExpired(now))
+                .forEach(session -> removeSession(session.id));
+
+        OAuth2CredentialStore store = credentialStore;
+        if (store != null) {
+            store.compactIfNeeded(this::liveRecords, sessions.size() + 1);
+        }
+    }
+
+    /**
+     * Removes the session and cancels the refresh of its access token.
+     *
+     * @param sessionId ID of the session
+     */
+    private void removeSession(@Nullable String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+
+        Session session = sessions.remove(sessionId);
+        if (session != null) {
+            // after a concurrent persisting of the session
+            synchronized (session) {
+                session.cancelRefresh();
+                persist(CredentialRecordDto.sessionRemoved(sessionId));
+            }
+        }
+    }
+
+    /**
+     * Schedules the refresh of the access token of the session before the token expires.
+     * Tokens without expiry or refresh token are not refreshed.
+     *
+     * @param session session
+     */
+    private void scheduleRefresh(Session session) {
+        if (session.refreshToken == null || session.expiresAt == Long.MAX_VALUE) {
+            return;
+        }
+
+        long jitter = refreshJitterNanos == 0 ? 0 : ThreadLocalRandom.current().nextLong(refreshJitterNanos + 1);
+        long remaining = Math.max(0, session.expiresAt - System.nanoTime());
+        // short-lived tokens are refreshed in the second half of their life, not in a loop
+        schedule(session, remaining - Math.min(refreshAheadNanos + jitter, remaining / 2));
+    }
+
+    /**
+     * Schedules the refresh of the access token of the session after the delay.
+     *
+     * @param session session
+     * @param delay   delay in nanoseconds
+     */
+    private void schedule(Session session, long delay) {
+        try {
+            session.refresh = refreshScheduler.schedule(() -> refresh(session), delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // the application is being shut down, the token is valid until it expires
+            LOGGER.log(Level.FINE, "Refresh of the access token could not be scheduled.", e);
+        }
+    }
+
+    /**
+     * Refreshes the access token of the session, unless the session was removed or is idle, and notifies
+     * the access token listeners. A failed refresh is retried while the access token is valid.
+     *
+     * @param session session
+     */
+    private void refresh(Session session) {
+        long now = System.nanoTime();
+        if (sessions.get(session.id) != session) {
+            return;
+        }
+        if (now - session.lastAccess > sessionIdleTimeoutNanos || session.isExpired(now)) {
+            removeSession(session.id);
+            return;
+        }
+
+        String previousAccessToken = session.accessToken;
+        try {
+            TokenResult tokenResult = session.flow.refreshAccessToken(session.refreshToken);
+            session.update(tokenResult, now);
+            if (!persistSession(session)) {
+                return;
+            }
+            scheduleRefresh(session);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Access token could not be refreshed.", e);
+            if (session.expiresAt - System.nanoTime() > REFRESH_RETRY_NANOS) {
+                schedule(session, REFRESH_RETRY_NANOS);
+            }
+            return;
+        }
+
+        String accessToken = session.accessToken;
+        if (!previousAccessToken.equals(accessToken)) {
+            for (BiConsumer<String, String> listener : accessTokenListeners) {
+                try {
+                    listener.accept(previousAccessToken, accessToken);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Access token listener failed.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates authorization flow of the client, which uses the shared token client.
+     *
+     * @param client      client identifier
+     * @param redirectUri redirect URI of the authorization code, not needed for refreshing of the tokens
+     * @return new flow
+     */
+    private OAuth2CodeGrantFlow newFlow(ClientIdentifier client, @Nullable String redirectUri) {
+        OAuth2CodeGrantFlow.Builder<?> builder = OAuth2ClientSupport.authorizationCodeGrantFlowBuilder(
+                client,
+                getAuthorizationUri(),
+                getAccessTokenUri())
+                .scope(ADAA_SCOPE)
+                .client(tokenClient);
+        if (redirectUri != null) {
+            builder.redirectUri(redirectUri);
+        }
+        // the first flow registers its token readers to the client, the configuration must not be changed concurrently
+        synchronized (tokenClient) {
+            return builder.build();
+        }
+    }
+
+    /**
+     * Persists the tokens and the last use of the session, unless the session was removed meanwhile.
+     *
+     * @param session session
+     * @return {@code true} if the session is live, {@code false} if it was removed
+     */
+    private boolean persistSession(Session session) {
+        synchronized (session) {
+            if (sessions.get(session.id) != session) {
+                return false;
+            }
+
+            long lastAccess = session.lastAccess;
+            persist(toRecord(session));
+            session.persistedAccess = lastAccess;
+            return true;
+        }
+    }
+
+    /**
+     * Persists the record to the credential store, if there is one.
+     *
+     * @param record record
+     */
+    private void persist(CredentialRecordDto record) {
+        OAuth2CredentialStore store = credentialStore;
+        if (store != null) {
+            store.append(record);
+        }
+    }
+
+    /**
+     * Creates records of the live client identifier and sessions.
+     *
+     * @return records of the live credentials
+     */
+    private List<CredentialRecordDto> liveRecords() {
+        List<CredentialRecordDto> records = new ArrayList<>();
+        ClientIdentifier client = clientIdentifier;
+        if (client != null) {
+            records.add(CredentialRecordDto.client(client.getClientId(), client.getClientSecret()));
+        }
+        sessions.values().forEach(session -> records.add(toRecord(session)));
+        return records;
+    }
+
+    /**
+     * Creates record of the tokens of the session.
+     *
+     * @param session session
+     * @return record of the session
+     */
+    private static CredentialRecordDto toRecord(Session session) {
+        long now = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        Long expiresAt = session.expiresAt == Long.MAX_VALUE
+                ? null
+                : nowMillis + TimeUnit.NANOSECONDS.toMillis(session.expiresAt - now);
+        return CredentialRecordDto.session(session.id, session.accessToken, session.refreshToken, expiresAt,
+                nowMillis - TimeUnit.NANOSECONDS.toMillis(now - session.lastAccess));
+    }
+
+    /**
+     * Generates random session ID.
+     *
+     * @return new session ID
+     */
+    private String newSessionId() {
+        byte[] bytes = new byte[SESSION_ID_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Started authorization flow.
+     */
+    private static final class PendingFlow {
+        private final OAuth2CodeGrantFlow flow;
+        private final String sessionId;
+        private final long expiresAt;
+
+        private PendingFlow(OAuth2CodeGrantFlow flow, String sessionId, long expiresAt) {
+            this.flow = flow;
+            this.sessionId = sessionId;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+
+    /**
+     * Authorized session of a user.
+     */
+    private static final class Session {
+        private final String id;
+        private final OAuth2CodeGrantFlow flow;
+        private volatile String accessToken;
+        private volatile String refreshToken;
+        private volatile long expiresAt;
+        private volatile long lastAccess;
+        private volatile ScheduledFuture<?> refresh;
+
+        /**
+         * Last use of the session recorded in the credential store.
+         */
+        private volatile long persistedAccess;
+
+        private Session(String id, OAuth2CodeGrantFlow flow, long lastAccess) {
+            this.id = id;
+            this.flow = flow;
+            this.lastAccess = lastAccess;
+            this.persistedAccess = lastAccess;
+        }
+
+        /**
+         * Stores the tokens, the refresh token is kept if the authorization server did not issue a new one.
+         *
+         * @param tokenResult tokens
+         * @param issuedAt    time when the tokens were requested
+         */
+        private void update(TokenResult tokenResult, long issuedAt) {
+            Long expiresIn = tokenResult.getExpiresIn();
+            this.expiresAt = expiresIn == null ? Long.MAX_VALUE : issuedAt + TimeUnit.SECONDS.toNanos(expiresIn);
+            if (tokenResult.getRefreshToken() != null) {
+                this.refreshToken = tokenResult.getRefreshToken();
+            }
+            this.accessToken = tokenResult.getAccessToken();
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt > 0;
+        }
+
+        private void cancelRefresh() {
+            ScheduledFuture<?> scheduledRefresh = refresh;
+            if (scheduledRefresh != null) {
+                scheduledRefresh.cancel(false);
+            }
+        }
     }
 }
@@ -1,67 +1,92 @@
 package cz.kb.openbanking.adaa.example.web.resource;
 
-import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getAdaaUri;
-import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getApiKey;
-import static cz.kb.openbanking.adaa.example.web.common.ClientCertificateProvider.getClientWithCertificate;
-import static cz.kb.openbanking.adaa.example.web.oauth2.OAuth2FlowProvider.authorizationRedirect;
+import static cz.kb.openbanking.adaa.example.web.common.AsyncResponses.resumeWhenComplete;
+import static cz.kb.openbanking.adaa.example.web.common.AsyncResponses.serviceUnavailable;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.CookieParam;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
-import cz.kb.openbanking.adaa.client.api.AccountApi;
-import cz.kb.openbanking.adaa.client.jersey.AccountApiJerseyImpl;
 import cz.kb.openbanking.adaa.example.web.common.EndpointUris;
-import cz.kb.openbanking.adaa.example.web.mapper.AccountMapper;
+import cz.kb.openbanking.adaa.example.web.inject.AdaaBinder;
 import cz.kb.openbanking.adaa.example.web.model.AccountModel;
 import cz.kb.openbanking.adaa.example.web.oauth2.OAuth2FlowProvider;
+import cz.kb.openbanking.adaa.example.web.store.AccountListCache;
 import org.apache.commons.lang3.StringUtils;
-import org.glassfish.jersey.server.mvc.Template;
-import org.mapstruct.factory.Mappers;
+import org.glassfish.jersey.server.mvc.Viewable;
 
 /**
  * Resource that returns accounts provided by the KB ADAA API.
  *
  * @since 1.2
  */
+@Singleton
 @Path(EndpointUris.ACCOUNTS)
 public class AccountResource {
-    private static final AccountMapper mapper = Mappers.getMapper(AccountMapper.class);
-
-    private final AccountApi accountApi = new AccountApiJerseyImpl(getAdaaUri(), getApiKey(), getClientWithCertificate(null));
+    private final OAuth2FlowProvider flowProvider;
+    private final AccountListCache accountListCache;
+    private final ExecutorService executor;
 
     @Context
     private UriInfo uriInfo;
 
     /**
-     * Endpoint to get available accounts.
+     * New instance.
+     *
+     * @param flowProvider     store of OAuth2 credentials and authorization flows
+     * @param accountListCache cache of the lists of the accounts
+     * @param executor         bounded executor of the asynchronous requests
+     */
+    @Inject
+    public AccountResource(OAuth2FlowProvider flowProvider, AccountListCache accountListCache,
+                           @Named(AdaaBinder.RESOURCE_EXECUTOR) ExecutorService executor)
+    {
+        this.flowProvider = flowProvider;
+        this.accountListCache = accountListCache;
+        this.executor = executor;
+    }
+
+    /**
+     * Endpoint to get available accounts. The accounts are served from the cache, if they are not cached yet,
+     * they are loaded without blocking the container thread.
      *
-     * @return list of available accounts
+     * @param sessionId     ID of the session of the user
+     * @param asyncResponse suspended response that is resumed with list of available accounts
      */
     @GET
-    @Template(name = "/accounts.ftl")
     @Produces(MediaType.TEXT_HTML)
-    public Response getAccounts() {
+    public void getAccounts(@CookieParam(OAuth2FlowProvider.SESSION_COOKIE) String sessionId,
+                            @Suspended AsyncResponse asyncResponse)
+    {
         // check access token
-        String accessToken = OAuth2FlowProvider.getAccessToken();
+        String accessToken = flowProvider.getAccessToken(sessionId);
         if (StringUtils.isBlank(accessToken)) {
-            return authorizationRedirect(uriInfo.getBaseUri());
+            asyncResponse.resume(flowProvider.authorizationRedirect(uriInfo.getBaseUri(), sessionId));
+            return;
         }
 
-        // get available accounts
-        List<AccountModel> accounts = accountApi.accounts(accessToken)
-                                                .find()
-                                                .stream()
-                                                .map(mapper::toAccountModel)
-                                                .collect(Collectors.toList());
-
-        return Response.ok(Collections.singletonMap("accounts", accounts)).build();
+        try {
+            // get available accounts
+            resumeWhenComplete(asyncResponse, CompletableFuture.supplyAsync(() -> {
+                List<AccountModel> accounts = accountListCache.getAccounts(accessToken);
+                return new Viewable("/accounts.ftl", Collections.singletonMap("accounts", accounts));
+            }, executor));
+        } catch (RejectedExecutionException e) {
+            asyncResponse.resume(serviceUnavailable());
+        }
     }
 }
@@ -1,38 +1,61 @@
 package cz.kb.openbanking.adaa.example.web.resource;
 
-import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getAdaaUri;
-import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getApiKey;
-import static cz.kb.openbanking.adaa.example.web.common.ClientCertificateProvider.getClientWithCertificate;
-import static cz.kb.openbanking.adaa.example.web.oauth2.OAuth2FlowProvider.authorizationRedirect;
+import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getStatementsMaxLookbackDays;
+import static cz.kb.openbanking.adaa.example.web.common.AsyncResponses.resumeWhenComplete;
+import static cz.kb.openbanking.adaa.example.web.common.AsyncResponses.serviceUnavailable;
 
-import java.io.File;
 import java.io.IOException;
-import java.time.OffsetDateTime;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.CookieParam;
+import javax.ws.rs.ForbiddenException;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
-import cz.kb.openbanking.adaa.client.api.AccountApi;
-import cz.kb.openbanking.adaa.client.jersey.AccountApiJerseyImpl;
+import cz.kb.openbanking.adaa.example.web.common.ByteRange;
+import cz.kb.openbanking.adaa.example.web.common.CloseableStreamingOutput;
 import cz.kb.openbanking.adaa.example.web.common.EndpointUris;
-import cz.kb.openbanking.adaa.example.web.mapper.AccountMapper;
+import cz.kb.openbanking.adaa.example.web.inject.AdaaBinder;
 import cz.kb.openbanking.adaa.example.web.model.StatementModel;
 import cz.kb.openbanking.adaa.example.web.oauth2.OAuth2FlowProvider;
-import org.apache.commons.io.FileUtils;
+import cz.kb.openbanking.adaa.example.web.statement.PdfStatementArchive;
+import cz.kb.openbanking.adaa.example.web.statement.PdfStatementCache;
+import cz.kb.openbanking.adaa.example.web.statement.PdfStatementPrefetcher;
+import cz.kb.openbanking.adaa.example.web.store.AccountListCache;
+import cz.kb.openbanking.adaa.example.web.store.AccountStatementsCache;
 import org.apache.commons.lang3.StringUtils;
 import org.glassfish.jersey.server.mvc.Template;
-import org.mapstruct.factory.Mappers;
 
 /**
  * Resource that returns account statements provided by the KB ADAA API.
@@ -40,61 +63,129 @@ import org.mapstruct.factory.Mappers;
  * @author <a href="mailto:aleh_kuchynski@kb.cz">Aleh Kuchynski</a>
  * @since 1.1
  */
+@Singleton
 @Path(EndpointUris.STATEMENTS_URI)
 public class AccountStatementsResource {
     private static final String CONTENT_DISPOSITION_HEADER = "Content-Disposition";
+    private static final int DEFAULT_LOOKBACK_DAYS = 31;
+    private static final String APPLICATION_PDF = "application/pdf";
+    private static final String APPLICATION_ZIP = "application/zip";
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+    // statements never change, but they are private to the user
+    private static final String IMMUTABLE_CACHE_CONTROL = "private, max-age=31536000, immutable";
 
-    private static final AccountMapper mapper = Mappers.getMapper(AccountMapper.class);
-
-    private final AccountApi accountApi = new AccountApiJerseyImpl(getAdaaUri(), getApiKey(), getClientWithCertificate(null));
+    private final OAuth2FlowProvider flowProvider;
+    private final AccountListCache accountListCache;
+    private final AccountStatementsCache accountStatementsCache;
+    private final PdfStatementCache pdfStatementCache;
+    private final PdfStatementArchive pdfStatementArchive;
+    private final PdfStatementPrefetcher pdfStatementPrefetcher;
+    private final ExecutorService executor;
 
     @Context
     private UriInfo uriInfo;
 
+    /**
+     * New instance.
+     *
+     * @param flowProvider           store of OAuth2 credentials and authorization flows
+     * @param accountListCache       cache of the lists of accounts available with the access tokens
+     * @param accountStatementsCache cache of the account statements
+     * @param pdfStatementCache      disk cache of the PDF statements
+     * @param pdfStatementArchive    writer of the ZIP archives of the PDF statements
+     * @param pdfStatementPrefetcher prefetcher of the listed PDF statements
+     * @param executor               bounded executor of the asynchronous requests
+     */
+    @Inject
+    public AccountStatementsResource(OAuth2FlowProvider flowProvider, AccountListCache accountListCache,
+                                     AccountStatementsCache accountStatementsCache,
+                                     PdfStatementCache pdfStatementCache,
+                                     PdfStatementArchive pdfStatementArchive,
+                                     PdfStatementPrefetcher pdfStatementPrefetcher,
+                                     @Named(AdaaBinder.RESOURCE_EXECUTOR) ExecutorService executor)
+    {
+        this.flowProvider = flowProvider;
+        this.accountListCache = accountListCache;
+        this.accountStatementsCache = accountStatementsCache;
+        this.pdfStatementCache = pdfStatementCache;
+        this.pdfStatementArchive = pdfStatementArchive;
+        this.pdfStatementPrefetcher = pdfStatementPrefetcher;
+        this.executor = executor;
+    }
+
     /**
      * Endpoint that serves for downloading PDF account statement.
      *
+     * @param accountId ID of the account
+     * @param from      first issue day (ISO-8601 date), 31 days ago if empty, at most the configured maximum
+     *                  lookback ago
+     * @param to        last issue day (ISO-8601 date), today if empty
+     * @param sessionId ID of the session of the user
      * @return account statement as PDF file
      */
     @GET
     @Path("/list")
     @Template(name = "/statements.ftl")
     @Produces(MediaType.TEXT_HTML)
-    public Response getAccountStatements(@QueryParam("accountId") String accountId) {
+    public Response getAccountStatements(@QueryParam("accountId") String accountId, @QueryParam("from") String from,
+                                         @QueryParam("to") String to,
+                                         @CookieParam(OAuth2FlowProvider.SESSION_COOKIE) String sessionId)
+    {
         if (StringUtils.isBlank(accountId)) {
             throw new IllegalArgumentException("accountId must not be empty");
         }
+        LocalDate today = LocalDate.now(ZoneId.systemDefault());
+        LocalDate toDate = parseDate(to, today);
+        LocalDate fromDate = checkLookback(parseDate(from, toDate.minusDays(DEFAULT_LOOKBACK_DAYS)), today);
 
         // check access token
-        String accessToken = OAuth2FlowProvider.getAccessToken();
+        String accessToken = flowProvider.getAccessToken(sessionId);
         if (StringUtils.isBlank(accessToken)) {
-            return authorizationRedirect(uriInfo.getBaseUri());
+            return flowProvider.authorizationRedirect(uriInfo.getBaseUri(), sessionId);
         }
 
-        // get statements for last 30 days
-        OffsetDateTime fromDateTime = OffsetDateTime.now(ZoneId.systemDefault()).minusDays(31).truncatedTo(ChronoUnit.DAYS);
-        List<StatementModel> statements = accountApi.statements(accountId, OAuth2FlowProvider.getAccessToken(), fromDateTime)
-                                                    .find().stream()
-                                                    .map(mapper::toStatementModel)
-                                                    .collect(Collectors.toList());
+        List<StatementModel> statements = accountStatementsCache.getStatements(accountId, accessToken, fromDate,
+                toDate);
+        // the user is likely to download the listed statements next
+        pdfStatementPrefetcher.prefetch(accountId, accessToken, statements.stream()
+                                                                          .map(StatementModel::getStatementId)
+                                                                          .collect(Collectors.toList()));
 
         Map<String, Object> model = new HashMap<>();
         model.put("statements", statements);
         model.put("accountId", accountId);
+        model.put("from", fromDate.toString());
+        model.put("to", toDate.toString());
 
         return Response.ok(model).build();
     }
 
     /**
-     * Endpoint that serves for downloading PDF account statement.
+     * Endpoint that serves for downloading PDF account statement. The statement is served from the disk cache
+     * or streamed from the KB ADAA API, without blocking the container thread.
+     * <p>
+     * Statements never change, so they are identified by a strong entity tag derived from the account ID
+     * and the statement ID and may be cached by the browser forever. The preconditions are evaluated only
+     * after the account is verified to be available with the access token. A single byte range is supported for resumed downloads.
      *
-     * @param statementId ID of PDF statement
-     * @return account statement as PDF file
+     * @param statementId   ID of PDF statement
+     * @param accountId     ID of the account
+     * @param range         requested byte range, optional
+     * @param ifRange       entity tag the range is conditional on, optional
+     * @param request       request for evaluation of the preconditions
+     * @param sessionId     ID of the session of the user
+     * @param asyncResponse suspended response that is resumed with account statement as PDF file
      */
     @GET
     @Path("/pdf")
-    @Produces("application/pdf")
-    public Response getPdfStatement(@QueryParam("id") Long statementId, @QueryParam("accountId") String accountId) {
+    @Produces(APPLICATION_PDF)
+    public void getPdfStatement(@QueryParam("id") Long statementId, @QueryParam("accountId") String accountId,
+                                @HeaderParam(ByteRange.RANGE_HEADER) String range,
+                                @HeaderParam(ByteRange.IF_RANGE_HEADER) String ifRange,
+                                @Context Request request,
+                                @CookieParam(OAuth2FlowProvider.SESSION_COOKIE) String sessionId,
+                                @Suspended AsyncResponse asyncResponse)
+    {
         if (statementId == null) {
             throw new IllegalArgumentException("statementId must not be null");
         }
@@ -103,23 +194,212 @@ public class AccountStatementsResource {
         }
 
         // check access token
-        String accessToken = OAuth2FlowProvider.getAccessToken();
+        String accessToken = flowProvider.getAccessToken(sessionId);
+        if (StringUtils.isBlank(accessToken)) {
+            asyncResponse.resume(flowProvider.authorizationRedirect(uriInfo.getBaseUri(), sessionId));
+            return;
+        }
+
+        EntityTag entityTag = statementEntityTag(accountId, statementId);
+        // a range of another representation is ignored
+        boolean ranged = range != null && (ifRange == null || ifRange.trim().equals(entityTag.toString()));
+        try {
+            resumeWhenComplete(asyncResponse, CompletableFuture.supplyAsync(() -> {
+                if (accountListCache.getAccounts(accessToken).stream()
+                                    .noneMatch(account -> accountId.equals(account.getAccountId()))) {
+                    throw new ForbiddenException("Account is not available with the access token.");
+                }
+
+                // the browser has the statement already
+                Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+                if (notModified != null) {
+                    return withStatementHeaders(notModified, statementId, entityTag).build();
+                }
+
+                if (ranged) {
+                    return getPdfStatementRange(accountId, accessToken, statementId, range, entityTag);
+                }
+
+                CloseableStreamingOutput statement = pdfStatementCache.open(accountId, accessToken, statementId);
+                return withStatementHeaders(Response.ok(statement), statementId, entityTag).build();
+            }, executor));
+        } catch (RejectedExecutionException e) {
+            asyncResponse.resume(serviceUnavailable());
+        }
+    }
+
+    /**
+     * Endpoint that serves for downloading all PDF account statements listed by
+     * {@link #getAccountStatements(String, String, String, String)} as one ZIP archive. The statements are downloaded
+     * in parallel and streamed to the archive as they come.
+     *
+     * @param accountId     ID of the account
+     * @param from          first issue day (ISO-8601 date), 31 days ago if empty, at most the configured maximum
+     *                      lookback ago
+     * @param to            last issue day (ISO-8601 date), today if empty
+     * @param sessionId     ID of the session of the user
+     * @param asyncResponse suspended response that is resumed with the ZIP archive of the statements
+     */
+    @GET
+    @Path("/zip")
+    @Produces(APPLICATION_ZIP)
+    public void getZipStatements(@QueryParam("accountId") String accountId, @QueryParam("from") String from,
+                                 @QueryParam("to") String to,
+                                 @CookieParam(OAuth2FlowProvider.SESSION_COOKIE) String sessionId,
+                                 @Suspended AsyncResponse asyncResponse)
+    {
+        if (StringUtils.isBlank(accountId)) {
+            throw new IllegalArgumentException("accountId must not be empty");
+        }
+        LocalDate today = LocalDate.now(ZoneId.systemDefault());
+        LocalDate toDate = parseDate(to, today);
+        LocalDate fromDate = checkLookback(parseDate(from, toDate.minusDays(DEFAULT_LOOKBACK_DAYS)), today);
+
+        // check access token
+        String accessToken = flowProvider.getAccessToken(sessionId);
         if (StringUtils.isBlank(accessToken)) {
-            return authorizationRedirect(uriInfo.getBaseUri());
+            asyncResponse.resume(flowProvider.authorizationRedirect(uriInfo.getBaseUri(), sessionId));
+            return;
         }
 
-        byte[] pdfStatement = accountApi.statementPdf(accountId, OAuth2FlowProvider.getAccessToken(), statementId).find();
-        File statement = new File(statementId.toString());
         try {
-            FileUtils.writeByteArrayToFile(statement, pdfStatement);
+            resumeWhenComplete(asyncResponse, CompletableFuture.supplyAsync(() -> {
+                List<Long> statementIds = accountStatementsCache.getStatements(accountId, accessToken, fromDate, toDate)
+                                                                .stream()
+                                                                .map(StatementModel::getStatementId)
+                                                                .collect(Collectors.toList());
+                StreamingOutput archive = output -> pdfStatementArchive.write(accountId, accessToken, statementIds,
+                        output);
+
+                return Response.ok(archive)
+                               .header(CONTENT_DISPOSITION_HEADER, "attachment; filename=statements.zip")
+                               .build();
+            }, executor));
+        } catch (RejectedExecutionException e) {
+            asyncResponse.resume(serviceUnavailable());
+        }
+    }
+
+    /**
+     * Parses ISO-8601 date.
+     *
+     * @param date         ISO-8601 date
+     * @param defaultValue date used if the date is empty
+     * @return parsed date
+     */
+    private static LocalDate parseDate(@Nullable String date, LocalDate defaultValue) {
+        if (StringUtils.isBlank(date)) {
+            return defaultValue;
+        }
+
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Date '" + date + "' is not a valid ISO-8601 date.", e);
+        }
+    }
+
+    /**
+     * Checks that the first issue day is not before the configured maximum lookback, every month of the period
+     * is loaded from the KB ADAA API.
+     *
+     * @param from  first issue day
+     * @param today current day
+     * @return the first issue day
+     */
+    private static LocalDate checkLookback(LocalDate from, LocalDate today) {
+        int maxLookbackDays = getStatementsMaxLookbackDays();
+        if (from.isBefore(today.minusDays(maxLookbackDays))) {
+            throw new IllegalArgumentException("Date '" + from + "' is more than " + maxLookbackDays
+                    + " days ago.");
+        }
+        return from;
+    }
+
+    /**
+     * Creates response with the range of the PDF statement. The statement is downloaded to the disk cache first,
+     * so its length is known.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @param statementId ID of PDF statement
+     * @param range       requested byte range
+     * @param entityTag   entity tag of the statement
+     * @return 206 (Partial Content) response, 416 (Range Not Satisfiable) response or the whole statement
+     */
+    private Response getPdfStatementRange(String accountId, String accessToken, long statementId, String range,
+                                          EntityTag entityTag)
+    {
+        FileChannel statement;
+        long length;
+        try {
+            statement = pdfStatementCache.download(accountId, accessToken, statementId);
+            length = statement.size();
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException(e);
+        }
+
+        ByteRange byteRange = ByteRange.parse(range, length);
+        if (byteRange == null) {
+            StreamingOutput content = new CloseableStreamingOutput(statement,
+                    output -> PdfStatementCache.transfer(statement, 0, length, output));
+            return withStatementHeaders(Response.ok(content), statementId, entityTag)
+                    .header(HttpHeaders.CONTENT_LENGTH, length)
+                    .build();
+        }
+        if (!byteRange.isSatisfiable()) {
+            try {
+                statement.close();
+            } catch (IOException e) {
+                // nothing is read from the statement
+            }
+            return withStatementHeaders(Response.status(RANGE_NOT_SATISFIABLE), statementId, entityTag)
+                    .header(ByteRange.CONTENT_RANGE_HEADER, byteRange.toContentRange())
+                    .build();
         }
 
-        Response.ResponseBuilder response = Response.ok(statement);
-        response.header(CONTENT_DISPOSITION_HEADER, "attachment; filename=" + statementId + ".pdf");
-        return response.build();
+        StreamingOutput content = new CloseableStreamingOutput(statement,
+                output -> PdfStatementCache.transfer(statement, byteRange.getFirst(), byteRange.getCount(), output));
+        return withStatementHeaders(Response.status(Response.Status.PARTIAL_CONTENT).entity(content), statementId,
+                entityTag)
+                .type(APPLICATION_PDF)
+                .header(ByteRange.CONTENT_RANGE_HEADER, byteRange.toContentRange())
+                .header(HttpHeaders.CONTENT_LENGTH, byteRange.getCount())
+                .build();
+    }
 
+    /**
+     * Creates entity tag of the PDF statement, so the same statement ID of another account is never matched.
+     *
+     * @param accountId   ID of the account
+     * @param statementId ID of PDF statement
+     * @return strong entity tag of the statement
+     */
+    private static EntityTag statementEntityTag(String accountId, long statementId) {
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256")
+                                .digest((accountId + "/" + statementId).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported.", e);
+        }
+        return new EntityTag(Base64.getUrlEncoder().withoutPadding().encodeToString(hash));
+    }
 
+    /**
+     * Adds headers common to all responses with the PDF statement.
+     *
+     * @param response    response
+     * @param statementId ID of PDF statement
+     * @param entityTag   entity tag of the statement
+     * @return the response
+     */
+    private static Response.ResponseBuilder withStatementHeaders(Response.ResponseBuilder response, long statementId,
+                                                                 EntityTag entityTag)
+    {
+        return response.tag(entityTag)
+                       .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL)
+                       .header(ByteRange.ACCEPT_RANGES_HEADER, ByteRange.BYTES_UNIT)
+                       .header(CONTENT_DISPOSITION_HEADER, "attachment; filename=" + statementId + ".pdf");
     }
 }
@@ -3,9 +3,12 @@ package cz.kb.openbanking.adaa.example.web.resource;
 import java.util.logging.Logger;
 import javax.ws.rs.ApplicationPath;
 
+import cz.kb.openbanking.adaa.example.web.inject.AdaaBinder;
 import org.glassfish.jersey.logging.LoggingFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.server.mvc.freemarker.FreemarkerMvcFeature;
+import org.glassfish.jersey.server.spi.AbstractContainerLifecycleListener;
+import org.glassfish.jersey.server.spi.Container;
 
 /**
  * Application's entry point.
@@ -20,6 +23,16 @@ public class AdaaApplication extends ResourceConfig {
      * Configures application context.
      */
     public AdaaApplication() {
+        // register services shared by all (singleton) resources
+        AdaaBinder binder = new AdaaBinder();
+        register(binder);
+        register(new AbstractContainerLifecycleListener() {
+            @Override
+            public void onShutdown(Container container) {
+                binder.shutdown();
+            }
+        });
+
         //register resources
         register(RootResource.class);
         register(AuthorizationResource.class);
@@ -1,6 +1,9 @@
 package cz.kb.openbanking.adaa.example.web.resource;
 
 import java.net.URI;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.CookieParam;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.QueryParam;
@@ -11,8 +14,8 @@ import javax.ws.rs.core.UriInfo;
 
 import cz.kb.openbanking.adaa.example.web.common.EndpointUris;
 import cz.kb.openbanking.adaa.example.web.oauth2.OAuth2FlowProvider;
+import cz.kb.openbanking.adaa.example.web.store.AccountListCache;
 import org.apache.commons.lang3.StringUtils;
-import org.glassfish.jersey.client.oauth2.TokenResult;
 
 /**
  * This resource serves to receive authorization code (after user grants access to this application)
@@ -22,24 +25,42 @@ import org.glassfish.jersey.client.oauth2.TokenResult;
  * @see OAuth2FlowProvider
  * @since 1.0
  */
+@Singleton
 @Path(EndpointUris.AUTHORIZATION)
 public class AuthorizationResource {
+    private final OAuth2FlowProvider flowProvider;
+    private final AccountListCache accountListCache;
 
     @Context
     private UriInfo uriInfo;
 
+    /**
+     * New instance.
+     *
+     * @param flowProvider     store of OAuth2 credentials and authorization flows
+     * @param accountListCache cache of the lists of the accounts
+     */
+    @Inject
+    public AuthorizationResource(OAuth2FlowProvider flowProvider, AccountListCache accountListCache) {
+        this.flowProvider = flowProvider;
+        this.accountListCache = accountListCache;
+    }
+
     /**
      * Receives the authorization code, call KB OAuth2 API to get access token
-     * and set it to the {@link OAuth2FlowProvider}.
+     * and set it to a new session of the {@link OAuth2FlowProvider}.
      *
      * @param authCode OAuth2 authorization code
      * @param state described by OAuth2 specification and serves to prevent possible CSRF attack
+     * @param sessionId ID of the session that started the authorization
      *
      * @return redirect user to transaction's resource
      */
     @GET
     @Path(EndpointUris.OAUTH2_PATH)
-    public Response authorize(@QueryParam("code") String authCode, @QueryParam("state") String state) {
+    public Response authorize(@QueryParam("code") String authCode, @QueryParam("state") String state,
+                              @CookieParam(OAuth2FlowProvider.SESSION_COOKIE) String sessionId)
+    {
         if (StringUtils.isBlank(authCode)) {
             throw new IllegalArgumentException("authCode must not be empty");
         }
@@ -48,11 +69,19 @@ public class AuthorizationResource {
         }
 
         // call KB OAuth2 API to get access token
-        TokenResult tokenResult = OAuth2FlowProvider.getFlow().finish(authCode, state);
-        OAuth2FlowProvider.setAccessToken(tokenResult.getAccessToken());
+        String previousAccessToken = flowProvider.getAccessToken(sessionId);
+        String authorizedSessionId = flowProvider.finish(sessionId, authCode, state);
+
+        // accounts cached for the replaced token are not needed anymore
+        if (previousAccessToken != null
+                && !previousAccessToken.equals(flowProvider.getAccessToken(authorizedSessionId))) {
+            accountListCache.invalidate(previousAccessToken);
+        }
 
         // authorization is finished -> now redirecting back to the 'transactions' resource
         URI uri = UriBuilder.fromUri(uriInfo.getBaseUri()).path(EndpointUris.ACCOUNTS).build();
-        return Response.seeOther(uri).build();
+        return Response.seeOther(uri)
+                       .cookie(OAuth2FlowProvider.sessionCookie(uriInfo.getBaseUri(), authorizedSessionId))
+                       .build();
     }
 }
@@ -1,17 +1,16 @@
 package cz.kb.openbanking.adaa.example.web.resource;
 
-import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getApiKey;
 import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getClientRegistrationUri;
 import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getSecretKey;
-import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getSoftwareStatementUri;
-import static cz.kb.openbanking.adaa.example.web.common.ClientCertificateProvider.getClientWithCertificate;
-import static cz.kb.openbanking.adaa.example.web.oauth2.OAuth2FlowProvider.authorizationRedirect;
 
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Collections;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.CookieParam;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -23,7 +22,6 @@ import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
 import cz.kb.openbanking.adaa.example.core.decryption.Aes256DecryptionService;
-import cz.kb.openbanking.adaa.example.core.decryption.impl.Aes256DecryptionServiceImpl;
 import cz.kb.openbanking.adaa.example.web.common.EndpointUris;
 import cz.kb.openbanking.adaa.example.web.dto.ClientIdDto;
 import cz.kb.openbanking.adaa.example.web.dto.ClientRegistrationRequest;
@@ -34,7 +32,6 @@ import cz.kb.openbanking.clientregistration.client.api.model.Jwt;
 import cz.kb.openbanking.clientregistration.client.api.model.ResponseTypesEnum;
 import cz.kb.openbanking.clientregistration.client.api.model.SoftwareStatement;
 import cz.kb.openbanking.clientregistration.client.api.model.TokenEndpointAuthMethodEnum;
-import cz.kb.openbanking.clientregistration.client.jersey.SoftwareStatementsJerseyImpl;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.lang3.StringUtils;
@@ -51,16 +48,34 @@ import org.glassfish.jersey.server.mvc.Viewable;
  * @see OAuth2FlowProvider
  * @since 1.0
  */
+@Singleton
 @Path(EndpointUris.REGISTRATION)
 public class ClientRegistrationResource {
     private static final ObjectMapper mapper = new ObjectMapper();
-    private static final Aes256DecryptionService DECRYPTION_SERVICE = new Aes256DecryptionServiceImpl();
-    private static final SoftwareStatementsApi softwareStatementsApi =
-        new SoftwareStatementsJerseyImpl(getSoftwareStatementUri(), getApiKey(), getClientWithCertificate(null));
+
+    private final Aes256DecryptionService decryptionService;
+    private final SoftwareStatementsApi softwareStatementsApi;
+    private final OAuth2FlowProvider flowProvider;
 
     @Context
     private UriInfo uriInfo;
 
+    /**
+     * New instance.
+     *
+     * @param softwareStatementsApi KB Client Registration API client
+     * @param decryptionService     decryption service for client's registration data
+     * @param flowProvider          store of OAuth2 credentials and authorization flows
+     */
+    @Inject
+    public ClientRegistrationResource(SoftwareStatementsApi softwareStatementsApi,
+                                      Aes256DecryptionService decryptionService, OAuth2FlowProvider flowProvider)
+    {
+        this.softwareStatementsApi = softwareStatementsApi;
+        this.decryptionService = decryptionService;
+        this.flowProvider = flowProvider;
+    }
+
     /**
      * Returns a registration page with a form. After completion of this form
      * user will be redirected to KB Login page, where should grant access to application registration.
@@ -138,12 +153,14 @@ public class ClientRegistrationResource {
      *
      * @param salt          salt that was used during encryption
      * @param encryptedData AES-256 encrypted client's identifiers
+     * @param sessionId     ID of the session of the user
      * @return redirect user to continue OAuth2 authorization process
      */
     @GET
     @Path(EndpointUris.CLIENT_REGISTRATION_PATH)
     public Response retrieveClientIdentifier(@QueryParam("salt") String salt,
-                                             @QueryParam("encryptedData") String encryptedData)
+                                             @QueryParam("encryptedData") String encryptedData,
+                                             @CookieParam(OAuth2FlowProvider.SESSION_COOKIE) String sessionId)
     {
         if (StringUtils.isBlank(salt)) {
             throw new IllegalArgumentException("salt must not be empty");
@@ -152,8 +169,7 @@ public class ClientRegistrationResource {
             throw new IllegalArgumentException("encryptedData must not be empty");
         }
 
-        String clientIdentifierJson = DECRYPTION_SERVICE.decrypt(encryptedData, salt, getSecretKey());
-        ObjectMapper mapper = new ObjectMapper();
+        String clientIdentifierJson = decryptionService.decrypt(encryptedData, salt, getSecretKey());
         ClientIdDto clientIdDto;
         try {
             clientIdDto = mapper.readValue(clientIdentifierJson, ClientIdDto.class);
@@ -161,10 +177,10 @@ public class ClientRegistrationResource {
             throw new IllegalStateException("Cannot parse client registration's data.", e);
         }
         ClientIdentifier clientIdentifier = new ClientIdentifier(clientIdDto.getClientId(), clientIdDto.getClientSecret());
-        OAuth2FlowProvider.setClientIdentifier(clientIdentifier);
+        flowProvider.setClientIdentifier(clientIdentifier);
 
         // registration is finished -> now redirect client to get the authorization code
-        return authorizationRedirect(uriInfo.getBaseUri());
+        return flowProvider.authorizationRedirect(uriInfo.getBaseUri(), sessionId);
     }
 
 }
@@ -1,6 +1,8 @@
 package cz.kb.openbanking.adaa.example.web.resource;
 
 import java.net.URI;
+import javax.inject.Inject;
+import javax.inject.Singleton;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.core.Context;
@@ -10,6 +12,7 @@ import javax.ws.rs.core.UriInfo;
 
 import cz.kb.openbanking.adaa.example.web.common.EndpointUris;
 import cz.kb.openbanking.adaa.example.web.oauth2.OAuth2FlowProvider;
+import org.glassfish.jersey.client.oauth2.ClientIdentifier;
 
 /**
  * Root resource.
@@ -17,12 +20,24 @@ import cz.kb.openbanking.adaa.example.web.oauth2.OAuth2FlowProvider;
  * @author <a href="mailto:aleh_kuchynski@kb.cz">Aleh Kuchynski</a>
  * @since 1.0
  */
+@Singleton
 @Path("/")
 public class RootResource {
+    private final OAuth2FlowProvider flowProvider;
 
     @Context
     private UriInfo uriInfo;
 
+    /**
+     * New instance.
+     *
+     * @param flowProvider store of OAuth2 credentials and authorization flows
+     */
+    @Inject
+    public RootResource(OAuth2FlowProvider flowProvider) {
+        this.flowProvider = flowProvider;
+    }
+
     /**
      * Resolves application's entry point.
      *
@@ -31,9 +46,10 @@ public class RootResource {
     @GET
     public Response entryPoint() {
         URI uri;
-        if (OAuth2FlowProvider.getClientIdentifier() == null
-                || OAuth2FlowProvider.getClientIdentifier().getClientId() == null
-                || OAuth2FlowProvider.getClientIdentifier().getClientSecret() == null) {
+        ClientIdentifier clientIdentifier = flowProvider.getClientIdentifier();
+        if (clientIdentifier == null
+                || clientIdentifier.getClientId() == null
+                || clientIdentifier.getClientSecret() == null) {
             uri = UriBuilder.fromUri(uriInfo.getBaseUri()).path(EndpointUris.CLIENT_REGISTRATION_FORM_URI).build();
         } else {
             uri = UriBuilder.fromUri(uriInfo.getBaseUri()).path(EndpointUris.ACCOUNTS).build();
@@ -1,35 +1,52 @@
 package cz.kb.openbanking.adaa.example.web.resource;
 
-import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getAdaaUri;
-import static cz.kb.openbanking.adaa.example.core.configuration.AdaaProperties.getApiKey;
-import static cz.kb.openbanking.adaa.example.web.common.ClientCertificateProvider.getClientWithCertificate;
-import static cz.kb.openbanking.adaa.example.web.oauth2.OAuth2FlowProvider.authorizationRedirect;
+import static cz.kb.openbanking.adaa.example.web.common.AsyncResponses.resumeWhenComplete;
+import static cz.kb.openbanking.adaa.example.web.common.AsyncResponses.serviceUnavailable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.CookieParam;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import cz.kb.openbanking.adaa.client.api.AccountApi;
-import cz.kb.openbanking.adaa.client.api.model.PageSlice;
-import cz.kb.openbanking.adaa.client.jersey.AccountApiJerseyImpl;
-import cz.kb.openbanking.adaa.client.model.generated.AccountBalance;
 import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import cz.kb.openbanking.adaa.example.core.transaction.impl.ConcurrentTransactionHistoryFetcher;
 import cz.kb.openbanking.adaa.example.web.common.EndpointUris;
+import cz.kb.openbanking.adaa.example.web.common.NdjsonWriter;
+import cz.kb.openbanking.adaa.example.web.inject.AdaaBinder;
 import cz.kb.openbanking.adaa.example.web.mapper.AccountMapper;
+import cz.kb.openbanking.adaa.example.web.model.AccountBalanceModel;
 import cz.kb.openbanking.adaa.example.web.model.TransactionModel;
 import cz.kb.openbanking.adaa.example.web.oauth2.OAuth2FlowProvider;
+import cz.kb.openbanking.adaa.example.web.store.TransactionHistoryStore;
+import cz.kb.openbanking.adaa.example.web.store.TransactionQuery;
 import org.apache.commons.lang3.StringUtils;
-import org.glassfish.jersey.server.mvc.Template;
-import org.mapstruct.factory.Mappers;
+import org.glassfish.jersey.server.mvc.Viewable;
 
 /**
  * Resource that returns a transactions history by the KB ADAA API.
@@ -37,49 +54,209 @@ import org.mapstruct.factory.Mappers;
  * @author <a href="mailto:aleh_kuchynski@kb.cz">Aleh Kuchynski</a>
  * @since 1.0
  */
+@Singleton
 @Path(EndpointUris.TRANSACTIONS_URI)
 public class TransactionHistoryResource {
-    private static final AccountMapper mapper = Mappers.getMapper(AccountMapper.class);
 
-    private final AccountApi accountApi = new AccountApiJerseyImpl(getAdaaUri(), getApiKey(),
-        getClientWithCertificate(null));
+    /**
+     * Media type of newline delimited JSON.
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final OAuth2FlowProvider flowProvider;
+    private final AccountApi accountApi;
+    private final TransactionHistoryStore transactionHistoryStore;
+    private final ConcurrentTransactionHistoryFetcher pageFetcher;
+    private final AccountMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
 
     @Context
     private UriInfo uriInfo;
 
+    /**
+     * New instance.
+     *
+     * @param flowProvider            store of OAuth2 credentials and authorization flows
+     * @param accountApi              KB ADAA API client
+     * @param transactionHistoryStore local copy of the transaction histories
+     * @param pageFetcher             fetcher of the pages of the transaction history
+     * @param mapper                  mapper between ADAA API and application model
+     * @param objectMapper            JSON mapper
+     * @param executor                bounded executor of the asynchronous requests
+     */
+    @Inject
+    public TransactionHistoryResource(OAuth2FlowProvider flowProvider, AccountApi accountApi,
+                                      TransactionHistoryStore transactionHistoryStore,
+                                      ConcurrentTransactionHistoryFetcher pageFetcher, AccountMapper mapper,
+                                      ObjectMapper objectMapper,
+                                      @Named(AdaaBinder.RESOURCE_EXECUTOR) ExecutorService executor)
+    {
+        this.flowProvider = flowProvider;
+        this.accountApi = accountApi;
+        this.transactionHistoryStore = transactionHistoryStore;
+        this.pageFetcher = pageFetcher;
+        this.mapper = mapper;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+    }
+
     /**
      * Endpoint that serves for getting client's transactions history.
+     * The history is served from the indexed local store that is synchronized with the KB ADAA API,
+     * all ranges are inclusive and criteria that are not set match all transactions.
+     * The history and the balance are loaded concurrently, without blocking the container thread.
      *
-     * @return HTML page with client's transactions history
+     * @param accountId     ID of the account
+     * @param fromDate      first booking day (ISO-8601 date)
+     * @param toDate        last booking day (ISO-8601 date)
+     * @param valueFromDate first value day (ISO-8601 date)
+     * @param valueToDate   last value day (ISO-8601 date)
+     * @param iban          IBAN code of the counter party
+     * @param minAmount     the lowest transaction amount
+     * @param maxAmount     the highest transaction amount
+     * @param sessionId     ID of the session of the user
+     * @param asyncResponse suspended response that is resumed with HTML page with client's transactions history
      */
     @GET
-    @Template(name = "/transactions.ftl")
     @Produces(MediaType.TEXT_HTML)
-    public Response transactions(@QueryParam("accountId") String accountId) {
+    public void transactions(@QueryParam("accountId") String accountId, @QueryParam("fromDate") String fromDate,
+                             @QueryParam("toDate") String toDate,
+                             @QueryParam("valueFromDate") String valueFromDate,
+                             @QueryParam("valueToDate") String valueToDate, @QueryParam("iban") String iban,
+                             @QueryParam("minAmount") Double minAmount, @QueryParam("maxAmount") Double maxAmount,
+                             @CookieParam(OAuth2FlowProvider.SESSION_COOKIE) String sessionId,
+                             @Suspended AsyncResponse asyncResponse)
+    {
         if (StringUtils.isBlank(accountId)) {
             throw new IllegalArgumentException("accountId must not be empty");
         }
+        TransactionQuery query = new TransactionQuery();
+        query.setBookingDateFrom(parseDate(fromDate));
+        query.setBookingDateTo(parseDate(toDate));
+        query.setValueDateFrom(parseDate(valueFromDate));
+        query.setValueDateTo(parseDate(valueToDate));
+        query.setCounterpartyIban(iban);
+        query.setAmountFrom(minAmount);
+        query.setAmountTo(maxAmount);
 
         // check access token
-        String accessToken = OAuth2FlowProvider.getAccessToken();
+        String accessToken = flowProvider.getAccessToken(sessionId);
         if (StringUtils.isBlank(accessToken)) {
-            return authorizationRedirect(uriInfo.getBaseUri());
+            asyncResponse.resume(flowProvider.authorizationRedirect(uriInfo.getBaseUri(), sessionId));
+            return;
         }
 
-        // calling ADAA Client API SDK for getting transaction history
-        PageSlice<AccountTransaction> pageSlice = accountApi.transactions(accountId, accessToken)
-                                                            .page(0).find();
-        List<TransactionModel> transactions = pageSlice.getContent().stream()
-                                                       .map(mapper::toTransactionModel).collect(Collectors.toList());
+        CompletableFuture<List<TransactionModel>> transactions = null;
+        try {
+            transactions = CompletableFuture.supplyAsync(
+                    () -> transactionHistoryStore.getHistory(accountId, accessToken).find(query), executor);
+            // for the example purposes only the first one account's balance was used
+            CompletableFuture<AccountBalanceModel> balance = CompletableFuture.supplyAsync(
+                    () -> mapper.toAccountBalanceModel(accountApi.balances(accountId, accessToken).find().get(0)),
+                    executor);
 
-        List<AccountBalance> accountBalances = accountApi.balances(accountId, accessToken).find();
+            resumeWhenComplete(asyncResponse, transactions.thenCombine(balance, (transactionModels, balanceModel) -> {
+                Map<String, Object> model = new HashMap<>();
+                model.put("transactions", transactionModels);
+                model.put("balance", balanceModel);
+                model.put("accountId", accountId);
+                return new Viewable("/transactions.ftl", model);
+            }));
+        } catch (RejectedExecutionException e) {
+            if (transactions != null) {
+                transactions.cancel(false);
+            }
+            asyncResponse.resume(serviceUnavailable());
+        }
+    }
 
-        Map<String, Object> model = new HashMap<>();
-        model.put("transactions", transactions);
-        // for the example purposes only the first one account's balance was used
-        model.put("balance", mapper.toAccountBalanceModel(accountBalances.get(0)));
-        model.put("accountId", accountId);
+    /**
+     * Endpoint that exports client's transactions history as newline delimited JSON, one transaction per line.
+     * Transactions are written as the pages arrive from the KB ADAA API, so the response starts before
+     * the last page is fetched and only a few pages are held in memory.
+     *
+     * @param accountId     ID of the account
+     * @param fromDate      first booking day (ISO-8601 date) of the exported period, whole history if empty
+     * @param toDate        last booking day (ISO-8601 date) of the exported period, today if empty
+     * @param sessionId     ID of the session of the user
+     * @param asyncResponse suspended response that is resumed with the streamed transactions
+     */
+    @GET
+    @Path(EndpointUris.TRANSACTIONS_EXPORT_PATH)
+    @Produces(APPLICATION_NDJSON)
+    public void exportTransactions(@QueryParam("accountId") String accountId, @QueryParam("fromDate") String fromDate,
+                                   @QueryParam("toDate") String toDate,
+                                   @CookieParam(OAuth2FlowProvider.SESSION_COOKIE) String sessionId,
+                                   @Suspended AsyncResponse asyncResponse)
+    {
+        if (StringUtils.isBlank(accountId)) {
+            throw new IllegalArgumentException("accountId must not be empty");
+        }
+        OffsetDateTime fromDateTime = startOfDay(parseDate(fromDate));
+        OffsetDateTime lastDayStart = startOfDay(parseDate(toDate));
+        OffsetDateTime toDateTime = lastDayStart == null ? null : lastDayStart.plusDays(1);
 
-        return Response.ok(model).build();
+        // check access token, machine clients cannot follow the authorization redirect
+        String accessToken = flowProvider.getAccessToken(sessionId);
+        if (StringUtils.isBlank(accessToken)) {
+            asyncResponse.resume(Response.status(Response.Status.UNAUTHORIZED).build());
+            return;
+        }
+
+        StreamingOutput transactions = output -> {
+            // the container closes the output stream
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, output)) {
+                pageFetcher.forEachPage(accountId, accessToken, fromDateTime, toDateTime, page -> {
+                    try {
+                        for (AccountTransaction transaction : page) {
+                            writer.write(mapper.toTransactionModel(transaction));
+                        }
+                        writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+
+        try {
+            // the entity is written by the thread that resumes the response
+            CompletableFuture.runAsync(() -> asyncResponse.resume(Response.ok(transactions).build()), executor);
+        } catch (RejectedExecutionException e) {
+            asyncResponse.resume(serviceUnavailable());
+        }
+    }
+
+    /**
+     * Converts date to the start of that day in the system time zone.
+     *
+     * @param date date
+     * @return start of the day or {@code null} if the date is not set
+     */
+    @Nullable
+    private static OffsetDateTime startOfDay(@Nullable LocalDate date) {
+        return date == null ? null : date.atStartOfDay(ZoneId.systemDefault()).toOffsetDateTime();
+    }
+
+    /**
+     * Parses ISO-8601 date.
+     *
+     * @param date ISO-8601 date
+     * @return parsed date or {@code null} if the date is empty
+     */
+    @Nullable
+    private static LocalDate parseDate(@Nullable String date) {
+        if (StringUtils.isBlank(date)) {
+            return null;
+        }
+
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Date '" + date + "' is not a valid ISO-8601 date.", e);
+        }
     }
 }
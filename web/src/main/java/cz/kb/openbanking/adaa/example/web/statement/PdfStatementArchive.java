@@ -0,0 +1,205 @@
+package cz.kb.openbanking.adaa.example.web.statement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Writer of the ZIP archives of the PDF statements of an account.
+ * <p>
+ * The statements are downloaded to the {@link PdfStatementCache} concurrently, at most the given number
+ * of them at once, and each one is written to the archive as soon as it is downloaded. Neither the archive
+ * nor a statement is held in memory.
+ *
+ * @since 1.2
+ */
+public class PdfStatementArchive {
+    private final PdfStatementCache pdfStatementCache;
+    private final ExecutorService downloadExecutor;
+    private final int maxConcurrentDownloads;
+
+    /**
+     * New instance.
+     *
+     * @param pdfStatementCache      disk cache of the PDF statements
+     * @param downloadExecutor       executor of the downloads (shared by all archives)
+     * @param maxConcurrentDownloads maximum number of statements of one archive downloaded at once
+     */
+    public PdfStatementArchive(PdfStatementCache pdfStatementCache, ExecutorService downloadExecutor,
+                               int maxConcurrentDownloads)
+    {
+        if (pdfStatementCache == null) {
+            throw new IllegalArgumentException("pdfStatementCache must not be null");
+        }
+        if (downloadExecutor == null) {
+            throw new IllegalArgumentException("downloadExecutor must not be null");
+        }
+        if (maxConcurrentDownloads < 1) {
+            throw new IllegalArgumentException("maxConcurrentDownloads must be positive");
+        }
+
+        this.pdfStatementCache = pdfStatementCache;
+        this.downloadExecutor = downloadExecutor;
+        this.maxConcurrentDownloads = maxConcurrentDownloads;
+    }
+
+    /**
+     * Writes ZIP archive of the statements to the output. The statements are named by their IDs
+     * and written in the order they are downloaded, a repeated ID is written once.
+     *
+     * @param accountId    ID of the account
+     * @param accessToken  OAuth2 access token
+     * @param statementIds IDs of the statements
+     * @param output       output, it is not closed
+     * @throws IOException if a statement could not be downloaded or the archive could not be written
+     */
+    public void write(String accountId, String accessToken, List<Long> statementIds, OutputStream output)
+            throws IOException
+    {
+        if (StringUtils.isBlank(accountId)) {
+            throw new IllegalArgumentException("accountId must not be empty");
+        }
+        if (StringUtils.isBlank(accessToken)) {
+            throw new IllegalArgumentException("accessToken must not be empty");
+        }
+        if (statementIds == null) {
+            throw new IllegalArgumentException("statementIds must not be null");
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("output must not be null");
+        }
+
+        // a repeated entry name would fail the archive after the response was committed
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(statementIds));
+        CompletionService<Statement> downloads = new ExecutorCompletionService<>(downloadExecutor);
+        List<Future<Statement>> started = new ArrayList<>();
+        Iterator<Long> pending = distinctIds.iterator();
+        try {
+            while (started.size() < maxConcurrentDownloads && pending.hasNext()) {
+                started.add(submit(downloads, accountId, accessToken, pending.next()));
+            }
+
+            ZipOutputStream archive = new ZipOutputStream(output);
+            // PDFs are compressed already
+            archive.setLevel(Deflater.BEST_SPEED);
+            for (int written = 0; written < distinctIds.size(); written++) {
+                try (Statement statement = take(downloads)) {
+                    if (pending.hasNext()) {
+                        started.add(submit(downloads, accountId, accessToken, pending.next()));
+                    }
+
+                    archive.putNextEntry(new ZipEntry(statement.statementId + ".pdf"));
+                    try (InputStream input = Channels.newInputStream(statement.content)) {
+                        PdfStatementClient.copy(input, archive);
+                    }
+                    archive.closeEntry();
+                }
+            }
+            // finish the archive without closing the output
+            archive.finish();
+            archive.flush();
+        } finally {
+            for (Future<Statement> download : started) {
+                closeQuietly(download);
+            }
+        }
+    }
+
+    /**
+     * Starts download of the statement.
+     *
+     * @param downloads   downloads of the archive
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @param statementId ID of the statement
+     * @return started download
+     */
+    private Future<Statement> submit(CompletionService<Statement> downloads, String accountId, String accessToken,
+                                     long statementId)
+    {
+        return downloads.submit(() -> {
+            FileChannel content = pdfStatementCache.download(accountId, accessToken, statementId);
+            if (Thread.currentThread().isInterrupted()) {
+                // cancelled meanwhile, nobody is going to close the statement
+                content.close();
+                throw new InterruptedIOException("Download of the statement was cancelled.");
+            }
+            return new Statement(statementId, content);
+        });
+    }
+
+    /**
+     * Waits for the next downloaded statement.
+     *
+     * @param downloads downloads of the archive
+     * @return downloaded statement
+     * @throws IOException if the statement could not be downloaded
+     */
+    private static Statement take(CompletionService<Statement> downloads) throws IOException {
+        try {
+            return downloads.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download of the statements was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Statement could not be downloaded.", e.getCause());
+        }
+    }
+
+    /**
+     * Cancels the download, or closes the downloaded statement that was not written.
+     *
+     * @param download download of the statement
+     */
+    private static void closeQuietly(Future<Statement> download) {
+        if (download.cancel(true)) {
+            return;
+        }
+
+        try {
+            download.get().close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | IOException e) {
+            // nothing to close
+        }
+    }
+
+    /**
+     * Downloaded statement.
+     */
+    private static final class Statement implements AutoCloseable {
+        private final long statementId;
+        private final FileChannel content;
+
+        private Statement(long statementId, FileChannel content) {
+            this.statementId = statementId;
+            this.content = content;
+        }
+
+        @Override
+        public void close() throws IOException {
+            content.close();
+        }
+    }
+}
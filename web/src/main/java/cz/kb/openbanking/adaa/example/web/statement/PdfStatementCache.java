@@ -0,0 +1,253 @@
+package cz.kb.openbanking.adaa.example.web.statement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nullable;
+import javax.ws.rs.ForbiddenException;
+
+import cz.kb.openbanking.adaa.example.core.cache.DiskLruCache;
+import cz.kb.openbanking.adaa.example.web.common.CloseableStreamingOutput;
+import cz.kb.openbanking.adaa.example.web.store.AccountListCache;
+import org.apache.commons.io.input.TeeInputStream;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Disk cache of the PDF statements, which never change once they are issued.
+ * <p>
+ * A statement that is not cached is streamed from the KB ADAA API to the client and to a temporary file
+ * at the same time, the file is stored to the cache only when the whole statement was downloaded.
+ * A cached statement is transferred from the file by {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+ * without any call of the KB ADAA API. As the API does not authorize the cached statement, the account must be
+ * one of the (cached) accounts of the access token.
+ *
+ * @see DiskLruCache
+ * @since 1.2
+ */
+public class PdfStatementCache {
+    private final PdfStatementClient pdfStatementClient;
+    private final AccountListCache accountListCache;
+    private final DiskLruCache cache;
+
+    /**
+     * New instance.
+     *
+     * @param pdfStatementClient client of the PDF statements
+     * @param accountListCache   cache of the accounts of the access tokens
+     * @param cache              disk cache of the statement files
+     */
+    public PdfStatementCache(PdfStatementClient pdfStatementClient, AccountListCache accountListCache,
+                             DiskLruCache cache)
+    {
+        if (pdfStatementClient == null) {
+            throw new IllegalArgumentException("pdfStatementClient must not be null");
+        }
+        if (accountListCache == null) {
+            throw new IllegalArgumentException("accountListCache must not be null");
+        }
+        if (cache == null) {
+            throw new IllegalArgumentException("cache must not be null");
+        }
+
+        this.pdfStatementClient = pdfStatementClient;
+        this.accountListCache = accountListCache;
+        this.cache = cache;
+    }
+
+    /**
+     * Opens the PDF statement. Failures of the KB ADAA API are reported by this method,
+     * before anything is written to the client.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @param statementId ID of the statement
+     * @return content of the statement, it must be closed if it is not written to release the connection or file
+     */
+    public CloseableStreamingOutput open(String accountId, String accessToken, long statementId) {
+        if (StringUtils.isBlank(accountId)) {
+            throw new IllegalArgumentException("accountId must not be empty");
+        }
+        if (StringUtils.isBlank(accessToken)) {
+            throw new IllegalArgumentException("accessToken must not be empty");
+        }
+
+        String key = toKey(accountId, statementId);
+        FileChannel cachedStatement = openCached(key, accountId, accessToken);
+        if (cachedStatement != null) {
+            return new CloseableStreamingOutput(cachedStatement,
+                    output -> transfer(cachedStatement, 0, Long.MAX_VALUE, output));
+        }
+
+        InputStream statement = pdfStatementClient.open(accountId, accessToken, statementId);
+        return new CloseableStreamingOutput(statement, output -> download(key, statement, output));
+    }
+
+    /**
+     * Checks whether the PDF statement is cached.
+     *
+     * @param accountId   ID of the account
+     * @param statementId ID of the statement
+     * @return {@code true} if the statement is cached
+     */
+    public boolean isCached(String accountId, long statementId) {
+        if (StringUtils.isBlank(accountId)) {
+            throw new IllegalArgumentException("accountId must not be empty");
+        }
+
+        return cache.contains(toKey(accountId, statementId));
+    }
+
+    /**
+     * Gets the PDF statement as a file, the statement is downloaded to the cache if it is not cached.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @param statementId ID of the statement
+     * @return open file of the statement, it stays readable even if it is evicted meanwhile
+     * @throws IOException if the statement could not be downloaded or stored
+     */
+    public FileChannel download(String accountId, String accessToken, long statementId) throws IOException {
+        if (StringUtils.isBlank(accountId)) {
+            throw new IllegalArgumentException("accountId must not be empty");
+        }
+        if (StringUtils.isBlank(accessToken)) {
+            throw new IllegalArgumentException("accessToken must not be empty");
+        }
+
+        String key = toKey(accountId, statementId);
+        FileChannel cachedStatement = openCached(key, accountId, accessToken);
+        if (cachedStatement != null) {
+            return cachedStatement;
+        }
+
+        Path tempFile = cache.createTempFile();
+        try {
+            try (InputStream input = pdfStatementClient.open(accountId, accessToken, statementId)) {
+                Files.copy(input, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // the open file keeps the content after it is moved into the cache
+            FileChannel statement = FileChannel.open(tempFile, StandardOpenOption.READ);
+            try {
+                cache.commit(key, tempFile);
+            } catch (IOException | RuntimeException e) {
+                statement.close();
+                throw e;
+            }
+            return statement;
+        } catch (IOException | RuntimeException e) {
+            cache.abort(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the cached statement of the account of the access token.
+     *
+     * @param key         key of the statement
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @return open file of the statement or {@code null} if the statement is not cached
+     */
+    @Nullable
+    private FileChannel openCached(String key, String accountId, String accessToken) {
+        Path cachedStatement = cache.get(key);
+        if (cachedStatement == null) {
+            return null;
+        }
+
+        if (accountListCache.getAccounts(accessToken).stream()
+                            .noneMatch(account -> accountId.equals(account.getAccountId()))) {
+            throw new ForbiddenException("Account is not available with the access token.");
+        }
+
+        try {
+            return FileChannel.open(cachedStatement, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // evicted meanwhile
+            return null;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cached statement " + cachedStatement + " could not be read.", e);
+        }
+    }
+
+    /**
+     * Transfers the part of the file to the output and closes the file.
+     *
+     * @param statement file of the statement
+     * @param position  position of the first transferred byte
+     * @param count     maximum number of transferred bytes
+     * @param output    output
+     * @throws IOException if the file could not be read or written
+     */
+    public static void transfer(FileChannel statement, long position, long count, OutputStream output)
+            throws IOException
+    {
+        try (FileChannel input = statement) {
+            WritableByteChannel target = Channels.newChannel(output);
+            long end = Math.min(input.size(), position + Math.min(count, Long.MAX_VALUE - position));
+            long current = position;
+            while (current < end) {
+                current += input.transferTo(current, end - current, target);
+            }
+        }
+    }
+
+    /**
+     * Copies the downloaded statement to the output and to the cache.
+     *
+     * @param key       key of the statement
+     * @param statement content of the statement
+     * @param output    output
+     * @throws IOException if the statement could not be read or written
+     */
+    private void download(String key, InputStream statement, OutputStream output) throws IOException {
+        Path tempFile = null;
+        OutputStream cachedStatement;
+        try {
+            tempFile = cache.createTempFile();
+            cachedStatement = Files.newOutputStream(tempFile);
+        } catch (IOException e) {
+            if (tempFile != null) {
+                cache.abort(tempFile);
+            }
+            // serve the statement anyway
+            try (InputStream input = statement) {
+                PdfStatementClient.copy(input, output);
+            }
+            return;
+        }
+
+        try (InputStream input = new TeeInputStream(statement, cachedStatement, true)) {
+            PdfStatementClient.copy(input, output);
+        } catch (IOException | RuntimeException e) {
+            cache.abort(tempFile);
+            throw e;
+        }
+
+        try {
+            cache.commit(key, tempFile);
+        } catch (IOException e) {
+            // the client has got the statement already, it is just not cached
+            cache.abort(tempFile);
+        }
+    }
+
+    /**
+     * Creates key of the statement in the cache.
+     *
+     * @param accountId   ID of the account
+     * @param statementId ID of the statement
+     * @return key of the statement
+     */
+    private static String toKey(String accountId, long statementId) {
+        return accountId + "/" + statementId;
+    }
+}
@@ -0,0 +1,104 @@
+package cz.kb.openbanking.adaa.example.web.statement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import cz.kb.openbanking.adaa.client.api.exception.ItemSearchException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Client of the PDF statements of the KB ADAA API that streams the statement instead of reading it into memory.
+ * <p>
+ * The request is the same as the one of the ADAA client SDK, but the response body is copied to the output
+ * through a fixed-size buffer, so a statement of any size needs neither a heap copy nor a temporary file.
+ *
+ * @since 1.2
+ */
+public class PdfStatementClient {
+    private static final String PDF_STATEMENT_RESOURCE_PATH = "accounts/{accountId}/statements/{statementId}";
+    private static final String CORRELATION_ID_HEADER_NAME = "x-correlation-id";
+    private static final String API_KEY_HEADER_NAME = "x-api-key";
+    private static final String AUTHORIZATION_HEADER_NAME = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final WebTarget adaaTarget;
+    private final String apiKey;
+
+    /**
+     * New instance.
+     *
+     * @param client  shared JAX-RS {@link Client} with set client certificate
+     * @param adaaUri base URI of the KB ADAA API
+     * @param apiKey  authorization API key
+     */
+    public PdfStatementClient(Client client, String adaaUri, String apiKey) {
+        if (client == null) {
+            throw new IllegalArgumentException("client must not be null");
+        }
+        if (StringUtils.isBlank(adaaUri)) {
+            throw new IllegalArgumentException("adaaUri must not be empty");
+        }
+        if (StringUtils.isBlank(apiKey)) {
+            throw new IllegalArgumentException("apiKey must not be empty");
+        }
+
+        this.adaaTarget = client.target(adaaUri);
+        this.apiKey = apiKey;
+    }
+
+    /**
+     * Requests the PDF statement. The status of the response is checked before the content is returned,
+     * so a failure is reported before anything is written to the client.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @param statementId ID of the statement
+     * @return content of the statement, it must be closed to release the connection
+     */
+    public InputStream open(String accountId, String accessToken, long statementId) {
+        if (StringUtils.isBlank(accountId)) {
+            throw new IllegalArgumentException("accountId must not be empty");
+        }
+        if (StringUtils.isBlank(accessToken)) {
+            throw new IllegalArgumentException("accessToken must not be empty");
+        }
+
+        Response response = adaaTarget.path(PDF_STATEMENT_RESOURCE_PATH)
+                                      .resolveTemplate("accountId", accountId)
+                                      .resolveTemplate("statementId", statementId)
+                                      .request()
+                                      .accept(MediaType.WILDCARD_TYPE)
+                                      .header(CORRELATION_ID_HEADER_NAME, UUID.randomUUID().toString())
+                                      .header(API_KEY_HEADER_NAME, BEARER_PREFIX + apiKey)
+                                      .header(AUTHORIZATION_HEADER_NAME, BEARER_PREFIX + accessToken)
+                                      .get();
+        if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+            String error = response.readEntity(String.class);
+            response.close();
+            throw new ItemSearchException("Error occurred during calling API. Status: " + response.getStatus()
+                    + ", error: " + error);
+        }
+
+        return response.readEntity(InputStream.class);
+    }
+
+    /**
+     * Copies the content through a fixed-size buffer.
+     *
+     * @param input  input
+     * @param output output
+     * @return number of copied bytes
+     * @throws IOException if the content could not be read or written
+     */
+    public static long copy(InputStream input, OutputStream output) throws IOException {
+        return IOUtils.copyLarge(input, output, new byte[BUFFER_SIZE]);
+    }
+}
@@ -0,0 +1,186 @@
+package cz.kb.openbanking.adaa.example.web.statement;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Opt-in prefetcher that warms the {@link PdfStatementCache} with the statements the user is likely to download.
+ * <p>
+ * The statements are downloaded by low-priority threads, at most the given number of them per access token
+ * and in total are queued or running at once; statements over the limits, cached statements and statements
+ * that are being prefetched already are skipped. Failures are ignored, the statement is downloaded on demand then.
+ *
+ * @since 1.2
+ */
+public class PdfStatementPrefetcher {
+    private static final Logger LOGGER = Logger.getLogger(PdfStatementPrefetcher.class.getName());
+
+    private final PdfStatementCache pdfStatementCache;
+    private final Executor prefetchExecutor;
+    private final int maxPerUser;
+    private final int maxTotal;
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final Map<String, AtomicInteger> perUser = new ConcurrentHashMap<>();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * New instance.
+     *
+     * @param pdfStatementCache disk cache of the PDF statements
+     * @param prefetchExecutor  executor of the prefetches, it should have low-priority threads
+     * @param maxPerUser        maximum number of prefetches of one access token, zero disables the prefetcher
+     * @param maxTotal          maximum number of prefetches of all access tokens
+     */
+    public PdfStatementPrefetcher(PdfStatementCache pdfStatementCache, Executor prefetchExecutor, int maxPerUser,
+                                  int maxTotal)
+    {
+        if (pdfStatementCache == null) {
+            throw new IllegalArgumentException("pdfStatementCache must not be null");
+        }
+        if (prefetchExecutor == null) {
+            throw new IllegalArgumentException("prefetchExecutor must not be null");
+        }
+        if (maxPerUser < 0) {
+            throw new IllegalArgumentException("maxPerUser must not be negative");
+        }
+        if (maxTotal < 0) {
+            throw new IllegalArgumentException("maxTotal must not be negative");
+        }
+
+        this.pdfStatementCache = pdfStatementCache;
+        this.prefetchExecutor = prefetchExecutor;
+        this.maxPerUser = maxPerUser;
+        this.maxTotal = maxTotal;
+    }
+
+    /**
+     * Queues the statements for prefetching, in the given order. The method does not block.
+     *
+     * @param accountId    ID of the account
+     * @param accessToken  OAuth2 access token
+     * @param statementIds IDs of the statements
+     */
+    public void prefetch(String accountId, String accessToken, List<Long> statementIds) {
+        if (StringUtils.isBlank(accountId)) {
+            throw new IllegalArgumentException("accountId must not be empty");
+        }
+        if (StringUtils.isBlank(accessToken)) {
+            throw new IllegalArgumentException("accessToken must not be empty");
+        }
+        if (statementIds == null) {
+            throw new IllegalArgumentException("statementIds must not be null");
+        }
+        if (maxPerUser == 0 || maxTotal == 0) {
+            return;
+        }
+
+        for (Long statementId : statementIds) {
+            if (statementId == null || pdfStatementCache.isCached(accountId, statementId)) {
+                continue;
+            }
+
+            String key = accountId + "/" + statementId;
+            if (!inFlight.add(key)) {
+                continue;
+            }
+            AtomicInteger userPrefetches = perUser.computeIfAbsent(accessToken, token -> new AtomicInteger());
+            if (!tryAcquire(userPrefetches, maxPerUser)) {
+                inFlight.remove(key);
+                releaseUser(accessToken, userPrefetches);
+                return;
+            }
+            if (!tryAcquire(total, maxTotal)) {
+                inFlight.remove(key);
+                userPrefetches.decrementAndGet();
+                releaseUser(accessToken, userPrefetches);
+                return;
+            }
+
+            try {
+                prefetchExecutor.execute(() -> {
+                    try {
+                        download(accountId, accessToken, statementId);
+                    } finally {
+                        release(key, accessToken, userPrefetches);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                release(key, accessToken, userPrefetches);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Downloads the statement to the cache.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @param statementId ID of the statement
+     */
+    private void download(String accountId, String accessToken, long statementId) {
+        try (FileChannel ignored = pdfStatementCache.download(accountId, accessToken, statementId)) {
+            LOGGER.log(Level.FINE, "Statement {0} was prefetched.", statementId);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Statement " + statementId + " could not be prefetched.", e);
+        }
+    }
+
+    /**
+     * Releases the slots of the finished prefetch.
+     *
+     * @param key            key of the statement
+     * @param accessToken    OAuth2 access token
+     * @param userPrefetches counter of the prefetches of the access token
+     */
+    private void release(String key, String accessToken, AtomicInteger userPrefetches) {
+        total.decrementAndGet();
+        userPrefetches.decrementAndGet();
+        releaseUser(accessToken, userPrefetches);
+        inFlight.remove(key);
+    }
+
+    /**
+     * Removes counter of the access token that has no prefetches.
+     *
+     * @param accessToken    OAuth2 access token
+     * @param userPrefetches counter of the prefetches of the access token
+     */
+    private void releaseUser(String accessToken, AtomicInteger userPrefetches) {
+        // a counter that is being incremented concurrently is removed too, the limit is approximate then
+        if (userPrefetches.get() == 0) {
+            perUser.remove(accessToken, userPrefetches);
+        }
+    }
+
+    /**
+     * Increments the counter if it is under the limit.
+     *
+     * @param counter counter
+     * @param limit   limit
+     * @return {@code true} if the counter was incremented
+     */
+    private static boolean tryAcquire(AtomicInteger counter, int limit) {
+        while (true) {
+            int current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+}
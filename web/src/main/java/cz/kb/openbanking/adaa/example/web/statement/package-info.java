@@ -0,0 +1,4 @@
+/**
+ * Contains services for delivering PDF account statements.
+ */
+package cz.kb.openbanking.adaa.example.web.statement;
\ No newline at end of file
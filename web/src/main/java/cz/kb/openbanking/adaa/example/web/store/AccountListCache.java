@@ -0,0 +1,80 @@
+package cz.kb.openbanking.adaa.example.web.store;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import cz.kb.openbanking.adaa.client.api.AccountApi;
+import cz.kb.openbanking.adaa.example.core.cache.StaleWhileRevalidateCache;
+import cz.kb.openbanking.adaa.example.web.mapper.AccountMapper;
+import cz.kb.openbanking.adaa.example.web.model.AccountModel;
+
+/**
+ * Cache of the lists of the accounts by the access token. The list almost never changes, so it is refreshed
+ * in the background after the time to live while the cached one is still served.
+ *
+ * @see StaleWhileRevalidateCache
+ * @since 1.2
+ */
+public class AccountListCache {
+    private final StaleWhileRevalidateCache<String, List<AccountModel>> cache;
+
+    /**
+     * New instance.
+     *
+     * @param accountApi      KB ADAA API client
+     * @param mapper          mapper between ADAA API and application model
+     * @param maxSize         maximum number of cached lists
+     * @param timeToLive      time after which a list is refreshed
+     * @param refreshExecutor executor for the background refreshes
+     */
+    public AccountListCache(AccountApi accountApi, AccountMapper mapper, int maxSize, Duration timeToLive,
+                            Executor refreshExecutor)
+    {
+        if (accountApi == null) {
+            throw new IllegalArgumentException("accountApi must not be null");
+        }
+        if (mapper == null) {
+            throw new IllegalArgumentException("mapper must not be null");
+        }
+
+        this.cache = new StaleWhileRevalidateCache<>(maxSize, timeToLive, refreshExecutor,
+                accessToken -> Collections.unmodifiableList(accountApi.accounts(accessToken)
+                                                                      .find()
+                                                                      .stream()
+                                                                      .map(mapper::toAccountModel)
+                                                                      .collect(Collectors.toList())));
+    }
+
+    /**
+     * Gets accounts available with the access token.
+     *
+     * @param accessToken OAuth2 access token
+     * @return available accounts
+     */
+    public List<AccountModel> getAccounts(String accessToken) {
+        return cache.get(accessToken);
+    }
+
+    /**
+     * Moves accounts of the refreshed access token to the new access token, the accounts of the session
+     * do not change by the refresh.
+     *
+     * @param previousAccessToken refreshed OAuth2 access token
+     * @param accessToken         new OAuth2 access token
+     */
+    public void moveAccounts(String previousAccessToken, String accessToken) {
+        cache.move(previousAccessToken, accessToken);
+    }
+
+    /**
+     * Evicts accounts of the access token that is not used anymore.
+     *
+     * @param accessToken OAuth2 access token
+     */
+    public void invalidate(String accessToken) {
+        cache.invalidate(accessToken);
+    }
+}
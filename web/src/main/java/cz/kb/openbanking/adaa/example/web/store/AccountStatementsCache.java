@@ -0,0 +1,240 @@
+package cz.kb.openbanking.adaa.example.web.store;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import javax.ws.rs.ForbiddenException;
+
+import cz.kb.openbanking.adaa.client.api.AccountApi;
+import cz.kb.openbanking.adaa.example.web.mapper.AccountMapper;
+import cz.kb.openbanking.adaa.example.web.model.StatementModel;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Cache of the statements of the accounts by calendar months.
+ * <p>
+ * A requested period is split into calendar months. Past months never change, so their statements are cached,
+ * the current month is always loaded. The KB ADAA API searches statements only by the first day of the period,
+ * so every contiguous run of the months that are not cached is loaded by one call, the runs are loaded
+ * concurrently and the statements are assigned to the months by their issue date. Cached statements are not
+ * authorized by the API, so the account must be one of the (cached) accounts of the access token.
+ *
+ * @since 1.2
+ */
+public class AccountStatementsCache {
+    private final AccountApi accountApi;
+    private final AccountMapper mapper;
+    private final AccountListCache accountListCache;
+    private final Executor executor;
+    private final ZoneId zoneId;
+
+    // account and month -> statements issued in the month
+    private final Map<MonthKey, List<StatementModel>> months;
+
+    /**
+     * New instance.
+     *
+     * @param accountApi       KB ADAA API client
+     * @param mapper           mapper between ADAA API and application model
+     * @param accountListCache cache of the accounts of the access tokens
+     * @param executor         executor of the concurrent loads
+     * @param maxSize          maximum number of cached months (of all accounts)
+     * @param zoneId           time zone of the issue dates
+     */
+    public AccountStatementsCache(AccountApi accountApi, AccountMapper mapper, AccountListCache accountListCache,
+                                  Executor executor, int maxSize, ZoneId zoneId)
+    {
+        if (accountApi == null) {
+            throw new IllegalArgumentException("accountApi must not be null");
+        }
+        if (mapper == null) {
+            throw new IllegalArgumentException("mapper must not be null");
+        }
+        if (accountListCache == null) {
+            throw new IllegalArgumentException("accountListCache must not be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        if (zoneId == null) {
+            throw new IllegalArgumentException("zoneId must not be null");
+        }
+
+        this.accountApi = accountApi;
+        this.mapper = mapper;
+        this.accountListCache = accountListCache;
+        this.executor = executor;
+        this.zoneId = zoneId;
+        this.months = Collections.synchronizedMap(new LinkedHashMap<MonthKey, List<StatementModel>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MonthKey, List<StatementModel>> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Gets statements of the account issued in the period, from the newest.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @param from        first issue day
+     * @param to          last issue day
+     * @return statements of the period, each one once
+     */
+    public List<StatementModel> getStatements(String accountId, String accessToken, LocalDate from, LocalDate to) {
+        if (StringUtils.isBlank(accountId)) {
+            throw new IllegalArgumentException("accountId must not be empty");
+        }
+        if (StringUtils.isBlank(accessToken)) {
+            throw new IllegalArgumentException("accessToken must not be empty");
+        }
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        YearMonth currentMonth = YearMonth.now(zoneId);
+        YearMonth lastMonth = YearMonth.from(to).isAfter(currentMonth) ? currentMonth : YearMonth.from(to);
+
+        // cached months and the runs of the months that must be loaded
+        Map<YearMonth, List<StatementModel>> statements = new HashMap<>();
+        List<List<YearMonth>> runs = new ArrayList<>();
+        List<YearMonth> run = null;
+        boolean authorized = false;
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            // the current month may still get new statements
+            List<StatementModel> cached = month.equals(currentMonth)
+                    ? null
+                    : months.get(new MonthKey(accountId, month));
+            if (cached == null) {
+                if (run == null) {
+                    run = new ArrayList<>();
+                    runs.add(run);
+                }
+                run.add(month);
+            } else {
+                if (!authorized) {
+                    checkAccount(accountId, accessToken);
+                    authorized = true;
+                }
+                statements.put(month, cached);
+                run = null;
+            }
+        }
+
+        List<CompletableFuture<Map<YearMonth, List<StatementModel>>>> loads = runs.stream()
+                .map(monthRun -> CompletableFuture.supplyAsync(() -> load(accountId, accessToken, monthRun), executor))
+                .collect(Collectors.toList());
+        try {
+            loads.forEach(load -> statements.putAll(load.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        // statements are deduplicated in case the API returned one in more months
+        Map<Long, StatementModel> byId = new LinkedHashMap<>();
+        statements.values().stream()
+                  .flatMap(List::stream)
+                  .filter(statement -> !statement.getIssued().isBefore(from) && !statement.getIssued().isAfter(to))
+                  .forEach(statement -> byId.putIfAbsent(statement.getStatementId(), statement));
+        List<StatementModel> result = new ArrayList<>(byId.values());
+        result.sort(Comparator.comparing(StatementModel::getIssued)
+                              .thenComparing(StatementModel::getStatementId)
+                              .reversed());
+        return result;
+    }
+
+    /**
+     * Loads statements of the contiguous run of the months by one call and caches the past months.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @param run         contiguous months
+     * @return statements of the months
+     */
+    private Map<YearMonth, List<StatementModel>> load(String accountId, String accessToken, List<YearMonth> run) {
+        YearMonth firstMonth = run.get(0);
+
+        Map<YearMonth, List<StatementModel>> statements = new HashMap<>();
+        run.forEach(month -> statements.put(month, new ArrayList<>()));
+        accountApi.statements(accountId, accessToken, firstMonth.atDay(1).atStartOfDay(zoneId).toOffsetDateTime())
+                  .find().stream()
+                  .map(mapper::toStatementModel)
+                  .filter(statement -> statement != null && statement.getIssued() != null
+                          && statement.getStatementId() != null)
+                  // the API returns also statements of the later months
+                  .filter(statement -> statements.containsKey(YearMonth.from(statement.getIssued())))
+                  .forEach(statement -> statements.get(YearMonth.from(statement.getIssued())).add(statement));
+
+        YearMonth currentMonth = YearMonth.now(zoneId);
+        for (YearMonth month : run) {
+            List<StatementModel> monthStatements = Collections.unmodifiableList(statements.get(month));
+            statements.put(month, monthStatements);
+            if (month.isBefore(currentMonth)) {
+                months.put(new MonthKey(accountId, month), monthStatements);
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Checks that the account is available with the access token.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     */
+    private void checkAccount(String accountId, String accessToken) {
+        if (accountListCache.getAccounts(accessToken).stream()
+                            .noneMatch(account -> accountId.equals(account.getAccountId()))) {
+            throw new ForbiddenException("Account is not available with the access token.");
+        }
+    }
+
+    /**
+     * Immutable key of the month of the account.
+     */
+    private static final class MonthKey {
+        private final String accountId;
+        private final YearMonth month;
+
+        private MonthKey(String accountId, YearMonth month) {
+            this.accountId = accountId;
+            this.month = month;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            MonthKey other = (MonthKey) o;
+            return accountId.equals(other.accountId) && month.equals(other.month);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * accountId.hashCode() + month.hashCode();
+        }
+    }
+}
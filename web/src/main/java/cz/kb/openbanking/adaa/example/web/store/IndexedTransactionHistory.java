@@ -0,0 +1,197 @@
+package cz.kb.openbanking.adaa.example.web.store;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import javax.annotation.Nullable;
+
+import cz.kb.openbanking.adaa.example.core.store.SortedLongIndex;
+import cz.kb.openbanking.adaa.example.web.model.TransactionModel;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Immutable in-memory snapshot of the transaction history of one account with secondary indexes
+ * on booking date, value date, IBAN of the counter party and amount.
+ * <p>
+ * Dates are indexed as epoch days, amounts in hundredths and IBAN codes as 64-bit hashes of the normalized code.
+ * Transactions without the indexed value never match a criterion on that value.
+ *
+ * @see SortedLongIndex
+ * @since 1.2
+ */
+public class IndexedTransactionHistory {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final List<TransactionModel> transactions;
+    private final SortedLongIndex bookingDates;
+    private final SortedLongIndex valueDates;
+    private final SortedLongIndex counterpartyIbans;
+    private final SortedLongIndex amounts;
+
+    /**
+     * New instance.
+     *
+     * @param transactions transactions in the order they are returned by queries
+     */
+    public IndexedTransactionHistory(List<TransactionModel> transactions) {
+        if (transactions == null) {
+            throw new IllegalArgumentException("transactions must not be null");
+        }
+
+        this.transactions = Collections.unmodifiableList(new ArrayList<>(transactions));
+
+        SortedLongIndex.Builder bookingDateBuilder = SortedLongIndex.builder(transactions.size());
+        SortedLongIndex.Builder valueDateBuilder = SortedLongIndex.builder(transactions.size());
+        SortedLongIndex.Builder counterpartyIbanBuilder = SortedLongIndex.builder(transactions.size());
+        SortedLongIndex.Builder amountBuilder = SortedLongIndex.builder(transactions.size());
+        for (int row = 0; row < this.transactions.size(); row++) {
+            TransactionModel transaction = this.transactions.get(row);
+            if (transaction.getBookingDate() != null) {
+                bookingDateBuilder.add(transaction.getBookingDate().toEpochDay(), row);
+            }
+            if (transaction.getValueDate() != null) {
+                valueDateBuilder.add(transaction.getValueDate().toEpochDay(), row);
+            }
+            String iban = counterpartyIban(transaction);
+            if (iban != null) {
+                counterpartyIbanBuilder.add(hash(iban), row);
+            }
+            if (transaction.getAmount() != null && transaction.getAmount().getValue() != null) {
+                amountBuilder.add(hundredths(transaction.getAmount().getValue()), row);
+            }
+        }
+        this.bookingDates = bookingDateBuilder.build();
+        this.valueDates = valueDateBuilder.build();
+        this.counterpartyIbans = counterpartyIbanBuilder.build();
+        this.amounts = amountBuilder.build();
+    }
+
+    /**
+     * Gets all transactions of the snapshot.
+     *
+     * @return all transactions
+     */
+    public List<TransactionModel> getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Finds transactions that match all criteria of the query.
+     *
+     * @param query criteria of the query
+     * @return matching transactions in the order of the snapshot
+     */
+    public List<TransactionModel> find(TransactionQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("query must not be null");
+        }
+
+        int[] rows = null;
+        if (query.getBookingDateFrom() != null || query.getBookingDateTo() != null) {
+            rows = intersect(rows, bookingDates.range(epochDay(query.getBookingDateFrom(), Long.MIN_VALUE),
+                    epochDay(query.getBookingDateTo(), Long.MAX_VALUE)));
+        }
+        if (query.getValueDateFrom() != null || query.getValueDateTo() != null) {
+            rows = intersect(rows, valueDates.range(epochDay(query.getValueDateFrom(), Long.MIN_VALUE),
+                    epochDay(query.getValueDateTo(), Long.MAX_VALUE)));
+        }
+        if (query.getAmountFrom() != null || query.getAmountTo() != null) {
+            rows = intersect(rows, amounts.range(
+                    query.getAmountFrom() == null ? Long.MIN_VALUE : hundredths(query.getAmountFrom()),
+                    query.getAmountTo() == null ? Long.MAX_VALUE : hundredths(query.getAmountTo())));
+        }
+        String iban = normalizeIban(query.getCounterpartyIban());
+        if (iban != null) {
+            rows = intersect(rows, counterpartyIbans.lookup(hash(iban)));
+        }
+
+        if (rows == null) {
+            return transactions;
+        }
+
+        List<TransactionModel> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            TransactionModel transaction = transactions.get(row);
+            // different IBAN codes may have the same hash
+            if (iban == null || iban.equals(counterpartyIban(transaction))) {
+                result.add(transaction);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Intersects the rows matching the previous criteria with the rows matching the next one.
+     *
+     * @param rows         rows matching the previous criteria, {@code null} if there were no criteria
+     * @param matchingRows rows matching the next criterion
+     * @return rows matching all criteria
+     */
+    private static int[] intersect(@Nullable int[] rows, int[] matchingRows) {
+        return rows == null ? matchingRows : SortedLongIndex.intersect(rows, matchingRows);
+    }
+
+    /**
+     * Gets epoch day of the date.
+     *
+     * @param date         date
+     * @param defaultValue value used if the date is not set
+     * @return epoch day of the date or the default value
+     */
+    private static long epochDay(@Nullable LocalDate date, long defaultValue) {
+        return date == null ? defaultValue : date.toEpochDay();
+    }
+
+    /**
+     * Converts the amount to hundredths (e.g. cents).
+     *
+     * @param amount amount
+     * @return amount in hundredths
+     */
+    private static long hundredths(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Gets normalized IBAN code of the counter party of the transaction.
+     *
+     * @param transaction transaction
+     * @return normalized IBAN code or {@code null} if the transaction has no counter party IBAN code
+     */
+    @Nullable
+    private static String counterpartyIban(TransactionModel transaction) {
+        return transaction.getCounterParty() == null ? null : normalizeIban(transaction.getCounterParty().getIban());
+    }
+
+    /**
+     * Normalizes IBAN code: removes whitespaces and converts it to upper case.
+     *
+     * @param iban IBAN code
+     * @return normalized IBAN code or {@code null} if the IBAN code is empty
+     */
+    @Nullable
+    private static String normalizeIban(@Nullable String iban) {
+        if (StringUtils.isBlank(iban)) {
+            return null;
+        }
+        return StringUtils.deleteWhitespace(iban).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Computes 64-bit FNV-1a hash of the value.
+     *
+     * @param value value
+     * @return hash of the value
+     */
+    private static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,334 @@
+package cz.kb.openbanking.adaa.example.web.store;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.ws.rs.ForbiddenException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import cz.kb.openbanking.adaa.example.core.store.AccountRecordStore;
+import cz.kb.openbanking.adaa.example.core.transaction.TransactionHistoryFetcher;
+import cz.kb.openbanking.adaa.example.web.mapper.AccountMapper;
+import cz.kb.openbanking.adaa.example.web.model.TransactionModel;
+
+/**
+ * Local persistent copy of the transaction histories.
+ * <p>
+ * Transactions are stored as JSON encoded {@link TransactionModel} records in the memory-mapped
+ * {@link AccountRecordStore}, with the {@code lastUpdated} time as the watermark of the record. The KB ADAA API
+ * filters the history by the booking date, and a transaction can still be posted or updated some days after it
+ * was booked. A synchronization therefore requests the transactions since the latest stored booking date
+ * minus the {@code bookingLag}. Only new records and records with a higher watermark are appended, so the
+ * repeated transactions are dropped. The latest record of every entry reference wins when the history is read.
+ * Queries are answered from the {@link IndexedTransactionHistory} snapshot built after the last synchronization,
+ * snapshots of the least recently used accounts above {@code maxAccounts} are dropped.
+ * The store of an account is accessed only after the account is found among the accounts of the access token.
+ * Synchronizations of one account are coalesced (single-flight), requests that arrive while the account
+ * is being synchronized wait for that synchronization and get its snapshot.
+ *
+ * @since 1.2
+ */
+public class TransactionHistoryStore {
+
+    /**
+     * Order of the transactions: the newest booking date first, then by entry reference.
+     */
+    private static final Comparator<TransactionModel> BOOKING_ORDER =
+            Comparator.comparing(TransactionModel::getBookingDate, Comparator.nullsLast(Comparator.reverseOrder()))
+                      .thenComparing(TransactionModel::getEntryReference, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final AccountRecordStore recordStore;
+    private final TransactionHistoryFetcher transactionHistoryFetcher;
+    private final AccountListCache accountListCache;
+    private final AccountMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final Duration syncInterval;
+    private final Duration bookingLag;
+    private final Map<String, LastSync> lastSyncByAccount;
+    private final Map<String, CompletableFuture<IndexedTransactionHistory>> syncsInFlight = new ConcurrentHashMap<>();
+
+    /**
+     * New instance.
+     *
+     * @param recordStore               store of the records of the accounts
+     * @param transactionHistoryFetcher fetcher of the transaction history
+     * @param accountListCache          cache of the accounts of the access tokens
+     * @param mapper                    mapper between ADAA API and application model
+     * @param objectMapper              JSON mapper of the records
+     * @param syncInterval              minimum period between two synchronizations of one account
+     * @param bookingLag                period before the latest stored booking date that is requested again
+     *                                  by every synchronization
+     * @param maxAccounts               maximum number of accounts whose snapshot of the history is kept in memory
+     */
+    public TransactionHistoryStore(AccountRecordStore recordStore, TransactionHistoryFetcher transactionHistoryFetcher,
+                                   AccountListCache accountListCache, AccountMapper mapper,
+                                   ObjectMapper objectMapper, Duration syncInterval, Duration bookingLag,
+                                   int maxAccounts)
+    {
+        if (recordStore == null) {
+            throw new IllegalArgumentException("recordStore must not be null");
+        }
+        if (transactionHistoryFetcher == null) {
+            throw new IllegalArgumentException("transactionHistoryFetcher must not be null");
+        }
+        if (accountListCache == null) {
+            throw new IllegalArgumentException("accountListCache must not be null");
+        }
+        if (mapper == null) {
+            throw new IllegalArgumentException("mapper must not be null");
+        }
+        if (objectMapper == null) {
+            throw new IllegalArgumentException("objectMapper must not be null");
+        }
+        if (syncInterval == null || syncInterval.isNegative()) {
+            throw new IllegalArgumentException("syncInterval must not be negative");
+        }
+        if (bookingLag == null || bookingLag.isNegative()) {
+            throw new IllegalArgumentException("bookingLag must not be negative");
+        }
+        if (maxAccounts < 1) {
+            throw new IllegalArgumentException("maxAccounts must be positive");
+        }
+
+        this.recordStore = recordStore;
+        this.transactionHistoryFetcher = transactionHistoryFetcher;
+        this.accountListCache = accountListCache;
+        this.mapper = mapper;
+        this.objectMapper = objectMapper;
+        this.syncInterval = syncInterval;
+        this.bookingLag = bookingLag;
+        this.lastSyncByAccount = Collections.synchronizedMap(new LinkedHashMap<String, LastSync>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LastSync> eldest) {
+                return size() > maxAccounts;
+            }
+        });
+    }
+
+    /**
+     * Gets indexed snapshot of the whole transaction history of the account. The local copy is synchronized
+     * and the snapshot rebuilt first, unless it was synchronized less than {@code syncInterval} ago or it is being
+     * synchronized right now. The snapshot is not bound to the access token, which changes with every refresh,
+     * the account is checked to be available with the access token before.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @return indexed transactions of the account, the newest first
+     * @throws ForbiddenException if the account is not available with the access token
+     */
+    public IndexedTransactionHistory getHistory(String accountId, String accessToken) {
+        checkAccount(accountId, accessToken);
+
+        LastSync lastSync = lastSyncByAccount.get(accountId);
+        if (lastSync != null && lastSync.isRecent(syncInterval)) {
+            return lastSync.history;
+        }
+
+        CompletableFuture<IndexedTransactionHistory> sync = new CompletableFuture<>();
+        CompletableFuture<IndexedTransactionHistory> runningSync = syncsInFlight.putIfAbsent(accountId, sync);
+        if (runningSync != null) {
+            try {
+                return runningSync.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            IndexedTransactionHistory history = synchronize(accountId, accessToken);
+            sync.complete(history);
+            return history;
+        } catch (RuntimeException | Error e) {
+            sync.completeExceptionally(e);
+            throw e;
+        } finally {
+            syncsInFlight.remove(accountId, sync);
+        }
+    }
+
+    /**
+     * Reads the stored transactions of the account, synchronizes them and builds the snapshot of the history.
+     * Only one synchronization of the account runs at the same time.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     * @return indexed transactions of the account, the newest first
+     */
+    private IndexedTransactionHistory synchronize(String accountId, String accessToken) {
+        // the previous synchronization could finish just before this one started
+        LastSync lastSync = lastSyncByAccount.get(accountId);
+        if (lastSync != null && lastSync.isRecent(syncInterval)) {
+            return lastSync.history;
+        }
+
+        Map<String, StoredTransaction> transactions = read(accountId);
+        sync(accountId, accessToken, transactions);
+
+        List<TransactionModel> sortedTransactions = new ArrayList<>(transactions.size());
+        transactions.values().forEach(stored -> sortedTransactions.add(stored.transaction));
+        sortedTransactions.sort(BOOKING_ORDER);
+
+        IndexedTransactionHistory history = new IndexedTransactionHistory(sortedTransactions);
+        lastSyncByAccount.put(accountId, new LastSync(System.nanoTime(), history));
+        return history;
+    }
+
+    /**
+     * Requests transactions since the latest stored booking date minus the booking lag and appends the new
+     * or changed ones to the store.
+     *
+     * @param accountId    ID of the account
+     * @param accessToken  OAuth2 access token
+     * @param transactions already stored transactions by their key, updated with the appended ones
+     */
+    private void sync(String accountId, String accessToken, Map<String, StoredTransaction> transactions) {
+        LocalDate lastBookingDate = transactions.values().stream()
+                                                .map(stored -> stored.transaction.getBookingDate())
+                                                .filter(Objects::nonNull)
+                                                .max(Comparator.naturalOrder())
+                                                .orElse(null);
+        OffsetDateTime fromDate = lastBookingDate == null ? null
+                : lastBookingDate.atStartOfDay(ZoneId.systemDefault()).toOffsetDateTime().minus(bookingLag);
+
+        for (AccountTransaction transaction : transactionHistoryFetcher.fetch(accountId, accessToken, fromDate, null)) {
+            TransactionModel model = mapper.toTransactionModel(transaction);
+            byte[] payload = encode(model);
+            String key = model.getEntryReference() != null
+                    ? model.getEntryReference() : new String(payload, StandardCharsets.UTF_8);
+            long recordWatermark = watermark(model);
+
+            StoredTransaction stored = transactions.get(key);
+            if (stored == null || recordWatermark > stored.watermark) {
+                recordStore.append(accountId, recordWatermark, payload);
+                transactions.put(key, new StoredTransaction(recordWatermark, model));
+            }
+        }
+    }
+
+    /**
+     * Checks that the account is available with the access token.
+     *
+     * @param accountId   ID of the account
+     * @param accessToken OAuth2 access token
+     */
+    private void checkAccount(String accountId, String accessToken) {
+        if (accountListCache.getAccounts(accessToken).stream()
+                            .noneMatch(account -> accountId.equals(account.getAccountId()))) {
+            throw new ForbiddenException("Account is not available with the access token.");
+        }
+    }
+
+    /**
+     * Reads all stored transactions of the account, the latest record of every entry reference wins.
+     *
+     * @param accountId ID of the account
+     * @return stored transactions by their key in the order of the first appearance
+     */
+    private Map<String, StoredTransaction> read(String accountId) {
+        Map<String, StoredTransaction> transactions = new LinkedHashMap<>();
+        recordStore.forEach(accountId, (recordWatermark, payload) -> {
+            TransactionModel model;
+            try {
+                model = objectMapper.readValue(new ByteBufferBackedInputStream(payload.duplicate()),
+                        TransactionModel.class);
+            } catch (IOException e) {
+                throw new IllegalStateException("Stored transaction of the account could not be read.", e);
+            }
+
+            String key = model.getEntryReference();
+            if (key == null) {
+                byte[] record = new byte[payload.remaining()];
+                payload.duplicate().get(record);
+                key = new String(record, StandardCharsets.UTF_8);
+            }
+            transactions.put(key, new StoredTransaction(recordWatermark, model));
+        });
+        return transactions;
+    }
+
+    /**
+     * Encodes the transaction to the JSON record.
+     *
+     * @param transaction transaction
+     * @return JSON record
+     */
+    private byte[] encode(TransactionModel transaction) {
+        try {
+            return objectMapper.writeValueAsBytes(transaction);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Transaction '" + transaction.getEntryReference()
+                    + "' could not be stored.", e);
+        }
+    }
+
+    /**
+     * Gets watermark of the transaction: time of its last update or the booking date if the update time is unknown.
+     *
+     * @param transaction transaction
+     * @return watermark of the transaction in epoch millis
+     */
+    private static long watermark(TransactionModel transaction) {
+        if (transaction.getLastUpdated() != null) {
+            return transaction.getLastUpdated().toInstant().toEpochMilli();
+        }
+        if (transaction.getBookingDate() != null) {
+            return transaction.getBookingDate().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Transaction read from the store together with the watermark of its record.
+     */
+    private static final class StoredTransaction {
+        private final long watermark;
+        private final TransactionModel transaction;
+
+        private StoredTransaction(long watermark, TransactionModel transaction) {
+            this.watermark = watermark;
+            this.transaction = transaction;
+        }
+    }
+
+    /**
+     * The last synchronization of an account together with the snapshot of the history built after it.
+     */
+    private static final class LastSync {
+        private final long nanoTime;
+        private final IndexedTransactionHistory history;
+
+        private LastSync(long nanoTime, IndexedTransactionHistory history) {
+            this.nanoTime = nanoTime;
+            this.history = history;
+        }
+
+        /**
+         * Checks whether the synchronization was done less than the interval ago.
+         *
+         * @param interval minimum period between two synchronizations
+         * @return {@code true} if the synchronization is still recent, otherwise - {@code false}
+         */
+        private boolean isRecent(Duration interval) {
+            return System.nanoTime() - nanoTime < interval.toNanos();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package cz.kb.openbanking.adaa.example.web.store;
+
+import java.time.LocalDate;
+import javax.annotation.Nullable;
+
+/**
+ * Criteria of the query over the stored transaction history, criteria that are not set match all transactions.
+ * All ranges are inclusive.
+ *
+ * @since 1.2
+ */
+public class TransactionQuery {
+    private LocalDate bookingDateFrom;
+    private LocalDate bookingDateTo;
+    private LocalDate valueDateFrom;
+    private LocalDate valueDateTo;
+    private String counterpartyIban;
+    private Double amountFrom;
+    private Double amountTo;
+
+    /**
+     * Gets the first booking date.
+     *
+     * @return the first booking date
+     */
+    @Nullable
+    public LocalDate getBookingDateFrom() {
+        return bookingDateFrom;
+    }
+
+    /**
+     * Sets the first booking date.
+     *
+     * @param bookingDateFrom the first booking date
+     */
+    public void setBookingDateFrom(LocalDate bookingDateFrom) {
+        this.bookingDateFrom = bookingDateFrom;
+    }
+
+    /**
+     * Gets the last booking date.
+     *
+     * @return the last booking date
+     */
+    @Nullable
+    public LocalDate getBookingDateTo() {
+        return bookingDateTo;
+    }
+
+    /**
+     * Sets the last booking date.
+     *
+     * @param bookingDateTo the last booking date
+     */
+    public void setBookingDateTo(LocalDate bookingDateTo) {
+        this.bookingDateTo = bookingDateTo;
+    }
+
+    /**
+     * Gets the first value date.
+     *
+     * @return the first value date
+     */
+    @Nullable
+    public LocalDate getValueDateFrom() {
+        return valueDateFrom;
+    }
+
+    /**
+     * Sets the first value date.
+     *
+     * @param valueDateFrom the first value date
+     */
+    public void setValueDateFrom(LocalDate valueDateFrom) {
+        this.valueDateFrom = valueDateFrom;
+    }
+
+    /**
+     * Gets the last value date.
+     *
+     * @return the last value date
+     */
+    @Nullable
+    public LocalDate getValueDateTo() {
+        return valueDateTo;
+    }
+
+    /**
+     * Sets the last value date.
+     *
+     * @param valueDateTo the last value date
+     */
+    public void setValueDateTo(LocalDate valueDateTo) {
+        this.valueDateTo = valueDateTo;
+    }
+
+    /**
+     * Gets IBAN code of the counter party.
+     *
+     * @return IBAN code of the counter party
+     */
+    @Nullable
+    public String getCounterpartyIban() {
+        return counterpartyIban;
+    }
+
+    /**
+     * Sets IBAN code of the counter party.
+     *
+     * @param counterpartyIban IBAN code of the counter party
+     */
+    public void setCounterpartyIban(String counterpartyIban) {
+        this.counterpartyIban = counterpartyIban;
+    }
+
+    /**
+     * Gets the lowest transaction amount.
+     *
+     * @return the lowest transaction amount
+     */
+    @Nullable
+    public Double getAmountFrom() {
+        return amountFrom;
+    }
+
+    /**
+     * Sets the lowest transaction amount.
+     *
+     * @param amountFrom the lowest transaction amount
+     */
+    public void setAmountFrom(Double amountFrom) {
+        this.amountFrom = amountFrom;
+    }
+
+    /**
+     * Gets the highest transaction amount.
+     *
+     * @return the highest transaction amount
+     */
+    @Nullable
+    public Double getAmountTo() {
+        return amountTo;
+    }
+
+    /**
+     * Sets the highest transaction amount.
+     *
+     * @param amountTo the highest transaction amount
+     */
+    public void setAmountTo(Double amountTo) {
+        this.amountTo = amountTo;
+    }
+}
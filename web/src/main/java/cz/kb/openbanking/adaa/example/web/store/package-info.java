@@ -0,0 +1,4 @@
+/**
+ * Contains local stores of data loaded by the KB ADAA API.
+ */
+package cz.kb.openbanking.adaa.example.web.store;
\ No newline at end of file
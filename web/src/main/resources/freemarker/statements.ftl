@@ -34,6 +34,19 @@
             <header class="page-header text-center mt-4">
                 <h3>Stahování výpisů z účtu</h3>
             </header>
+            <form class="form-inline justify-content-center mt-4" action="list" method="get">
+                <input type="hidden" name="accountId" value="${accountId}">
+                <label class="mr-2" for="from">From</label>
+                <input class="form-control mr-2" type="date" id="from" name="from" value="${from}">
+                <label class="mr-2" for="to">To</label>
+                <input class="form-control mr-2" type="date" id="to" name="to" value="${to}">
+                <button class="btn btn-outline-primary" type="submit">Show</button>
+            </form>
+            <#if statements?has_content>
+                <div class="mt-4 text-right">
+                    <a class="btn btn-primary" href="zip?accountId=${accountId}&from=${from}&to=${to}">Download all (ZIP)</a>
+                </div>
+            </#if>
             <div class="mt-4">
                 <#list statements as statement>
                     <table class="table text-center">
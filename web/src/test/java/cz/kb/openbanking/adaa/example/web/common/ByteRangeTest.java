@@ -0,0 +1,140 @@
+package cz.kb.openbanking.adaa.example.web.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for {@link ByteRange}.
+ *
+ * @since 1.2
+ */
+class ByteRangeTest {
+    private static final long LENGTH = 1000;
+
+    /**
+     * Test method for {@link ByteRange#parse(String, long)}.
+     */
+    @Test
+    void testClosedRange() {
+        ByteRange range = ByteRange.parse("bytes=100-199", LENGTH);
+
+        assertThat(range).isNotNull();
+        assertThat(range.isSatisfiable()).isTrue();
+        assertThat(range.getFirst()).isEqualTo(100);
+        assertThat(range.getCount()).isEqualTo(100);
+        assertThat(range.toContentRange()).isEqualTo("bytes 100-199/1000");
+    }
+
+    /**
+     * Test method for {@link ByteRange#parse(String, long)}.
+     */
+    @Test
+    void testOpenEndedRange() {
+        ByteRange range = ByteRange.parse("bytes=900-", LENGTH);
+
+        assertThat(range).isNotNull();
+        assertThat(range.isSatisfiable()).isTrue();
+        assertThat(range.getFirst()).isEqualTo(900);
+        assertThat(range.getCount()).isEqualTo(100);
+        assertThat(range.toContentRange()).isEqualTo("bytes 900-999/1000");
+    }
+
+    /**
+     * Test method for {@link ByteRange#parse(String, long)}.
+     */
+    @Test
+    void testSuffixRange() {
+        ByteRange range = ByteRange.parse("bytes=-300", LENGTH);
+
+        assertThat(range).isNotNull();
+        assertThat(range.isSatisfiable()).isTrue();
+        assertThat(range.getFirst()).isEqualTo(700);
+        assertThat(range.getCount()).isEqualTo(300);
+        assertThat(range.toContentRange()).isEqualTo("bytes 700-999/1000");
+    }
+
+    /**
+     * Test method for {@link ByteRange#parse(String, long)}.
+     */
+    @Test
+    void testSuffixRangeLongerThanRepresentation() {
+        ByteRange range = ByteRange.parse("bytes=-5000", LENGTH);
+
+        assertThat(range).isNotNull();
+        assertThat(range.isSatisfiable()).isTrue();
+        assertThat(range.getFirst()).isZero();
+        assertThat(range.getCount()).isEqualTo(LENGTH);
+    }
+
+    /**
+     * Test method for {@link ByteRange#parse(String, long)}.
+     */
+    @Test
+    void testEmptySuffixRangeIsNotSatisfiable() {
+        ByteRange range = ByteRange.parse("bytes=-0", LENGTH);
+
+        assertThat(range).isNotNull();
+        assertThat(range.isSatisfiable()).isFalse();
+        assertThat(range.toContentRange()).isEqualTo("bytes */1000");
+    }
+
+    /**
+     * Test method for {@link ByteRange#parse(String, long)}.
+     */
+    @Test
+    void testRangeEndingPastEndIsLimited() {
+        ByteRange range = ByteRange.parse("bytes=500-5000", LENGTH);
+
+        assertThat(range).isNotNull();
+        assertThat(range.isSatisfiable()).isTrue();
+        assertThat(range.getFirst()).isEqualTo(500);
+        assertThat(range.getCount()).isEqualTo(500);
+        assertThat(range.toContentRange()).isEqualTo("bytes 500-999/1000");
+    }
+
+    /**
+     * Test method for {@link ByteRange#parse(String, long)}.
+     */
+    @Test
+    void testRangeStartingPastEndIsNotSatisfiable() {
+        assertThat(ByteRange.parse("bytes=1000-", LENGTH).isSatisfiable()).isFalse();
+        assertThat(ByteRange.parse("bytes=2000-2999", LENGTH).isSatisfiable()).isFalse();
+        assertThat(ByteRange.parse("bytes=0-", 0).isSatisfiable()).isFalse();
+        assertThat(ByteRange.parse("bytes=2000-2999", LENGTH).toContentRange()).isEqualTo("bytes */1000");
+    }
+
+    /**
+     * Test method for {@link ByteRange#parse(String, long)}.
+     */
+    @Test
+    void testMultipleRangesServeWholeRepresentation() {
+        assertThat(ByteRange.parse("bytes=0-99,200-299", LENGTH)).isNull();
+        assertThat(ByteRange.parse("bytes=-100, -50", LENGTH)).isNull();
+    }
+
+    /**
+     * Test method for {@link ByteRange#parse(String, long)}.
+     */
+    @Test
+    void testMalformedRangeServesWholeRepresentation() {
+        assertThat(ByteRange.parse(null, LENGTH)).isNull();
+        assertThat(ByteRange.parse("", LENGTH)).isNull();
+        assertThat(ByteRange.parse("items=0-99", LENGTH)).isNull();
+        assertThat(ByteRange.parse("bytes=", LENGTH)).isNull();
+        assertThat(ByteRange.parse("bytes=-", LENGTH)).isNull();
+        assertThat(ByteRange.parse("bytes=100", LENGTH)).isNull();
+        assertThat(ByteRange.parse("bytes=abc-def", LENGTH)).isNull();
+        assertThat(ByteRange.parse("bytes=-1-5", LENGTH)).isNull();
+        assertThat(ByteRange.parse("bytes=200-100", LENGTH)).isNull();
+    }
+
+    /**
+     * Test method for {@link ByteRange#parse(String, long)}.
+     */
+    @Test
+    void testNegativeLengthIsRejected() {
+        assertThatThrownBy(() -> ByteRange.parse("bytes=0-1", -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
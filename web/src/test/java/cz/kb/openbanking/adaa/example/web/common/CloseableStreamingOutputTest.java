@@ -0,0 +1,51 @@
+package cz.kb.openbanking.adaa.example.web.common;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for {@link CloseableStreamingOutput}.
+ *
+ * @since 1.2
+ */
+class CloseableStreamingOutputTest {
+
+    /**
+     * Test method for {@link CloseableStreamingOutput#close()}.
+     */
+    @Test
+    void testUnwrittenContentClosesResource() throws Exception {
+        AtomicInteger closed = new AtomicInteger();
+        CloseableStreamingOutput content = new CloseableStreamingOutput(closed::incrementAndGet,
+                output -> output.write(1));
+
+        content.close();
+        content.close();
+
+        assertThat(closed.get()).isEqualTo(1);
+        assertThatThrownBy(() -> content.write(new ByteArrayOutputStream()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Test method for {@link CloseableStreamingOutput#write(java.io.OutputStream)}.
+     */
+    @Test
+    void testWrittenContentClosesResourceOnce() throws Exception {
+        AtomicInteger closed = new AtomicInteger();
+        CloseableStreamingOutput content = new CloseableStreamingOutput(closed::incrementAndGet,
+                output -> output.write(1));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        content.write(output);
+        content.close();
+
+        assertThat(output.toByteArray()).containsExactly(1);
+        assertThat(closed.get()).isEqualTo(1);
+    }
+}
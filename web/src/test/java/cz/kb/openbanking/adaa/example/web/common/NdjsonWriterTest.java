@@ -0,0 +1,35 @@
+package cz.kb.openbanking.adaa.example.web.common;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link NdjsonWriter}.
+ *
+ * @since 1.2
+ */
+class NdjsonWriterTest {
+
+    /**
+     * Test method for {@link NdjsonWriter#write(Object)}.
+     */
+    @Test
+    void testWritesOneValuePerLine() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (NdjsonWriter writer = new NdjsonWriter(new ObjectMapper(), output)) {
+            writer.write(Collections.singletonMap("id", 1));
+            writer.write(Collections.singletonMap("id", 2));
+            writer.flush();
+            writer.write(Collections.singletonMap("id", 3));
+        }
+
+        assertThat(output.toByteArray())
+                .isEqualTo("{\"id\":1}\n{\"id\":2}\n{\"id\":3}\n".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,73 @@
+package cz.kb.openbanking.adaa.example.web.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link ReloadableKeyManager}.
+ *
+ * @since 1.2
+ */
+class ReloadableKeyManagerTest {
+    private static final char[] PASSWORD = "changeit".toCharArray();
+    private static final String[] KEY_TYPES = {"RSA"};
+
+    /**
+     * Test method for {@link ReloadableKeyManager#reload(KeyStore, char[])}.
+     */
+    @Test
+    void testChosenAliasResolvesToItsKeyAndChainAfterReload() throws Exception {
+        ReloadableKeyManager keyManager = new ReloadableKeyManager(loadKeyStore("client-1.p12"), PASSWORD);
+        String alias = keyManager.chooseClientAlias(KEY_TYPES, null, null);
+
+        // the certificate is rotated between the choice of the alias and the reads of its key and chain
+        keyManager.reload(loadKeyStore("client-2.p12"), PASSWORD);
+
+        assertMatchingKeyAndChain(keyManager, alias, "CN=client-1");
+        assertMatchingKeyAndChain(keyManager, keyManager.chooseClientAlias(KEY_TYPES, null, null), "CN=client-2");
+    }
+
+    /**
+     * Test method for {@link ReloadableKeyManager#reload(KeyStore, char[])}.
+     */
+    @Test
+    void testAliasOfOlderGenerationHasNoKey() throws Exception {
+        ReloadableKeyManager keyManager = new ReloadableKeyManager(loadKeyStore("client-1.p12"), PASSWORD);
+        String alias = keyManager.chooseClientAlias(KEY_TYPES, null, null);
+
+        keyManager.reload(loadKeyStore("client-2.p12"), PASSWORD);
+        keyManager.reload(loadKeyStore("client-1.p12"), PASSWORD);
+
+        assertThat(keyManager.getPrivateKey(alias)).isNull();
+        assertThat(keyManager.getCertificateChain(alias)).isNull();
+        assertThat(keyManager.getPrivateKey("client")).isNull();
+    }
+
+    private static void assertMatchingKeyAndChain(ReloadableKeyManager keyManager, String alias, String subject) {
+        PrivateKey privateKey = keyManager.getPrivateKey(alias);
+        X509Certificate[] chain = keyManager.getCertificateChain(alias);
+
+        assertThat(chain).isNotEmpty();
+        assertThat(chain[0].getSubjectX500Principal().getName()).isEqualTo(subject);
+        assertThat(((RSAPrivateKey) privateKey).getModulus())
+                .isEqualTo(((RSAPublicKey) chain[0].getPublicKey()).getModulus());
+    }
+
+    private static KeyStore loadKeyStore(String name) throws IOException, GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream input = ReloadableKeyManagerTest.class.getResourceAsStream("/" + name)) {
+            keyStore.load(input, PASSWORD);
+        }
+        return keyStore;
+    }
+}
@@ -0,0 +1,366 @@
+package cz.kb.openbanking.adaa.example.web.oauth2;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.NewCookie;
+import javax.ws.rs.core.Response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.kb.openbanking.adaa.example.core.decryption.impl.Aes256DecryptionServiceImpl;
+import cz.kb.openbanking.adaa.example.core.encryption.impl.Aes256EncryptionServiceImpl;
+import cz.kb.openbanking.adaa.example.core.store.EncryptedRecordFile;
+import org.glassfish.jersey.client.oauth2.ClientIdentifier;
+import org.glassfish.jersey.uri.UriComponent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for {@link OAuth2FlowProvider}.
+ *
+ * @since 1.2
+ */
+class OAuth2FlowProviderTest {
+    private static final URI BASE_URI = URI.create("https://localhost:8443/adaa/");
+    private static final Duration TIMEOUT = Duration.ofMinutes(10);
+    private static final String SECRET_KEY = "Ri1KYU5kUmdVa1hwMnM1djh5L0I/RShIK0tiUGVTaFY=";
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger issuedTokens = new AtomicInteger();
+    private final List<String> refreshedTokens = new ArrayList<>();
+    private ManualScheduler refreshScheduler;
+    private Client tokenClient;
+
+    // lifetime of the issued access tokens in seconds, tokens without expiry have no refresh token
+    @Nullable
+    private Long expiresIn;
+    private boolean tokenEndpointFailing;
+    // called by the next request of the token endpoint
+    @Nullable
+    private Runnable tokenRequestHook;
+
+    @BeforeEach
+    void setUp() {
+        refreshScheduler = new ManualScheduler();
+        tokenClient = ClientBuilder.newClient().register((ClientRequestFilter) this::tokenEndpoint);
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshScheduler.shutdownNow();
+        tokenClient.close();
+    }
+
+    /**
+     * Test method for {@link OAuth2FlowProvider#finish(String, String, String)}.
+     */
+    @Test
+    void testFlowCannotBeFinishedByForeignSession() {
+        OAuth2FlowProvider flowProvider = newFlowProvider(TIMEOUT, TIMEOUT);
+        Response redirect = flowProvider.authorizationRedirect(BASE_URI, null);
+        NewCookie sessionCookie = redirect.getCookies().get(OAuth2FlowProvider.SESSION_COOKIE);
+        String state = state(redirect);
+
+        assertThat(sessionCookie).isNotNull();
+        assertThatThrownBy(() -> flowProvider.finish("foreignSession", "code", state))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> flowProvider.finish(null, "code", state))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(issuedTokens.get()).isZero();
+    }
+
+    /**
+     * Test method for {@link OAuth2FlowProvider#finish(String, String, String)}.
+     */
+    @Test
+    void testFinishedFlowRotatesSessionId() {
+        OAuth2FlowProvider flowProvider = newFlowProvider(TIMEOUT, TIMEOUT);
+        Response redirect = flowProvider.authorizationRedirect(BASE_URI, null);
+        String sessionId = redirect.getCookies().get(OAuth2FlowProvider.SESSION_COOKIE).getValue();
+
+        String authorizedSessionId = flowProvider.finish(sessionId, "code", state(redirect));
+
+        assertThat(authorizedSessionId).isNotEqualTo(sessionId);
+        assertThat(flowProvider.getAccessToken(authorizedSessionId)).isEqualTo("token-1");
+        assertThat(flowProvider.getAccessToken(sessionId)).isNull();
+
+        // a new login of an authorized session replaces its ID again
+        Response secondRedirect = flowProvider.authorizationRedirect(BASE_URI, authorizedSessionId);
+        assertThat(secondRedirect.getCookies()).doesNotContainKey(OAuth2FlowProvider.SESSION_COOKIE);
+        String reauthorizedSessionId = flowProvider.finish(authorizedSessionId, "code", state(secondRedirect));
+
+        assertThat(reauthorizedSessionId).isNotEqualTo(authorizedSessionId);
+        assertThat(flowProvider.getAccessToken(reauthorizedSessionId)).isEqualTo("token-2");
+        assertThat(flowProvider.getAccessToken(authorizedSessionId)).isNull();
+    }
+
+    /**
+     * Test method for {@link OAuth2FlowProvider#finish(String, String, String)}.
+     */
+    @Test
+    void testFlowCanBeFinishedOnlyOnce() {
+        OAuth2FlowProvider flowProvider = newFlowProvider(TIMEOUT, TIMEOUT);
+        Response redirect = flowProvider.authorizationRedirect(BASE_URI, null);
+        String sessionId = redirect.getCookies().get(OAuth2FlowProvider.SESSION_COOKIE).getValue();
+        String state = state(redirect);
+
+        flowProvider.finish(sessionId, "code", state);
+
+        assertThatThrownBy(() -> flowProvider.finish(sessionId, "code", state))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(issuedTokens.get()).isEqualTo(1);
+    }
+
+    /**
+     * Test method for {@link OAuth2FlowProvider#finish(String, String, String)}.
+     */
+    @Test
+    void testExpiredFlowIsRejected() throws InterruptedException {
+        OAuth2FlowProvider flowProvider = newFlowProvider(Duration.ofMillis(1), TIMEOUT);
+        Response redirect = flowProvider.authorizationRedirect(BASE_URI, null);
+        String sessionId = redirect.getCookies().get(OAuth2FlowProvider.SESSION_COOKIE).getValue();
+
+        TimeUnit.MILLISECONDS.sleep(20);
+
+        assertThatThrownBy(() -> flowProvider.finish(sessionId, "code", state(redirect)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(issuedTokens.get()).isZero();
+    }
+
+    /**
+     * Test method for {@link OAuth2FlowProvider#getAccessToken(String)}.
+     */
+    @Test
+    void testIdleSessionIsForgotten() throws InterruptedException {
+        OAuth2FlowProvider flowProvider = newFlowProvider(TIMEOUT, Duration.ofMillis(200));
+        Response redirect = flowProvider.authorizationRedirect(BASE_URI, null);
+        String sessionId = redirect.getCookies().get(OAuth2FlowProvider.SESSION_COOKIE).getValue();
+        String authorizedSessionId = flowProvider.finish(sessionId, "code", state(redirect));
+
+        assertThat(flowProvider.getAccessToken(authorizedSessionId)).isEqualTo("token-1");
+
+        TimeUnit.MILLISECONDS.sleep(300);
+
+        assertThat(flowProvider.getAccessToken(authorizedSessionId)).isNull();
+    }
+
+    /**
+     * Test method for {@link OAuth2FlowProvider#finish(String, String, String)}.
+     */
+    @Test
+    void testRefreshIsScheduledBeforeExpiryWithJitter() {
+        expiresIn = 3600L;
+        OAuth2FlowProvider flowProvider = newFlowProvider(TIMEOUT, TIMEOUT, Duration.ofSeconds(60),
+                Duration.ofSeconds(30));
+
+        for (int i = 0; i < 10; i++) {
+            login(flowProvider, null);
+        }
+
+        assertThat(refreshScheduler.delays).hasSize(10)
+                .allSatisfy(delay -> assertThat(delay).isBetween(TimeUnit.SECONDS.toNanos(3600 - 60 - 30 - 5),
+                        TimeUnit.SECONDS.toNanos(3600 - 60)));
+        // the refreshes of the sessions that logged in together are spread
+        assertThat(refreshScheduler.delays.stream().distinct().count()).isGreaterThan(1);
+    }
+
+    /**
+     * Test method for {@link OAuth2FlowProvider#finish(String, String, String)}.
+     */
+    @Test
+    void testShortLivedTokenIsRefreshedInSecondHalfOfItsLife() {
+        expiresIn = 60L;
+        OAuth2FlowProvider flowProvider = newFlowProvider(TIMEOUT, TIMEOUT, Duration.ofSeconds(60),
+                Duration.ofSeconds(30));
+
+        login(flowProvider, null);
+
+        assertThat(refreshScheduler.delays).hasSize(1);
+        assertThat(refreshScheduler.delays.get(0)).isBetween(TimeUnit.SECONDS.toNanos(25),
+                TimeUnit.SECONDS.toNanos(30));
+    }
+
+    /**
+     * Test method for {@link OAuth2FlowProvider#addAccessTokenListener(java.util.function.BiConsumer)}.
+     */
+    @Test
+    void testRefreshReplacesAccessTokenAndNotifiesListeners() {
+        expiresIn = 3600L;
+        OAuth2FlowProvider flowProvider = newFlowProvider(TIMEOUT, TIMEOUT, Duration.ofSeconds(60), Duration.ZERO);
+        String sessionId = login(flowProvider, null);
+
+        refreshScheduler.run(0);
+
+        assertThat(flowProvider.getAccessToken(sessionId)).isEqualTo("token-2");
+        assertThat(refreshedTokens).containsExactly("token-1", "token-2");
+        // the next refresh is scheduled
+        assertThat(refreshScheduler.tasks).hasSize(2);
+    }
+
+    /**
+     * Test method for {@link OAuth2FlowProvider#addAccessTokenListener(java.util.function.BiConsumer)}.
+     */
+    @Test
+    void testFailedRefreshIsRetried() {
+        expiresIn = 3600L;
+        OAuth2FlowProvider flowProvider = newFlowProvider(TIMEOUT, TIMEOUT, Duration.ofSeconds(60), Duration.ZERO);
+        String sessionId = login(flowProvider, null);
+
+        tokenEndpointFailing = true;
+        refreshScheduler.run(0);
+
+        assertThat(refreshScheduler.delays).hasSize(2).last().isEqualTo(TimeUnit.SECONDS.toNanos(15));
+        assertThat(flowProvider.getAccessToken(sessionId)).isEqualTo("token-1");
+        assertThat(refreshedTokens).isEmpty();
+
+        tokenEndpointFailing = false;
+        refreshScheduler.run(1);
+
+        assertThat(flowProvider.getAccessToken(sessionId)).isEqualTo("token-2");
+        assertThat(refreshedTokens).containsExactly("token-1", "token-2");
+    }
+
+    /**
+     * Test method for {@link OAuth2FlowProvider#restore(OAuth2CredentialStore)}.
+     */
+    @Test
+    void testRefreshNeverResurrectsRemovedSession() {
+        expiresIn = 3600L;
+        Path file = directory.resolve("credentials.log");
+        OAuth2FlowProvider flowProvider = newFlowProvider(TIMEOUT, TIMEOUT, Duration.ofSeconds(60), Duration.ZERO);
+        String replacedSessionId;
+        String refreshedSessionId;
+        String[] reauthorizedSessionId = new String[1];
+        try (OAuth2CredentialStore store = newCredentialStore(file)) {
+            flowProvider.restore(store);
+            flowProvider.setClientIdentifier(new ClientIdentifier("clientId", "clientSecret"));
+
+            // the refresh of a session replaced by a new login is not run
+            replacedSessionId = login(flowProvider, null);
+            refreshedSessionId = login(flowProvider, replacedSessionId);
+            refreshScheduler.run(0);
+            assertThat(issuedTokens.get()).isEqualTo(2);
+
+            // the session is replaced by a new login while its access token is being refreshed
+            Response redirect = flowProvider.authorizationRedirect(BASE_URI, refreshedSessionId);
+            tokenRequestHook = () -> reauthorizedSessionId[0] = flowProvider.finish(refreshedSessionId, "code",
+                    state(redirect));
+            refreshScheduler.run(1);
+
+            assertThat(issuedTokens.get()).isEqualTo(4);
+            assertThat(flowProvider.getAccessToken(refreshedSessionId)).isNull();
+            assertThat(flowProvider.getAccessToken(reauthorizedSessionId[0])).isEqualTo("token-3");
+            assertThat(refreshedTokens).isEmpty();
+            assertThat(refreshScheduler.tasks).hasSize(3);
+        }
+
+        OAuth2FlowProvider restoredFlowProvider = newFlowProvider(TIMEOUT, TIMEOUT, Duration.ofSeconds(60),
+                Duration.ZERO);
+        try (OAuth2CredentialStore store = newCredentialStore(file)) {
+            restoredFlowProvider.restore(store);
+
+            assertThat(restoredFlowProvider.getAccessToken(replacedSessionId)).isNull();
+            assertThat(restoredFlowProvider.getAccessToken(refreshedSessionId)).isNull();
+            assertThat(restoredFlowProvider.getAccessToken(reauthorizedSessionId[0])).isEqualTo("token-3");
+        }
+    }
+
+    private OAuth2FlowProvider newFlowProvider(Duration flowTimeToLive, Duration sessionIdleTimeout) {
+        return newFlowProvider(flowTimeToLive, sessionIdleTimeout, Duration.ZERO, Duration.ZERO);
+    }
+
+    private OAuth2FlowProvider newFlowProvider(Duration flowTimeToLive, Duration sessionIdleTimeout,
+                                               Duration refreshAhead, Duration refreshJitter)
+    {
+        OAuth2FlowProvider flowProvider = new OAuth2FlowProvider(tokenClient, flowTimeToLive, sessionIdleTimeout,
+                refreshScheduler, refreshAhead, refreshJitter);
+        flowProvider.setClientIdentifier(new ClientIdentifier("clientId", "clientSecret"));
+        flowProvider.addAccessTokenListener((previousAccessToken, accessToken) ->
+                refreshedTokens.addAll(Arrays.asList(previousAccessToken, accessToken)));
+        return flowProvider;
+    }
+
+    private static OAuth2CredentialStore newCredentialStore(Path file) {
+        return new OAuth2CredentialStore(new EncryptedRecordFile(file, new Aes256EncryptionServiceImpl(),
+                new Aes256DecryptionServiceImpl(), SECRET_KEY), new ObjectMapper());
+    }
+
+    private static String login(OAuth2FlowProvider flowProvider, @Nullable String sessionId) {
+        Response redirect = flowProvider.authorizationRedirect(BASE_URI, sessionId);
+        String flowSessionId = sessionId == null
+                ? redirect.getCookies().get(OAuth2FlowProvider.SESSION_COOKIE).getValue()
+                : sessionId;
+        return flowProvider.finish(flowSessionId, "code", state(redirect));
+    }
+
+    private static String state(Response redirect) {
+        return UriComponent.decodeQuery(redirect.getLocation(), true).getFirst("state");
+    }
+
+    /**
+     * Fake token endpoint issuing a new access token for every authorization code and refresh token.
+     *
+     * @param request request of the token endpoint
+     */
+    private void tokenEndpoint(ClientRequestContext request) {
+        Runnable hook = tokenRequestHook;
+        if (hook != null) {
+            tokenRequestHook = null;
+            hook.run();
+        }
+        if (tokenEndpointFailing) {
+            request.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+            return;
+        }
+
+        String expiry = expiresIn == null
+                ? ""
+                : ",\"expires_in\":" + expiresIn + ",\"refresh_token\":\"refresh\"";
+        request.abortWith(Response.ok("{\"access_token\":\"token-" + issuedTokens.incrementAndGet()
+                + "\",\"token_type\":\"Bearer\"" + expiry + "}", MediaType.APPLICATION_JSON_TYPE).build());
+    }
+
+    /**
+     * Scheduler that records the scheduled tasks with their delays, the tasks are run by the test.
+     */
+    private static final class ManualScheduler extends ScheduledThreadPoolExecutor {
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final List<Long> delays = new ArrayList<>();
+
+        private ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            tasks.add(command);
+            delays.add(unit.toNanos(delay));
+            // the returned future is never run by the scheduler, but it can be cancelled
+            return super.schedule(() -> { }, 1, TimeUnit.DAYS);
+        }
+
+        private void run(int task) {
+            tasks.get(task).run();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package cz.kb.openbanking.adaa.example.web.statement;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.ws.rs.client.ClientBuilder;
+
+import cz.kb.openbanking.adaa.client.api.AccountApi;
+import cz.kb.openbanking.adaa.client.api.search.AccountBalancesSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountStatementsSearch;
+import cz.kb.openbanking.adaa.client.api.search.PdfStatementSearch;
+import cz.kb.openbanking.adaa.client.api.search.TransactionHistorySearch;
+import cz.kb.openbanking.adaa.example.core.cache.DiskLruCache;
+import cz.kb.openbanking.adaa.example.web.mapper.AccountMapper;
+import cz.kb.openbanking.adaa.example.web.store.AccountListCache;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * {@link PdfStatementCache} whose downloads create local files, it records the downloads and their concurrency.
+ *
+ * @since 1.2
+ */
+class FakePdfStatementCache extends PdfStatementCache {
+    private final Path directory;
+    private final long downloadMillis;
+    private final Set<Long> cachedIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> failingIds = ConcurrentHashMap.newKeySet();
+    private final List<Long> downloadedIds = new CopyOnWriteArrayList<>();
+    private final List<FileChannel> openedChannels = new CopyOnWriteArrayList<>();
+    private final AtomicInteger activeDownloads = new AtomicInteger();
+    private final AtomicInteger maxActiveDownloads = new AtomicInteger();
+
+    /**
+     * New instance.
+     *
+     * @param directory      directory of the downloaded statements
+     * @param downloadMillis duration of every download in milliseconds
+     */
+    FakePdfStatementCache(Path directory, long downloadMillis) {
+        super(new PdfStatementClient(ClientBuilder.newClient(), "http://localhost", "apiKey"),
+                new AccountListCache(new NoAccountApi(), Mappers.getMapper(AccountMapper.class), 1,
+                        Duration.ofHours(1), Runnable::run),
+                new DiskLruCache(directory.resolve("cache"), 1024));
+        this.directory = directory;
+        this.downloadMillis = downloadMillis;
+    }
+
+    /**
+     * Gets content of the downloaded statement.
+     *
+     * @param statementId ID of the statement
+     * @return content of the statement
+     */
+    static String content(long statementId) {
+        return "%PDF statement " + statementId;
+    }
+
+    @Override
+    public boolean isCached(String accountId, long statementId) {
+        return cachedIds.contains(statementId);
+    }
+
+    @Override
+    public FileChannel download(String accountId, String accessToken, long statementId) throws IOException {
+        int active = activeDownloads.incrementAndGet();
+        maxActiveDownloads.accumulateAndGet(active, Math::max);
+        try {
+            try {
+                TimeUnit.MILLISECONDS.sleep(downloadMillis);
+            } catch (InterruptedException e) {
+                // like a blocking download that finishes anyway
+                Thread.currentThread().interrupt();
+            }
+            downloadedIds.add(statementId);
+            if (failingIds.contains(statementId)) {
+                throw new IOException("Statement " + statementId + " could not be downloaded.");
+            }
+
+            Path statement = directory.resolve(statementId + ".pdf");
+            Files.write(statement, content(statementId).getBytes(StandardCharsets.US_ASCII));
+            FileChannel channel = FileChannel.open(statement, StandardOpenOption.READ);
+            openedChannels.add(channel);
+            return channel;
+        } finally {
+            activeDownloads.decrementAndGet();
+        }
+    }
+
+    Set<Long> getCachedIds() {
+        return cachedIds;
+    }
+
+    Set<Long> getFailingIds() {
+        return failingIds;
+    }
+
+    List<Long> getDownloadedIds() {
+        return downloadedIds;
+    }
+
+    List<FileChannel> getOpenedChannels() {
+        return openedChannels;
+    }
+
+    int getMaxActiveDownloads() {
+        return maxActiveDownloads.get();
+    }
+
+    /**
+     * {@link AccountApi} that is never called, the fake does not check the accounts.
+     */
+    private static final class NoAccountApi implements AccountApi {
+
+        @Override
+        public AccountSearch accounts(String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public TransactionHistorySearch transactions(String accountId, String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AccountBalancesSearch balances(String accountId, String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AccountStatementsSearch statements(String accountId, String accessToken, OffsetDateTime dateFrom) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PdfStatementSearch statementPdf(String accountId, String accessToken, long statementId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package cz.kb.openbanking.adaa.example.web.statement;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for {@link PdfStatementArchive}.
+ *
+ * @since 1.2
+ */
+class PdfStatementArchiveTest {
+    private static final int MAX_CONCURRENT_DOWNLOADS = 3;
+
+    @TempDir
+    Path directory;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test method for {@link PdfStatementArchive#write(String, String, List, java.io.OutputStream)}.
+     */
+    @Test
+    void testArchiveContainsAllStatementsDownloadedWithBoundedConcurrency() throws IOException {
+        FakePdfStatementCache cache = new FakePdfStatementCache(directory, 20);
+        PdfStatementArchive archive = new PdfStatementArchive(cache, executor, MAX_CONCURRENT_DOWNLOADS);
+        List<Long> statementIds = LongStream.rangeClosed(1, 10).boxed().collect(Collectors.toList());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        archive.write("accountId", "token", statementIds, output);
+
+        Map<String, String> entries = readEntries(output.toByteArray());
+        assertThat(entries).hasSize(statementIds.size());
+        statementIds.forEach(statementId -> assertThat(entries)
+                .containsEntry(statementId + ".pdf", FakePdfStatementCache.content(statementId)));
+        assertThat(cache.getMaxActiveDownloads()).isBetween(2, MAX_CONCURRENT_DOWNLOADS);
+        assertThat(cache.getOpenedChannels()).noneMatch(FileChannel::isOpen);
+    }
+
+    /**
+     * Test method for {@link PdfStatementArchive#write(String, String, List, java.io.OutputStream)}.
+     */
+    @Test
+    void testFailedDownloadClosesAllStatements() throws InterruptedException {
+        FakePdfStatementCache cache = new FakePdfStatementCache(directory, 20);
+        cache.getFailingIds().add(4L);
+        PdfStatementArchive archive = new PdfStatementArchive(cache, executor, MAX_CONCURRENT_DOWNLOADS);
+        List<Long> statementIds = LongStream.rangeClosed(1, 10).boxed().collect(Collectors.toList());
+
+        assertThatThrownBy(() -> archive.write("accountId", "token", statementIds, new ByteArrayOutputStream()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Statement 4");
+
+        // downloads running at the failure finish in the background and close their statements
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(cache.getDownloadedIds()).doesNotContain(10L);
+        assertThat(cache.getOpenedChannels()).noneMatch(FileChannel::isOpen);
+    }
+
+    /**
+     * Test method for {@link PdfStatementArchive#write(String, String, List, java.io.OutputStream)}.
+     */
+    @Test
+    void testRepeatedStatementIsWrittenOnce() throws IOException {
+        FakePdfStatementCache cache = new FakePdfStatementCache(directory, 0);
+        PdfStatementArchive archive = new PdfStatementArchive(cache, executor, MAX_CONCURRENT_DOWNLOADS);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        archive.write("accountId", "token", Arrays.asList(1L, 2L, 1L), output);
+
+        assertThat(readEntries(output.toByteArray())).containsOnlyKeys("1.pdf", "2.pdf");
+        assertThat(cache.getDownloadedIds()).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    private static Map<String, String> readEntries(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream input = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = input.getNextEntry()) != null) {
+                entries.put(entry.getName(), IOUtils.toString(input, StandardCharsets.US_ASCII));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,129 @@
+package cz.kb.openbanking.adaa.example.web.statement;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link PdfStatementPrefetcher}.
+ *
+ * @since 1.2
+ */
+class PdfStatementPrefetcherTest {
+    private static final String ACCOUNT_ID = "accountId";
+    private static final String ACCESS_TOKEN = "token";
+    private static final String OTHER_ACCESS_TOKEN = "otherToken";
+
+    @TempDir
+    Path directory;
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private FakePdfStatementCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new FakePdfStatementCache(directory, 0);
+    }
+
+    /**
+     * Test method for {@link PdfStatementPrefetcher#prefetch(String, String, java.util.List)}.
+     */
+    @Test
+    void testPrefetchesAreLimitedPerUserAndInTotal() {
+        PdfStatementPrefetcher prefetcher = new PdfStatementPrefetcher(cache, executor, 2, 3);
+
+        prefetcher.prefetch(ACCOUNT_ID, ACCESS_TOKEN, Arrays.asList(1L, 2L, 3L, 4L));
+        assertThat(executor.tasks).hasSize(2);
+
+        prefetcher.prefetch(ACCOUNT_ID, OTHER_ACCESS_TOKEN, Arrays.asList(10L, 11L, 12L));
+        assertThat(executor.tasks).hasSize(3);
+
+        executor.runAll();
+        assertThat(cache.getDownloadedIds()).containsExactly(1L, 2L, 10L);
+
+        // the finished prefetches free their slots
+        prefetcher.prefetch(ACCOUNT_ID, ACCESS_TOKEN, Arrays.asList(3L, 4L, 5L));
+        assertThat(executor.tasks).hasSize(2);
+    }
+
+    /**
+     * Test method for {@link PdfStatementPrefetcher#prefetch(String, String, java.util.List)}.
+     */
+    @Test
+    void testFailedPrefetchReleasesSlots() {
+        PdfStatementPrefetcher prefetcher = new PdfStatementPrefetcher(cache, executor, 1, 1);
+        cache.getFailingIds().add(1L);
+
+        prefetcher.prefetch(ACCOUNT_ID, ACCESS_TOKEN, Collections.singletonList(1L));
+        executor.runAll();
+
+        prefetcher.prefetch(ACCOUNT_ID, ACCESS_TOKEN, Collections.singletonList(1L));
+        assertThat(executor.tasks).hasSize(1);
+        executor.runAll();
+        assertThat(cache.getDownloadedIds()).containsExactly(1L, 1L);
+    }
+
+    /**
+     * Test method for {@link PdfStatementPrefetcher#prefetch(String, String, java.util.List)}.
+     */
+    @Test
+    void testRejectedPrefetchReleasesSlots() {
+        PdfStatementPrefetcher prefetcher = new PdfStatementPrefetcher(cache, executor, 1, 1);
+        executor.rejecting = true;
+
+        prefetcher.prefetch(ACCOUNT_ID, ACCESS_TOKEN, Arrays.asList(1L, 2L));
+        assertThat(executor.tasks).isEmpty();
+
+        executor.rejecting = false;
+        prefetcher.prefetch(ACCOUNT_ID, ACCESS_TOKEN, Collections.singletonList(1L));
+        assertThat(executor.tasks).hasSize(1);
+    }
+
+    /**
+     * Test method for {@link PdfStatementPrefetcher#prefetch(String, String, java.util.List)}.
+     */
+    @Test
+    void testCachedAndPrefetchedStatementsAreSkipped() {
+        PdfStatementPrefetcher prefetcher = new PdfStatementPrefetcher(cache, executor, 5, 5);
+        cache.getCachedIds().add(1L);
+
+        prefetcher.prefetch(ACCOUNT_ID, ACCESS_TOKEN, Arrays.asList(1L, 2L, null));
+        prefetcher.prefetch(ACCOUNT_ID, OTHER_ACCESS_TOKEN, Arrays.asList(2L, 3L));
+        executor.runAll();
+
+        assertThat(cache.getDownloadedIds()).containsExactly(2L, 3L);
+    }
+
+    /**
+     * {@link Executor} that queues the tasks until they are run by the test.
+     */
+    private static final class ManualExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean rejecting;
+
+        @Override
+        public void execute(Runnable command) {
+            if (rejecting) {
+                throw new RejectedExecutionException("Executor is rejecting the tasks.");
+            }
+            tasks.add(command);
+        }
+
+        private void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
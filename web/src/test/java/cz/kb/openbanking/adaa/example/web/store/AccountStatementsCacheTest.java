@@ -0,0 +1,166 @@
+package cz.kb.openbanking.adaa.example.web.store;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.ws.rs.ForbiddenException;
+
+import cz.kb.openbanking.adaa.client.api.AccountApi;
+import cz.kb.openbanking.adaa.client.api.search.AccountBalancesSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountStatementsSearch;
+import cz.kb.openbanking.adaa.client.api.search.PdfStatementSearch;
+import cz.kb.openbanking.adaa.client.api.search.TransactionHistorySearch;
+import cz.kb.openbanking.adaa.client.model.generated.Account;
+import cz.kb.openbanking.adaa.client.model.generated.Statement;
+import cz.kb.openbanking.adaa.example.web.mapper.AccountMapper;
+import cz.kb.openbanking.adaa.example.web.model.StatementModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for {@link AccountStatementsCache}.
+ *
+ * @since 1.2
+ */
+class AccountStatementsCacheTest {
+    private static final String ACCOUNT_ID = "accountId";
+    private static final String ACCESS_TOKEN = "token";
+    private static final ZoneId ZONE_ID = ZoneOffset.UTC;
+    private static final YearMonth CURRENT_MONTH = YearMonth.now(ZONE_ID);
+
+    private final StatementApi accountApi = new StatementApi();
+    private AccountStatementsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        AccountMapper mapper = Mappers.getMapper(AccountMapper.class);
+        AccountListCache accountListCache = new AccountListCache(accountApi, mapper, 10, Duration.ofHours(1),
+                Runnable::run);
+        cache = new AccountStatementsCache(accountApi, mapper, accountListCache, Runnable::run, 100, ZONE_ID);
+        for (int monthsAgo = 1; monthsAgo <= 6; monthsAgo++) {
+            accountApi.statements.add(statement(monthsAgo, CURRENT_MONTH.minusMonths(monthsAgo).atDay(15)));
+        }
+    }
+
+    /**
+     * Test method for {@link AccountStatementsCache#getStatements(String, String, LocalDate, LocalDate)}.
+     */
+    @Test
+    void testEveryRunOfUncachedMonthsIsLoadedByOneCall() {
+        cache.getStatements(ACCOUNT_ID, ACCESS_TOKEN, firstDay(5), lastDay(4));
+        assertThat(accountApi.dateFroms).containsExactly(firstDay(5));
+
+        accountApi.dateFroms.clear();
+        List<StatementModel> statements = cache.getStatements(ACCOUNT_ID, ACCESS_TOKEN, firstDay(6), lastDay(1));
+
+        assertThat(accountApi.dateFroms).containsExactlyInAnyOrder(firstDay(6), firstDay(3));
+        assertThat(statements).extracting(StatementModel::getStatementId).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+    }
+
+    /**
+     * Test method for {@link AccountStatementsCache#getStatements(String, String, LocalDate, LocalDate)}.
+     */
+    @Test
+    void testStatementsAreAssignedToMonthsByIssueDate() {
+        // the API returns the statements of the later months too, they are not cached under the requested month
+        List<StatementModel> statements = cache.getStatements(ACCOUNT_ID, ACCESS_TOKEN, firstDay(3), lastDay(3));
+        assertThat(statements).extracting(StatementModel::getStatementId).containsExactly(3L);
+
+        statements = cache.getStatements(ACCOUNT_ID, ACCESS_TOKEN, firstDay(3), lastDay(2));
+        assertThat(statements).extracting(StatementModel::getStatementId).containsExactly(2L, 3L);
+        assertThat(accountApi.dateFroms).containsExactly(firstDay(3), firstDay(2));
+
+        // days of the cached month outside of the period are filtered out
+        assertThat(cache.getStatements(ACCOUNT_ID, ACCESS_TOKEN, firstDay(3).plusDays(15), lastDay(3))).isEmpty();
+        assertThat(accountApi.dateFroms).hasSize(2);
+    }
+
+    /**
+     * Test method for {@link AccountStatementsCache#getStatements(String, String, LocalDate, LocalDate)}.
+     */
+    @Test
+    void testRepeatedStatementsAreMerged() {
+        LocalDate issued = CURRENT_MONTH.minusMonths(3).atDay(20);
+        accountApi.statements.add(statement(7, issued));
+        accountApi.statements.add(statement(7, issued));
+        accountApi.statements.add(statement(3, CURRENT_MONTH.minusMonths(3).atDay(15)));
+
+        List<StatementModel> statements = cache.getStatements(ACCOUNT_ID, ACCESS_TOKEN, firstDay(4), lastDay(3));
+
+        // newest first, every statement once
+        assertThat(statements).extracting(StatementModel::getStatementId).containsExactly(7L, 3L, 4L);
+    }
+
+    /**
+     * Test method for {@link AccountStatementsCache#getStatements(String, String, LocalDate, LocalDate)}.
+     */
+    @Test
+    void testCachedMonthsOfForeignAccountAreNotReturned() {
+        cache.getStatements("foreignAccountId", ACCESS_TOKEN, firstDay(3), lastDay(3));
+
+        assertThatThrownBy(() -> cache.getStatements("foreignAccountId", ACCESS_TOKEN, firstDay(3), lastDay(3)))
+                .isInstanceOf(ForbiddenException.class);
+    }
+
+    private static LocalDate firstDay(int monthsAgo) {
+        return CURRENT_MONTH.minusMonths(monthsAgo).atDay(1);
+    }
+
+    private static LocalDate lastDay(int monthsAgo) {
+        return CURRENT_MONTH.minusMonths(monthsAgo).atEndOfMonth();
+    }
+
+    private static Statement statement(long statementId, LocalDate issued) {
+        return new Statement().statementId(statementId).issued(issued).sequenceNumber(1).pagesCount(1)
+                              .archive(false);
+    }
+
+    /**
+     * {@link AccountApi} returning the statements issued since the requested date, it records the requested dates.
+     */
+    private static final class StatementApi implements AccountApi {
+        private final List<Statement> statements = new ArrayList<>();
+        private final List<LocalDate> dateFroms = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public AccountSearch accounts(String accessToken) {
+            return () -> Collections.singletonList(new Account().accountId(ACCOUNT_ID));
+        }
+
+        @Override
+        public AccountStatementsSearch statements(String accountId, String accessToken, OffsetDateTime dateFrom) {
+            LocalDate from = dateFrom.atZoneSameInstant(ZONE_ID).toLocalDate();
+            dateFroms.add(from);
+            return () -> statements.stream()
+                                   .filter(statement -> !statement.getIssued().isBefore(from))
+                                   .collect(Collectors.toList());
+        }
+
+        @Override
+        public TransactionHistorySearch transactions(String accountId, String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AccountBalancesSearch balances(String accountId, String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PdfStatementSearch statementPdf(String accountId, String accessToken, long statementId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
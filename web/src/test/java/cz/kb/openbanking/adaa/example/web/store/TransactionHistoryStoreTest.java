@@ -0,0 +1,289 @@
+package cz.kb.openbanking.adaa.example.web.store;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import javax.ws.rs.ForbiddenException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import cz.kb.openbanking.adaa.client.api.AccountApi;
+import cz.kb.openbanking.adaa.client.api.search.AccountBalancesSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountSearch;
+import cz.kb.openbanking.adaa.client.api.search.AccountStatementsSearch;
+import cz.kb.openbanking.adaa.client.api.search.PdfStatementSearch;
+import cz.kb.openbanking.adaa.client.api.search.TransactionHistorySearch;
+import cz.kb.openbanking.adaa.client.model.generated.Account;
+import cz.kb.openbanking.adaa.client.model.generated.AccountTransaction;
+import cz.kb.openbanking.adaa.example.core.store.AccountRecordStore;
+import cz.kb.openbanking.adaa.example.core.transaction.TransactionHistoryFetcher;
+import cz.kb.openbanking.adaa.example.web.mapper.AccountMapper;
+import cz.kb.openbanking.adaa.example.web.model.TransactionModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mapstruct.factory.Mappers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for {@link TransactionHistoryStore}.
+ *
+ * @since 1.2
+ */
+class TransactionHistoryStoreTest {
+    private static final String ACCOUNT_ID = "accountId";
+    private static final String OTHER_ACCOUNT_ID = "otherAccountId";
+    private static final String ACCESS_TOKEN = "token";
+    private static final LocalDate BOOKING_DATE = LocalDate.of(2020, 1, 10);
+    private static final OffsetDateTime UPDATED = OffsetDateTime.of(2020, 1, 10, 12, 0, 0, 0, ZoneOffset.UTC);
+    private static final Duration BOOKING_LAG = Duration.ofDays(7);
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final FakeFetcher fetcher = new FakeFetcher();
+    private AccountRecordStore recordStore;
+    private AccountListCache accountListCache;
+
+    @BeforeEach
+    void setUp() {
+        recordStore = new AccountRecordStore(directory, 64 * 1024, 16);
+        accountListCache = new AccountListCache(new AccountListApi(ACCOUNT_ID, OTHER_ACCOUNT_ID),
+                Mappers.getMapper(AccountMapper.class), 10, Duration.ofHours(1), Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() {
+        recordStore.close();
+    }
+
+    /**
+     * Test method for {@link TransactionHistoryStore#getHistory(String, String)}.
+     */
+    @Test
+    void testSyncRequestsBookingLagWindow() {
+        TransactionHistoryStore store = newStore(Duration.ZERO, 10);
+        fetcher.results.add(Collections.singletonList(transaction("1", BOOKING_DATE, UPDATED)));
+        fetcher.results.add(Collections.singletonList(transaction("2", BOOKING_DATE.plusDays(2), UPDATED)));
+
+        store.getHistory(ACCOUNT_ID, ACCESS_TOKEN);
+        List<TransactionModel> transactions = store.getHistory(ACCOUNT_ID, ACCESS_TOKEN).getTransactions();
+
+        // the empty store requests the whole history, then the latest booking date minus the lag is requested again
+        assertThat(fetcher.fromDates).containsExactly(null,
+                BOOKING_DATE.atStartOfDay(ZoneId.systemDefault()).toOffsetDateTime().minus(BOOKING_LAG));
+        assertThat(transactions).extracting(TransactionModel::getEntryReference).containsExactly("2", "1");
+    }
+
+    /**
+     * Test method for {@link TransactionHistoryStore#getHistory(String, String)}.
+     */
+    @Test
+    void testRepeatedTransactionsAreAppendedOnlyWhenUpdated() {
+        TransactionHistoryStore store = newStore(Duration.ZERO, 10);
+        fetcher.results.add(Arrays.asList(transaction("1", BOOKING_DATE, UPDATED),
+                transaction("2", BOOKING_DATE, UPDATED)));
+        fetcher.results.add(Arrays.asList(transaction("1", BOOKING_DATE, UPDATED),
+                transaction("2", BOOKING_DATE, UPDATED.plusHours(1))));
+
+        store.getHistory(ACCOUNT_ID, ACCESS_TOKEN);
+        List<TransactionModel> transactions = store.getHistory(ACCOUNT_ID, ACCESS_TOKEN).getTransactions();
+
+        assertThat(countRecords(ACCOUNT_ID)).isEqualTo(3);
+        assertThat(transactions).hasSize(2);
+        assertThat(transactions).filteredOn(transaction -> "2".equals(transaction.getEntryReference()))
+                                .extracting(transaction -> transaction.getLastUpdated().toInstant())
+                                .containsExactly(UPDATED.plusHours(1).toInstant());
+    }
+
+    /**
+     * Test method for {@link TransactionHistoryStore#getHistory(String, String)}.
+     */
+    @Test
+    void testConcurrentSyncsOfAccountAreCoalesced() throws Exception {
+        TransactionHistoryStore store = newStore(Duration.ZERO, 10);
+        fetcher.results.add(Collections.singletonList(transaction("1", BOOKING_DATE, UPDATED)));
+        CountDownLatch release = new CountDownLatch(1);
+        fetcher.blocker = release;
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<IndexedTransactionHistory> first = CompletableFuture.supplyAsync(
+                    () -> store.getHistory(ACCOUNT_ID, ACCESS_TOKEN), executor);
+            assertThat(fetcher.started.await(10, TimeUnit.SECONDS)).isTrue();
+
+            AtomicReference<Thread> secondThread = new AtomicReference<>();
+            CompletableFuture<IndexedTransactionHistory> second = CompletableFuture.supplyAsync(() -> {
+                secondThread.set(Thread.currentThread());
+                return store.getHistory(ACCOUNT_ID, ACCESS_TOKEN);
+            }, executor);
+            awaitWaiting(secondThread);
+            release.countDown();
+
+            assertThat(second.get(10, TimeUnit.SECONDS)).isSameAs(first.get(10, TimeUnit.SECONDS));
+            assertThat(fetcher.calls.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test method for {@link TransactionHistoryStore#getHistory(String, String)}.
+     */
+    @Test
+    void testSnapshotOfLeastRecentlyUsedAccountIsDropped() {
+        TransactionHistoryStore store = newStore(Duration.ofHours(1), 1);
+
+        store.getHistory(ACCOUNT_ID, ACCESS_TOKEN);
+        store.getHistory(ACCOUNT_ID, ACCESS_TOKEN);
+        assertThat(fetcher.calls.get()).isEqualTo(1);
+
+        store.getHistory(OTHER_ACCOUNT_ID, ACCESS_TOKEN);
+        store.getHistory(ACCOUNT_ID, ACCESS_TOKEN);
+
+        assertThat(fetcher.calls.get()).isEqualTo(3);
+    }
+
+    /**
+     * Test method for {@link TransactionHistoryStore#getHistory(String, String)}.
+     */
+    @Test
+    void testSnapshotIsKeptWhenAccessTokenIsRefreshed() {
+        TransactionHistoryStore store = newStore(Duration.ofHours(1), 10);
+
+        IndexedTransactionHistory history = store.getHistory(ACCOUNT_ID, ACCESS_TOKEN);
+
+        assertThat(store.getHistory(ACCOUNT_ID, "refreshedToken")).isSameAs(history);
+        assertThat(fetcher.calls.get()).isEqualTo(1);
+    }
+
+    /**
+     * Test method for {@link TransactionHistoryStore#getHistory(String, String)}.
+     */
+    @Test
+    void testForeignAccountIsNotStored() {
+        TransactionHistoryStore store = newStore(Duration.ZERO, 10);
+
+        assertThatThrownBy(() -> store.getHistory("foreignAccountId", ACCESS_TOKEN))
+                .isInstanceOf(ForbiddenException.class);
+        assertThat(fetcher.calls.get()).isZero();
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    private TransactionHistoryStore newStore(Duration syncInterval, int maxAccounts) {
+        return new TransactionHistoryStore(recordStore, fetcher, accountListCache,
+                Mappers.getMapper(AccountMapper.class), objectMapper, syncInterval, BOOKING_LAG, maxAccounts);
+    }
+
+    private int countRecords(String accountId) {
+        AtomicInteger records = new AtomicInteger();
+        recordStore.forEach(accountId, (watermark, payload) -> records.incrementAndGet());
+        return records.get();
+    }
+
+    private static void awaitWaiting(AtomicReference<Thread> thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.get() == null || thread.get().getState() != Thread.State.WAITING) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+
+    private static AccountTransaction transaction(String entryReference, LocalDate bookingDate,
+                                                  OffsetDateTime lastUpdated)
+    {
+        return new AccountTransaction().entryReference(entryReference).bookingDate(bookingDate)
+                                       .lastUpdated(lastUpdated);
+    }
+
+    /**
+     * {@link TransactionHistoryFetcher} returning the prepared results in order, an empty history after them.
+     */
+    private static final class FakeFetcher implements TransactionHistoryFetcher {
+        private final List<List<AccountTransaction>> results = new CopyOnWriteArrayList<>();
+        private final List<OffsetDateTime> fromDates = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        @Nullable
+        private volatile CountDownLatch blocker;
+
+        @Override
+        public List<AccountTransaction> fetch(String accountId, String accessToken,
+                                              @Nullable OffsetDateTime fromDate, @Nullable OffsetDateTime toDate)
+        {
+            int call = calls.getAndIncrement();
+            fromDates.add(fromDate);
+            started.countDown();
+            CountDownLatch currentBlocker = blocker;
+            if (currentBlocker != null) {
+                try {
+                    currentBlocker.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return call < results.size() ? results.get(call) : Collections.emptyList();
+        }
+    }
+
+    /**
+     * {@link AccountApi} with the fixed list of the accounts of every access token.
+     */
+    private static final class AccountListApi implements AccountApi {
+        private final List<Account> accounts = new ArrayList<>();
+
+        private AccountListApi(String... accountIds) {
+            for (String accountId : accountIds) {
+                accounts.add(new Account().accountId(accountId));
+            }
+        }
+
+        @Override
+        public AccountSearch accounts(String accessToken) {
+            return () -> accounts;
+        }
+
+        @Override
+        public TransactionHistorySearch transactions(String accountId, String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AccountBalancesSearch balances(String accountId, String accessToken) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AccountStatementsSearch statements(String accountId, String accessToken, OffsetDateTime dateFrom) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PdfStatementSearch statementPdf(String accountId, String accessToken, long statementId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}